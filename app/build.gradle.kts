@@ -59,6 +59,7 @@ dependencies {
 
     // Image Handling Libraries
     implementation(libs.glide)
+    annotationProcessor(libs.compiler)
     implementation(libs.circleimageview)
 
     // Barcode Scanning Libraries
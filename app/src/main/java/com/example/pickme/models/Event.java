@@ -1,16 +1,24 @@
 package com.example.pickme.models;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.example.pickme.models.Enums.EntrantStatus;
 import com.google.firebase.Timestamp;
 import com.google.firebase.database.PropertyName;
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.IgnoreExtraProperties;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 
@@ -19,26 +27,42 @@ import java.util.Objects;
  * Stores all relevant details and constraints for each event, including title, description, date,
  * location, geolocation requirements, QR codes, and timestamps.
  *
- * @version 2.0
+ * @version 2.2
  * Responsibilities:
  * - Define the properties and structure for event-related data.
  * - Validate key fields such as max entrants and event date format.
  * - Manage event identity and equality for list operations and comparisons.
+ * <p>
+ * The event's start and end are stored as Timestamps so events can be range-queried by time;
+ * the display string is derived from them. Documents written before that still hold only the
+ * display string in "eventDate", which the repository migrates.
+ * <p>
+ * The waiting list lives in the entrants subcollection; the document only stores the number of
+ * entrants per status, so list screens read a small document no matter how long the list is.
  */
+@IgnoreExtraProperties
 public class Event implements Serializable {
+    private static final String DATE_FORMAT = "MMMM d yyyy, h:mm a";
+    private static final String TIME_FORMAT = "h:mm a";
+    private static final String END_SEPARATOR = " - ";
 
     private String eventId;              // Unique event ID
     private String organizerId;          // Organizer's user ID
     private String facilityId;           // Facility ID
     private String eventTitle;           // Title of the event
     private String eventDescription;     // Description of the event
-    private String eventDate;            // Date and time of the event (as a String)
+    private Timestamp eventTime;         // Start of the event
+    private Timestamp eventEndTime;      // End of the event [nullable]
+    private transient String eventDate;  // Display string derived from the start and end, built on first use
     private String posterImageId;        // URL of the poster image
+    private String posterPreviewUrl;     // URL of the poster's 512px variant [nullable]
     private String eventLocation;        // Location of the event
     private int maxWinners;           // Max number of winners
     private boolean geoLocationRequired; // Indicates if geolocation is required
     private Integer maxEntrants;         // Maximum number of entrants [Nullable]
-    private ArrayList<WaitingListEntrant> waitingList; // Event waiting list; a list of waiting list entrants
+    private ArrayList<WaitingListEntrant> waitingList = new ArrayList<>(); // Event waiting list; in-memory only, stored under events/{id}/entrants
+    private transient WaitingList waitingListIndex; // Lazily built index over waitingList
+    private HashMap<String, Long> entrantCounts = new HashMap<>(); // Number of entrants by status name; kept in sync by the repository's entrant writes
     private Boolean hasLotteryExecuted = false;  // Flag to indicate if the lottery has been executed
     private final Timestamp createdAt;              // Creation timestamp
     private Timestamp updatedAt;              // Last updated timestamp
@@ -65,6 +89,7 @@ public class Event implements Serializable {
      * @param geoLocationRequired Indicates if geolocation is required
      * @param maxEntrants Maximum number of entrants
      * @param waitingList Event waiting list; a list of waiting list entrants
+     * @throws IllegalArgumentException if the date format is invalid
      */
     public Event(String eventId, String organizerId, String facilityId, String eventTitle,
                  String eventDescription, String eventDate, String posterImageId,
@@ -74,7 +99,7 @@ public class Event implements Serializable {
         this.facilityId = facilityId;
         this.eventTitle = eventTitle;
         this.eventDescription = eventDescription;
-        this.eventDate = eventDate;
+        parseEventDate(eventDate);
         this.posterImageId = posterImageId;
         this.eventLocation = eventLocation;
         this.maxWinners = maxWinners;
@@ -184,32 +209,126 @@ public class Event implements Serializable {
     }
 
     /**
-     * Gets the date and time of the event.
+     * Gets the date and time of the event for display, e.g. "October 5 2024, 7:00 PM - 9:00 PM".
+     * Derived from the event's start and end; not stored on the event document.
      *
-     * @return eventDate
+     * @return eventDate, or null if the event has no start time
      */
+    @Exclude
     public String getEventDate() {
+        if (eventDate == null && eventTime != null) {
+            eventDate = new SimpleDateFormat(DATE_FORMAT, Locale.getDefault()).format(eventTime.toDate());
+            if (eventEndTime != null) {
+                eventDate += END_SEPARATOR + new SimpleDateFormat(TIME_FORMAT, Locale.getDefault()).format(eventEndTime.toDate());
+            }
+        }
         return eventDate;
     }
 
     /**
-     * Sets the date and time of the event.
+     * Sets the date and time of the event from a display string, as entered by the organizer.
+     * The string is parsed once into the event's start and, if given, end time.
      *
-     * @param eventDate Date and time of the event (as a String)
+     * @param eventDate Date and time of the event (as a String), optionally followed by " - " and an end time
      * @throws IllegalArgumentException if the date format is invalid
      */
+    @Exclude
     public void setEventDate(@NonNull String eventDate) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MMMM d yyyy, h:mm a");
+        parseEventDate(eventDate);
+        this.updatedAt = Timestamp.now();
+    }
+
+    /**
+     * Parses a display string into the event's start and end time.
+     * An end time earlier than the start is taken to be on the next day.
+     *
+     * @param eventDate Date and time of the event (as a String), optionally followed by " - " and an end time
+     * @throws IllegalArgumentException if the date format is invalid
+     */
+    private void parseEventDate(String eventDate) {
+        if (eventDate == null) {
+            throw new IllegalArgumentException("Invalid date format. Please use 'MMMM d yyyy, h:mm a'.");
+        }
+
+        String[] parts = eventDate.split(END_SEPARATOR, 2);
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT, Locale.getDefault());
         dateFormat.setLenient(false); // Make strict parsing
 
+        Date start;
+        Date end = null;
         try {
-            dateFormat.parse(eventDate); // Attempt to parse the date
-            this.updatedAt = Timestamp.now();
+            start = dateFormat.parse(parts[0].trim());
+            if (parts.length == 2) {
+                SimpleDateFormat timeFormat = new SimpleDateFormat(TIME_FORMAT, Locale.getDefault());
+                timeFormat.setLenient(false);
+                Calendar endTime = Calendar.getInstance();
+                endTime.setTime(timeFormat.parse(parts[1].trim()));
+
+                Calendar endDate = Calendar.getInstance();
+                endDate.setTime(start);
+                endDate.set(Calendar.HOUR_OF_DAY, endTime.get(Calendar.HOUR_OF_DAY));
+                endDate.set(Calendar.MINUTE, endTime.get(Calendar.MINUTE));
+                if (endDate.getTime().before(start)) {
+                    endDate.add(Calendar.DAY_OF_MONTH, 1);
+                }
+                end = endDate.getTime();
+            }
         } catch (ParseException e) {
             throw new IllegalArgumentException("Invalid date format. Please use 'MMMM d yyyy, h:mm a'.");
         }
 
-        this.eventDate = eventDate; // Assuming eventDate is a String type
+        setEventTimes(new Timestamp(start), end != null ? new Timestamp(end) : null);
+    }
+
+    /**
+     * Sets the start and end of the event.
+     *
+     * @param eventTime Start of the event
+     * @param eventEndTime End of the event, or null if open-ended
+     */
+    public void setEventTimes(@NonNull Timestamp eventTime, @Nullable Timestamp eventEndTime) {
+        this.eventTime = eventTime;
+        this.eventEndTime = eventEndTime;
+        this.eventDate = null;
+        this.updatedAt = Timestamp.now();
+    }
+
+    /**
+     * Gets the start of the event.
+     *
+     * @return eventTime
+     */
+    public Timestamp getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * Sets the start of the event.
+     *
+     * @param eventTime Start of the event
+     */
+    public void setEventTime(Timestamp eventTime) {
+        this.eventTime = eventTime;
+        this.eventDate = null;
+    }
+
+    /**
+     * Gets the end of the event.
+     *
+     * @return eventEndTime, or null if open-ended
+     */
+    public Timestamp getEventEndTime() {
+        return eventEndTime;
+    }
+
+    /**
+     * Sets the end of the event.
+     *
+     * @param eventEndTime End of the event
+     */
+    public void setEventEndTime(Timestamp eventEndTime) {
+        this.eventEndTime = eventEndTime;
+        this.eventDate = null;
     }
 
     /**
@@ -231,6 +350,24 @@ public class Event implements Serializable {
         this.updatedAt = Timestamp.now();
     }
 
+    /**
+     * Gets the URL of the poster's 512px variant, sized for the event details screen.
+     *
+     * @return posterPreviewUrl, or null if the poster has no variant
+     */
+    public String getPosterPreviewUrl() {
+        return posterPreviewUrl;
+    }
+
+    /**
+     * Sets the URL of the poster's 512px variant.
+     *
+     * @param posterPreviewUrl URL of the variant, or null if the poster has none
+     */
+    public void setPosterPreviewUrl(String posterPreviewUrl) {
+        this.posterPreviewUrl = posterPreviewUrl;
+    }
+
     /**
      * Gets the location of the event.
      *
@@ -313,11 +450,15 @@ public class Event implements Serializable {
 
     /**
      * Gets the waiting list for the event.
+     * Not stored on the event document; loaded from the entrants subcollection through
+     * {@link com.example.pickme.repositories.EventRepository#loadWaitingList}.
      *
      * @return waitingList
      */
+    @Exclude
     public ArrayList<WaitingListEntrant> getWaitingList() {
-        return waitingList;
+        // the index drops removed entrants from the list when it is read
+        return waitingListIndex != null ? waitingListIndex.getEntrants() : waitingList;
     }
 
     /**
@@ -325,11 +466,63 @@ public class Event implements Serializable {
      *
      * @param waitingList Event waiting list; a list of waiting list entrants
      */
+    @Exclude
     public void setWaitingList(ArrayList<WaitingListEntrant> waitingList) {
         this.waitingList = waitingList;
+        this.waitingListIndex = null;
         this.updatedAt = Timestamp.now();
     }
 
+    /**
+     * Gets the index over the event's waiting list, used for status counts, lookups and changes.
+     * Entrants should be added, removed and have their status changed through the index so it stays in sync.
+     *
+     * @return waitingListIndex
+     */
+    @Exclude
+    public WaitingList getWaitingListIndex() {
+        if (waitingListIndex == null) {
+            waitingListIndex = new WaitingList(this);
+        }
+        return waitingListIndex;
+    }
+
+    /**
+     * Gets the number of entrants on the waiting list by status, as stored on the event document.
+     * Lets lists show the counts without loading the entrants subcollection.
+     *
+     * @return entrantCounts, keyed by {@link EntrantStatus} name
+     */
+    public Map<String, Long> getEntrantCounts() {
+        return entrantCounts;
+    }
+
+    /**
+     * Sets the number of entrants on the waiting list by status.
+     *
+     * @param entrantCounts Entrant counts keyed by {@link EntrantStatus} name
+     */
+    public void setEntrantCounts(Map<String, Long> entrantCounts) {
+        this.entrantCounts = entrantCounts != null ? new HashMap<>(entrantCounts) : new HashMap<>();
+    }
+
+    /**
+     * Gets the stored number of entrants with any of the given statuses.
+     *
+     * @param statuses The statuses to count
+     * @return The number of entrants, or 0 if none have been counted
+     */
+    public int getEntrantCount(EntrantStatus... statuses) {
+        long count = 0;
+        for (EntrantStatus status : statuses) {
+            Long statusCount = entrantCounts.get(status.name());
+            if (statusCount != null) {
+                count += statusCount;
+            }
+        }
+        return (int) count;
+    }
+
     /**
      * Sets if the lottery has been executed.
      *
@@ -403,27 +596,29 @@ public class Event implements Serializable {
     }
 
     /**
-     * Checks if the event date has passed.
+     * Checks if the event has started.
      *
-     * @return true if the event date has passed, false otherwise
+     * @return true if the event start has passed, false otherwise or if the event has no start time
      */
     public boolean hasEventPassed() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MMMM d yyyy, h:mm a");
-        try {
-            Date eventDateParsed = dateFormat.parse(eventDate.split(" - ")[0]);
-            Date currentDate = new Date();
-            if (eventDateParsed != null) {
-                return eventDateParsed.before(currentDate);
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
-            return false;
-        }
-        return false;
+        return eventTime != null && eventTime.toDate().before(new Date());
+    }
+
+    /**
+     * Checks if the event is over, using its end time or, without one, its start time.
+     *
+     * @return true if the event has ended, false otherwise or if the event has no start time
+     */
+    public boolean hasEventEnded() {
+        Timestamp end = eventEndTime != null ? eventEndTime : eventTime;
+        return end != null && end.toDate().before(new Date());
     }
 
     /**
      * Converts the event object to a map for Firestore.
+     * The entrant counts are left out; they are only changed by the entrant writes they count.
+     * The poster fields are left out too; they are set when a poster upload completes, which may be
+     * after this copy of the event was read.
      *
      * @return Map representation of the event object
      */
@@ -434,13 +629,12 @@ public class Event implements Serializable {
         eventMap.put("facilityId", facilityId);
         eventMap.put("eventTitle", eventTitle);
         eventMap.put("eventDescription", eventDescription);
-        eventMap.put("eventDate", eventDate);
-        eventMap.put("posterImageId", posterImageId);
+        eventMap.put("eventTime", eventTime);
+        eventMap.put("eventEndTime", eventEndTime);
         eventMap.put("eventLocation", eventLocation);
         eventMap.put("maxWinners", maxWinners);
         eventMap.put("geoLocationRequired", geoLocationRequired);
         eventMap.put("maxEntrants", maxEntrants);
-        eventMap.put("waitingList", waitingList);
         eventMap.put("hasLotteryExecuted", hasLotteryExecuted);
         eventMap.put("createdAt", createdAt);
         eventMap.put("updatedAt", updatedAt);
@@ -450,6 +644,8 @@ public class Event implements Serializable {
 
     /**
      * Updates the event object with new data.
+     * The local waiting list is kept as-is since it is not part of the event document; the stored
+     * entrant counts are taken from the update.
      *
      * @param event The updated event object
      */
@@ -459,17 +655,31 @@ public class Event implements Serializable {
         facilityId = event.getFacilityId();
         eventTitle = event.getEventTitle();
         eventDescription = event.getEventDescription();
-        eventDate = event.getEventDate();
+        eventTime = event.getEventTime();
+        eventEndTime = event.getEventEndTime();
+        eventDate = null;
         posterImageId = event.getPosterImageId();
+        posterPreviewUrl = event.getPosterPreviewUrl();
         eventLocation = event.getEventLocation();
         maxWinners = event.getMaxWinners();
         geoLocationRequired = event.isGeoLocationRequired();
         maxEntrants = event.getMaxEntrants();
-        waitingList = new ArrayList<>(event.getWaitingList());
         hasLotteryExecuted = event.getHasLotteryExecuted();
+        setEntrantCounts(event.getEntrantCounts());
         updatedAt = Timestamp.now();
     }
 
+    /**
+     * Drops removed entrants from the waiting list before the event is serialized, since the index is not.
+     *
+     * @param out The stream the event is written to
+     * @throws IOException If the event cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getWaitingList();
+        out.defaultWriteObject();
+    }
+
 }
 
 /*
@@ -1,9 +1,5 @@
 package com.example.pickme.models;
 
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
@@ -11,16 +7,15 @@ import androidx.annotation.NonNull;
 import com.example.pickme.models.Enums.ImageType;
 import com.example.pickme.repositories.ImageRepository;
 import com.example.pickme.utils.ImageQuery;
+import com.example.pickme.utils.ImageVariants;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.firebase.Timestamp;
 
-import java.io.ByteArrayOutputStream;
-import java.util.Random;
 
 /**
  * Represents an image uploaded by the user
  *
- * @version 1.1
+ * @version 1.5
  */
 public class Image {
 
@@ -29,6 +24,15 @@ public class Image {
     // the URL of the image in Firebase Storage [non-nullable]
     private String imageUrl;
 
+    // the URL of the 128px variant; null if the image is not larger [nullable]
+    private String thumbnailUrl;
+
+    // the URL of the 512px variant; null if the image is not larger [nullable]
+    private String previewUrl;
+
+    // SHA-256 of the stored file, shared by every image with the same content; null for older images [nullable]
+    private String contentHash;
+
     // the imageType of image (profile picture, event poster) [non-nullable]
     private ImageType imageType;
 
@@ -44,6 +48,7 @@ public class Image {
     // the date/time the image was last updated [non-nullable]
     private Timestamp updatedAt;
 
+    // true for the initials avatars older versions generated and uploaded at signup; removed on sign-in
     private boolean generated;
 
     // ImageRepository instance for Firebase interaction
@@ -103,6 +108,18 @@ public class Image {
         this.updatedAt = Timestamp.now();
     }
 
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public void setPreviewUrl(String previewUrl) {
+        this.previewUrl = previewUrl;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public void setImageType(ImageType imageType) {
         this.imageType = imageType;
         this.updatedAt = Timestamp.now();
@@ -118,6 +135,10 @@ public class Image {
         this.updatedAt = Timestamp.now();
     }
 
+    public void setGenerated(boolean generated) {
+        this.generated = generated;
+    }
+
     //endregion
 
     //region Getters
@@ -125,6 +146,34 @@ public class Image {
         return imageUrl;
     }
 
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    /**
+     * Gets the URL of the smallest stored variant that still covers a view,
+     * falling back to the original for large views and images uploaded without variants.
+     * @param targetSize The longest side of the view in pixels
+     * @return The URL to load
+     */
+    public String getUrlForSize(int targetSize) {
+        if (targetSize <= ImageVariants.THUMBNAIL_SIZE && thumbnailUrl != null) {
+            return thumbnailUrl;
+        }
+        if (targetSize <= ImageVariants.PREVIEW_SIZE && previewUrl != null) {
+            return previewUrl;
+        }
+        return imageUrl;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
     public ImageType getImageType() {
         return imageType;
     }
@@ -181,34 +230,6 @@ public class Image {
         ir.delete(this, listener);
     }
 
-    /**
-     * Generates a random image from the uploader ID.
-     */
-    public void generate(String initials, OnCompleteListener<Image> listener) {
-        this.generated = true;
-        Random rnd = new Random();
-        int color = Color.argb(255, rnd.nextInt(128), rnd.nextInt(128), rnd.nextInt(128));
-        Bitmap b=Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888);
-        Canvas c = new Canvas(b);
-        Paint p = new Paint();
-        c.drawColor(color);
-        p.setTextAlign(Paint.Align.CENTER);
-        p.setColor(Color.parseColor("white"));
-        p.setTextSize(128);
-        c.drawText(
-                initials,
-                (float) c.getWidth() / 2,
-                (((float) c.getHeight() / 2) - ((p.descent() + p.ascent()) / 2)),
-                p
-        );
-
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        b.compress(Bitmap.CompressFormat.PNG, 100, bytes);
-        byte[] data = bytes.toByteArray();
-
-        ir.upload(this, data, listener);
-    }
-
     //endregion
 
 
@@ -2,6 +2,8 @@ package com.example.pickme.models;
 
 import com.example.pickme.models.Enums.EntrantStatus;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
+
 import java.util.ArrayList;
 
 /**
@@ -13,8 +15,11 @@ import java.util.ArrayList;
  *     <li>Who it was sent from and when</li>
  *     <li>Who it's going to</li>
  * </ul>
+ * Who it's going to is either an explicit sendTo list, or an audience of an event: every entrant
+ * of eventID with the given level. Audience notifications keep sendTo empty so the document stays
+ * the same size however many entrants receive it.
  *
- * @version 1.1
+ * @version 1.2
  */
 public class Notification {
     private String notificationID;
@@ -94,6 +99,15 @@ public class Notification {
         this.sendTo = sendTo;
     }
 
+    /**
+     * @return true if the recipients are the entrants of eventID with the notification's level,
+     * rather than an explicit sendTo list
+     */
+    @Exclude
+    public boolean hasAudience() {
+        return (sendTo == null || sendTo.isEmpty()) && eventID != null && sendLevel != null;
+    }
+
     //---------- Level --------------------
     public EntrantStatus getLevel() {
         return sendLevel;
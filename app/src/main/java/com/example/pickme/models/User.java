@@ -5,6 +5,7 @@ import androidx.annotation.NonNull;
 import com.example.pickme.repositories.UserRepository;
 import com.example.pickme.utils.UserNotification;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -12,7 +13,7 @@ import java.util.ArrayList;
 /**
  * Class that can represent, validate, and stores a user in the app.
  *
- * @version 1.2
+ * @version 1.3
  *
  * Responsibilities:
  * - Models a user in the users collection.
@@ -33,8 +34,9 @@ public class User implements Serializable {
     private String emailAddress; // Email address of user.
     private String contactNumber; // Contact number of user.
     private String profilePictureUrl = defaultProfilePictureUrl; // Customizable user profile picture.
+    private String profilePictureThumbnailUrl; // 128px variant of the profile picture, for small avatars [nullable]
     private boolean isOnline; // Checks if the user is currently online.
-    private ArrayList<UserNotification> userNotifications = new ArrayList<UserNotification>(); //list of user's notifications
+    private ArrayList<UserNotification> userNotifications = new ArrayList<UserNotification>(); //loaded inbox entries; stored under users/{id}/inbox
     private ArrayList<String> eventIDs = new ArrayList<>(); //list of events signed up to
 
     // User Preferences & Permissions
@@ -119,6 +121,52 @@ public class User implements Serializable {
         this.updatedAt = Timestamp.now();
     }
 
+    public String getProfilePictureThumbnailUrl() {
+        return profilePictureThumbnailUrl;
+    }
+
+    public void setProfilePictureThumbnailUrl(String profilePictureThumbnailUrl) {
+        this.profilePictureThumbnailUrl = profilePictureThumbnailUrl;
+    }
+
+    /**
+     * Sets the profile picture to an uploaded image, along with its thumbnail.
+     *
+     * @param image The uploaded image.
+     */
+    public void setProfilePicture(Image image) {
+        setProfilePictureUrl(image.getImageUrl());
+        setProfilePictureThumbnailUrl(image.getThumbnailUrl());
+    }
+
+    /**
+     * Removes the uploaded profile picture, so the user's initials are shown instead.
+     */
+    public void clearProfilePicture() {
+        setProfilePictureUrl(null);
+        setProfilePictureThumbnailUrl(null);
+    }
+
+    /**
+     * Checks whether the user has a stored profile picture. Users without one are shown their initials,
+     * which are drawn on the device. Pictures generated at signup by older versions count as well,
+     * until MainActivity finds them by the image's generated flag and removes them.
+     *
+     * @return true if there is a profile picture to load.
+     */
+    public boolean hasCustomProfilePicture() {
+        return profilePictureUrl != null && !profilePictureUrl.isEmpty() && !profilePictureUrl.equals(defaultProfilePictureUrl);
+    }
+
+    /**
+     * Gets the URL to load the profile picture from in a small avatar.
+     *
+     * @return The thumbnail URL, or the profile picture URL if there is no thumbnail.
+     */
+    public String avatarUrl() {
+        return profilePictureThumbnailUrl != null ? profilePictureThumbnailUrl : profilePictureUrl;
+    }
+
     public boolean isOnline() {
         return isOnline;
     }
@@ -127,10 +175,12 @@ public class User implements Serializable {
         this.isOnline = isOnline;
     }
 
+    @Exclude
     public ArrayList<UserNotification> getUserNotifications() {
         return userNotifications;
     }
 
+    @Exclude
     public void setUserNotifications(ArrayList<UserNotification> userNotifications) {
         this.userNotifications = userNotifications;
     }
@@ -139,6 +189,15 @@ public class User implements Serializable {
         this.userNotifications.add(userNotification);
     }
 
+    public boolean hasUserNotification(String notificationID){
+        for(UserNotification userNotification : userNotifications){
+            if(notificationID != null && notificationID.equals(userNotification.getNotificationID()))
+                return true;
+        }
+
+        return false;
+    }
+
     public ArrayList<String> getEventIDs() {
         return eventIDs;
     }
@@ -4,13 +4,25 @@ import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Enums.WaitingListStatus;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents an event's waiting list.
  * This class contains information about the waiting list, including the event ID, maximum entrants, maximum winners, and the current number of entrants.
- * It provides methods to get and set these attributes.
+ * It also indexes the entrants by ID and by status, so lookups, removals and per-status counts are O(1).
+ * Removed entrants are dropped from the shared entrant list the next time the list is read.
+ * Entrants without a status are indexed as waiting.
+ * Changes to the waiting list should go through this class so the index stays in sync.
  *
- * @version 1.0
+ * @version 2.1
  */
 public class WaitingList {
 
@@ -20,23 +32,207 @@ public class WaitingList {
     private Integer maxEntrants;
     // The maximum number of winners for the lottery [non-nullable] - from the event object
     private Integer maxWinners;
-    // The number of entrants currently on the waiting list [non-nullable]
-    private Integer numEntrants;
 
     private WaitingListStatus status;
 
+    // All entrants in join order; shared with the event's waiting list, and may still hold removed entrants until compacted
     private ArrayList<WaitingListEntrant> entrants;
+    // Whether entrants were removed from the index but are still in the entrant list
+    private boolean compactionPending = false;
+    // Entrants by entrant ID
+    private final Map<String, WaitingListEntrant> entrantsById = new HashMap<>();
+    // Entrants by status, in join order; the size of each bucket is that status' count
+    private final EnumMap<EntrantStatus, LinkedHashMap<String, WaitingListEntrant>> entrantsByStatus = new EnumMap<>(EntrantStatus.class);
 
     public WaitingList(Event event) {
         this.eventId = event.getEventId();
         this.maxEntrants = event.getMaxEntrants();
         this.maxWinners = event.getMaxWinners();
-        this.entrants = event.getWaitingList();
-        this.numEntrants = (int) this.entrants.stream().filter(e -> e.getStatus() == EntrantStatus.WAITING).count();
+        this.entrants = event.getWaitingList() != null ? event.getWaitingList() : new ArrayList<>();
 
-        if (event.getHasLotteryExecuted()) {
+        for (EntrantStatus entrantStatus : EntrantStatus.values()) {
+            entrantsByStatus.put(entrantStatus, new LinkedHashMap<>());
+        }
+        for (WaitingListEntrant entrant : this.entrants) {
+            index(entrant);
+        }
+
+        if (Boolean.TRUE.equals(event.getHasLotteryExecuted())) {
             this.status = WaitingListStatus.CLOSED;
-        } else if (this.maxEntrants!= null && this.numEntrants >= this.maxEntrants) {
+        } else {
+            updateStatus();
+        }
+    }
+
+    /**
+     * Adds an entrant to the waiting list.
+     *
+     * @param entrant The entrant to add.
+     */
+    public void add(WaitingListEntrant entrant) {
+        if (entrantsById.containsKey(entrant.getEntrantId())) {
+            remove(entrant.getEntrantId());
+        }
+        entrants.add(entrant);
+        index(entrant);
+        updateStatus();
+    }
+
+    /**
+     * Removes an entrant from the waiting list.
+     *
+     * @param entrantId The ID of the entrant to remove.
+     * @return The removed entrant, or null if the entrant was not on the waiting list.
+     */
+    public WaitingListEntrant remove(String entrantId) {
+        WaitingListEntrant entrant = entrantsById.remove(entrantId);
+        if (entrant == null) {
+            return null;
+        }
+
+        entrantsByStatus.get(indexedStatus(entrant)).remove(entrantId);
+        compactionPending = true;
+        updateStatus();
+        return entrant;
+    }
+
+    /**
+     * Changes the status of an entrant on the waiting list, moving it between the status buckets.
+     *
+     * @param entrant The entrant to update.
+     * @param newStatus The new status of the entrant.
+     */
+    public void setStatus(WaitingListEntrant entrant, EntrantStatus newStatus) {
+        if (entrantsById.containsKey(entrant.getEntrantId())) {
+            entrantsByStatus.get(indexedStatus(entrant)).remove(entrant.getEntrantId());
+            entrantsByStatus.get(newStatus).put(entrant.getEntrantId(), entrant);
+        }
+        entrant.setStatus(newStatus);
+        updateStatus();
+    }
+
+    /**
+     * Gets an entrant by ID.
+     *
+     * @param entrantId The ID of the entrant.
+     * @return The entrant, or null if the entrant is not on the waiting list.
+     */
+    public WaitingListEntrant get(String entrantId) {
+        return entrantsById.get(entrantId);
+    }
+
+    /**
+     * Checks if an entrant is on the waiting list.
+     *
+     * @param entrantId The ID of the entrant.
+     * @return True if the entrant is on the waiting list.
+     */
+    public boolean contains(String entrantId) {
+        return entrantsById.containsKey(entrantId);
+    }
+
+    /**
+     * Gets the number of entrants with any of the given statuses.
+     * {@link EntrantStatus#ALL} counts every entrant.
+     *
+     * @param statuses The statuses to count.
+     * @return The number of entrants.
+     */
+    public int count(EntrantStatus... statuses) {
+        int count = 0;
+        for (EntrantStatus entrantStatus : statuses) {
+            if (entrantStatus == EntrantStatus.ALL) {
+                return entrantsById.size();
+            }
+            count += entrantsByStatus.get(entrantStatus).size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the entrants with the given status, in join order.
+     * {@link EntrantStatus#ALL} returns every entrant.
+     *
+     * @param entrantStatus The status to filter by.
+     * @return An unmodifiable view of the entrants.
+     */
+    public Collection<WaitingListEntrant> getEntrants(EntrantStatus entrantStatus) {
+        if (entrantStatus == EntrantStatus.ALL) {
+            return Collections.unmodifiableList(getEntrants());
+        }
+        return Collections.unmodifiableCollection(entrantsByStatus.get(entrantStatus).values());
+    }
+
+    /**
+     * Gets the entrants with any of the given statuses, in bucket order.
+     *
+     * @param statuses The statuses to filter by.
+     * @return A new list of the entrants.
+     */
+    public List<WaitingListEntrant> getEntrantsByStatus(EntrantStatus... statuses) {
+        List<WaitingListEntrant> result = new ArrayList<>();
+        for (EntrantStatus entrantStatus : statuses) {
+            result.addAll(getEntrants(entrantStatus));
+        }
+        return result;
+    }
+
+    /**
+     * Adds an entrant to the ID and status indexes.
+     *
+     * @param entrant The entrant to index.
+     */
+    private void index(WaitingListEntrant entrant) {
+        entrantsById.put(entrant.getEntrantId(), entrant);
+        entrantsByStatus.get(indexedStatus(entrant)).put(entrant.getEntrantId(), entrant);
+    }
+
+    /**
+     * Gets the status bucket an entrant is indexed under. Legacy and migrated entrants may have no status,
+     * and are counted as waiting.
+     *
+     * @param entrant The entrant.
+     * @return The entrant's status, or {@link EntrantStatus#WAITING} if it has none.
+     */
+    private static EntrantStatus indexedStatus(WaitingListEntrant entrant) {
+        return entrant.getStatus() != null ? entrant.getStatus() : EntrantStatus.WAITING;
+    }
+
+    /**
+     * Drops removed entrants, and the older copy of any entrant that was added again, from the entrant list.
+     * Runs once for any number of removals, so removing many entrants stays linear overall.
+     */
+    private void compact() {
+        if (!compactionPending) {
+            return;
+        }
+
+        // walk backwards so an entrant added again keeps its latest position
+        Set<String> kept = new HashSet<>();
+        ArrayList<WaitingListEntrant> compacted = new ArrayList<>(entrants.size());
+        for (int i = entrants.size() - 1; i >= 0; i--) {
+            WaitingListEntrant entrant = entrants.get(i);
+            if (entrantsById.get(entrant.getEntrantId()) == entrant && kept.add(entrant.getEntrantId())) {
+                compacted.add(entrant);
+            }
+        }
+        Collections.reverse(compacted);
+
+        // the list is shared with the event, so it is refilled rather than replaced
+        entrants.clear();
+        entrants.addAll(compacted);
+        compactionPending = false;
+    }
+
+    /**
+     * Recomputes whether the waiting list is open or full. A closed waiting list stays closed.
+     */
+    private void updateStatus() {
+        if (this.status == WaitingListStatus.CLOSED) {
+            return;
+        }
+
+        if (this.maxEntrants != null && getNumEntrants() >= this.maxEntrants) {
             this.status = WaitingListStatus.FULL;
         } else {
             this.status = WaitingListStatus.OPEN;
@@ -77,6 +273,7 @@ public class WaitingList {
      */
     public void setMaxEntrants(Integer maxEntrants) {
         this.maxEntrants = maxEntrants;
+        updateStatus();
     }
 
     /**
@@ -98,21 +295,12 @@ public class WaitingList {
     }
 
     /**
-     * Gets the number of entrants currently on the waiting list.
+     * Gets the number of entrants currently waiting on the waiting list.
      *
      * @return The number of entrants.
      */
     public Integer getNumEntrants() {
-        return numEntrants;
-    }
-
-    /**
-     * Sets the number of entrants currently on the waiting list.
-     *
-     * @param numEntrants The number of entrants.
-     */
-    public void setNumEntrants(Integer numEntrants) {
-        this.numEntrants = numEntrants;
+        return count(EntrantStatus.WAITING);
     }
 
     public WaitingListStatus getStatus() {
@@ -123,11 +311,13 @@ public class WaitingList {
         this.status = status;
     }
 
+    /**
+     * Gets every entrant in join order. This is the event's waiting list.
+     *
+     * @return The entrants.
+     */
     public ArrayList<WaitingListEntrant> getEntrants() {
+        compact();
         return entrants;
     }
-
-    public void setEntrants(ArrayList<WaitingListEntrant> entrants) {
-        this.entrants = entrants;
-    }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.example.pickme.models;
 
 import com.example.pickme.models.Enums.EntrantStatus;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.GeoPoint;
 
 /**
@@ -9,7 +10,7 @@ import com.google.firebase.firestore.GeoPoint;
  * This class contains information about each entrant, including their ID, location, status, and timestamps.
  * It provides methods to get and set these attributes.
  *
- * @version 1.0
+ * @version 1.2
  */
 public class WaitingListEntrant {
 
@@ -24,9 +25,13 @@ public class WaitingListEntrant {
     // Boolean value representing whether the entrant has been notified [non-nullable]
     private boolean notified;
     // The date/time the entrant joined the waiting list [non-nullable]
-    private final Timestamp createdAt;
+    private Timestamp createdAt;
     // The date/time the entrant was last updated [non-nullable]
     private Timestamp updatedAt;
+    // The date/time the entrant was checked in at the event's entrance; null until then [nullable]
+    private Timestamp checkedInAt;
+    // The status last read from or written to Firestore; null if the entrant is not stored [nullable, in-memory only]
+    private EntrantStatus storedStatus;
 
     /**
      * Default constructor initializing the createdAt timestamp to the current time.
@@ -153,6 +158,16 @@ public class WaitingListEntrant {
         return createdAt;
     }
 
+    /**
+     * Sets the timestamp when the entrant joined the waiting list; used when reading a stored entrant,
+     * so rewriting it keeps the original join time.
+     *
+     * @param createdAt The timestamp when the entrant joined the waiting list.
+     */
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
     /**
      * Gets the timestamp when the entrant was last updated.
      *
@@ -165,4 +180,42 @@ public class WaitingListEntrant {
     public void setUpdatedAt(Timestamp updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the timestamp when the entrant was checked in at the event's entrance.
+     *
+     * @return The check-in timestamp, or null if the entrant has not been checked in.
+     */
+    public Timestamp getCheckedInAt() {
+        return checkedInAt;
+    }
+
+    /**
+     * Sets the timestamp when the entrant was checked in at the event's entrance.
+     *
+     * @param checkedInAt The check-in timestamp.
+     */
+    public void setCheckedInAt(Timestamp checkedInAt) {
+        this.checkedInAt = checkedInAt;
+    }
+
+    /**
+     * Gets the status the entrant has in Firestore, which the event's entrant counts are based on.
+     *
+     * @return The stored status, or null if the entrant has not been stored.
+     */
+    @Exclude
+    public EntrantStatus getStoredStatus() {
+        return storedStatus;
+    }
+
+    /**
+     * Sets the status the entrant has in Firestore; called by the repository after reading or writing the entrant.
+     *
+     * @param storedStatus The stored status, or null once the entrant is removed.
+     */
+    @Exclude
+    public void setStoredStatus(EntrantStatus storedStatus) {
+        this.storedStatus = storedStatus;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.pickme.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batches and caches document reads by ID for a single collection.
+ * <p>
+ * Responsibilities:
+ * - Collects the IDs requested within a short window and fetches them with chunked whereIn queries
+ * - Merges concurrent requests for the same ID into a single read
+ * - Serves repeat requests from a bounded LRU cache whose entries expire after a TTL
+ * - Discards the result of a read that was in flight when its ID was invalidated, instead of caching it
+ * <p>
+ * All methods are expected to be called from the main thread, which is also where Firestore delivers its results.
+ *
+ * @version 1.1
+ */
+public class DocumentBatchLoader {
+    private static final long BATCH_WINDOW_MS = 16;
+    private static final int MAX_IN_QUERY = 30;
+
+    private final CollectionReference collectionRef;
+    private final int maxCacheSize;
+    private final long ttlMs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // IDs waiting for the current batch window to close, in request order
+    private final Set<String> queued = new LinkedHashSet<>();
+    // Callbacks of every queued or in-flight ID; an invalidated in-flight ID is dropped so later loads read it again
+    private final Map<String, List<OnCompleteListener<DocumentSnapshot>>> waiting = new HashMap<>();
+    private final LinkedHashMap<String, CacheEntry> cache;
+    private boolean flushScheduled = false;
+
+    /**
+     * Creates a loader for a collection.
+     *
+     * @param collectionRef The collection to load documents from
+     * @param maxCacheSize The maximum number of documents kept in the cache
+     * @param ttlMs How long a cached document is served before it is fetched again
+     */
+    public DocumentBatchLoader(@NonNull CollectionReference collectionRef, int maxCacheSize, long ttlMs) {
+        this.collectionRef = collectionRef;
+        this.maxCacheSize = maxCacheSize;
+        this.ttlMs = ttlMs;
+        this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > DocumentBatchLoader.this.maxCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Loads a document by its ID.
+     * Cached documents are delivered immediately; anything else joins the next batch.
+     *
+     * @param id The document ID
+     * @param onCompleteListener Listener receiving the snapshot, or null if the document does not exist
+     */
+    public void load(@NonNull String id, @NonNull OnCompleteListener<DocumentSnapshot> onCompleteListener) {
+        CacheEntry entry = cache.get(id);
+        if (entry != null) {
+            if (SystemClock.elapsedRealtime() - entry.loadedAt < ttlMs) {
+                onCompleteListener.onComplete(Tasks.forResult(entry.snapshot));
+                return;
+            }
+            cache.remove(id);
+        }
+
+        List<OnCompleteListener<DocumentSnapshot>> listeners = waiting.get(id);
+        if (listeners != null) {
+            // Already queued or in flight, piggyback on that read
+            listeners.add(onCompleteListener);
+            return;
+        }
+
+        listeners = new ArrayList<>();
+        listeners.add(onCompleteListener);
+        waiting.put(id, listeners);
+        queued.add(id);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(this::flush, BATCH_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Stores a known-good snapshot of a document, e.g. after the app itself wrote it.
+     *
+     * @param id The document ID
+     * @param snapshot The snapshot to cache, or null to record that the document does not exist
+     */
+    public void prime(@NonNull String id, @Nullable DocumentSnapshot snapshot) {
+        cache.put(id, new CacheEntry(snapshot, SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Drops a document from the cache so the next load reads it again.
+     * A read already in flight still completes for its callers, but its result is not cached
+     * and later loads do not wait for it.
+     *
+     * @param id The document ID
+     */
+    public void invalidate(@NonNull String id) {
+        cache.remove(id);
+        if (!queued.contains(id)) {
+            waiting.remove(id);
+        }
+    }
+
+    /**
+     * Sends every queued ID to Firestore in chunks that fit a single whereIn query.
+     */
+    private void flush() {
+        flushScheduled = false;
+        List<String> ids = new ArrayList<>(queued);
+        queued.clear();
+
+        for (int i = 0; i < ids.size(); i += MAX_IN_QUERY) {
+            fetchChunk(ids.subList(i, Math.min(i + MAX_IN_QUERY, ids.size())));
+        }
+    }
+
+    /**
+     * Fetches one chunk of IDs and resolves everyone waiting on them.
+     *
+     * @param ids At most MAX_IN_QUERY document IDs
+     */
+    private void fetchChunk(List<String> ids) {
+        List<String> chunk = new ArrayList<>(ids);
+        // The callbacks this read answers; an ID whose entry in waiting is replaced or removed was invalidated meanwhile
+        Map<String, List<OnCompleteListener<DocumentSnapshot>>> requests = new HashMap<>();
+        for (String id : chunk) {
+            requests.put(id, waiting.get(id));
+        }
+
+        collectionRef.whereIn(FieldPath.documentId(), chunk).get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                Exception e = task.getException() != null ? task.getException() : new Exception("Failed to load documents");
+                for (String id : chunk) {
+                    resolve(id, requests.get(id), listener -> listener.onComplete(Tasks.forException(e)));
+                }
+                return;
+            }
+
+            Map<String, DocumentSnapshot> found = new HashMap<>();
+            for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                found.put(document.getId(), document);
+            }
+
+            long now = SystemClock.elapsedRealtime();
+            for (String id : chunk) {
+                DocumentSnapshot snapshot = found.get(id);
+                if (waiting.get(id) == requests.get(id)) {
+                    cache.put(id, new CacheEntry(snapshot, now));
+                }
+                resolve(id, requests.get(id), listener -> listener.onComplete(Tasks.forResult(snapshot)));
+            }
+        });
+    }
+
+    /**
+     * Hands a result to every listener of a read, and stops later loads of the ID from waiting on it.
+     *
+     * @param id The document ID
+     * @param listeners The listeners the read was made for
+     * @param delivery How to deliver the result to a listener
+     */
+    private void resolve(String id, @Nullable List<OnCompleteListener<DocumentSnapshot>> listeners, Delivery delivery) {
+        if (waiting.get(id) == listeners) {
+            waiting.remove(id);
+        }
+        if (listeners == null)
+            return;
+
+        for (OnCompleteListener<DocumentSnapshot> listener : listeners) {
+            delivery.deliver(listener);
+        }
+    }
+
+    /**
+     * Delivers a result to a single waiting listener.
+     */
+    private interface Delivery {
+        void deliver(OnCompleteListener<DocumentSnapshot> listener);
+    }
+
+    /**
+     * A cached snapshot and when it was loaded. A null snapshot means the document does not exist.
+     */
+    private static class CacheEntry {
+        final DocumentSnapshot snapshot;
+        final long loadedAt;
+
+        CacheEntry(@Nullable DocumentSnapshot snapshot, long loadedAt) {
+            this.snapshot = snapshot;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
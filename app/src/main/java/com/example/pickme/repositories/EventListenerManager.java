@@ -0,0 +1,145 @@
+package com.example.pickme.repositories;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.pickme.models.Event;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps on-screen Event objects in sync with their Firestore documents.
+ * <p>
+ * Responsibilities:
+ * - Registers a document listener only for events that something is observing
+ * - Shares one listener between every observer of the same event, reference counted
+ * - Detaches the listener once the last observer of an event goes away
+ *
+ * @version 1.0
+ */
+class EventListenerManager {
+    private final CollectionReference eventsRef;
+    private final Consumer<String> onEventChanged;
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+
+    /**
+     * Creates a listener manager for the events collection.
+     *
+     * @param eventsRef Collection reference for events
+     * @param onEventChanged Called with the event ID whenever a listened-to event changes
+     */
+    EventListenerManager(@NonNull CollectionReference eventsRef, @NonNull Consumer<String> onEventChanged) {
+        this.eventsRef = eventsRef;
+        this.onEventChanged = onEventChanged;
+    }
+
+    /**
+     * Starts observing an event. The event object is updated in place when its document changes,
+     * or has its ID set to null when the document is deleted, and then onUpdate runs.
+     *
+     * @param event The event to keep in sync
+     * @param onUpdate Runs after the event has been updated
+     * @return Registration to stop observing the event
+     */
+    ListenerRegistration observe(@NonNull Event event, @NonNull Runnable onUpdate) {
+        String eventId = event.getEventId();
+        Observer observer = new Observer(event, onUpdate);
+
+        Subscription subscription = subscriptions.get(eventId);
+        if (subscription == null) {
+            subscription = new Subscription();
+            subscriptions.put(eventId, subscription);
+
+            Subscription newSubscription = subscription;
+            subscription.registration = eventsRef.document(eventId).addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    Log.e("EVENT", "Listen failed for event " + eventId, error);
+                    return;
+                }
+
+                if (snapshot != null) {
+                    dispatch(eventId, newSubscription, snapshot);
+                }
+            });
+        }
+        subscription.observers.add(observer);
+
+        Subscription observed = subscription;
+        return () -> {
+            observed.observers.remove(observer);
+            if (observed.observers.isEmpty() && subscriptions.get(eventId) == observed) {
+                observed.registration.remove();
+                subscriptions.remove(eventId);
+            }
+        };
+    }
+
+    /**
+     * Applies a document snapshot to every observer of the event.
+     *
+     * @param eventId The ID of the event
+     * @param subscription The event's subscription
+     * @param snapshot The latest snapshot of the event document
+     */
+    private void dispatch(String eventId, Subscription subscription, DocumentSnapshot snapshot) {
+        onEventChanged.accept(eventId);
+
+        Event updated = snapshot.exists() ? snapshot.toObject(Event.class) : null;
+        List<Observer> observers = new ArrayList<>(subscription.observers);
+
+        for (Observer observer : observers) {
+            if (updated != null) {
+                observer.event.update(updated);
+            } else {
+                observer.event.setEventId(null);
+            }
+        }
+
+        // The first snapshot only mirrors what the observers just loaded, unless the event is already gone
+        boolean initial = subscription.initial;
+        subscription.initial = false;
+        if (initial && updated != null)
+            return;
+
+        // A screen observing several events only needs to refresh once
+        Set<Runnable> callbacks = new LinkedHashSet<>();
+        for (Observer observer : observers) {
+            callbacks.add(observer.onUpdate);
+        }
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    /**
+     * An event object and the callback to run when it changes.
+     */
+    private static class Observer {
+        final Event event;
+        final Runnable onUpdate;
+
+        Observer(Event event, Runnable onUpdate) {
+            this.event = event;
+            this.onUpdate = onUpdate;
+        }
+    }
+
+    /**
+     * The shared document listener of one event and everyone observing it.
+     */
+    private static class Subscription {
+        ListenerRegistration registration;
+        final List<Observer> observers = new ArrayList<>();
+        boolean initial = true;
+    }
+}
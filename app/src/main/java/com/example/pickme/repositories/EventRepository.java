@@ -6,44 +6,72 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Event;
 import com.example.pickme.models.Image;
 import com.example.pickme.models.QR;
-import com.example.pickme.models.User;
 import com.example.pickme.models.WaitingListEntrant;
 import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Facilitates CRUD operations and interactions with the Firestore events collection.
  * Manages event data transactions, including adding, updating, deleting, and retrieving events.
  * Ensures data integrity through Firestore transactions and handles completion notifications for each operation.
  *
- * @version 2.0
+ * @version 2.3
  */
 public class EventRepository {
+    private static final String ENTRANTS_COLLECTION = "entrants";
+    private static final String LEGACY_WAITING_LIST_FIELD = "waitingList";
+    private static final String LEGACY_EVENT_DATE_FIELD = "eventDate";
+    private static final String EVENT_TIME_FIELD = "eventTime";
+    private static final String EVENT_END_TIME_FIELD = "eventEndTime";
+    private static final String ENTRANT_COUNTS_FIELD = "entrantCounts";
+    private static final String CHECKED_IN_AT_FIELD = "checkedInAt";
+    private static final int MAX_IN_QUERY = 30;
+    public static final int ENTRANTS_PAGE_SIZE = 100;
+    private static final int ENTRANT_IDS_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int EVENT_CACHE_SIZE = 200;
+    private static final long EVENT_CACHE_TTL_MS = 30_000;
+
     private final FirebaseFirestore db;
     private final FirebaseAuth auth;
     private final QrRepository qrRepository;
     private CollectionReference eventsRef;
-
-    private ArrayList<Event> listToUpdate;
-    private Event eventToUpdate;
-    private Runnable onUpdate;
-    private boolean listening = false;
+    private final DocumentBatchLoader eventLoader;
+    private final EventListenerManager listenerManager;
+    // Events whose entrants are being counted
+    private final Set<String> pendingRecounts = new HashSet<>();
+    // Events whose embedded waiting list is being moved to the entrants subcollection
+    private final Set<String> pendingMigrations = new HashSet<>();
 
     private static EventRepository instance;
 
@@ -62,8 +90,8 @@ public class EventRepository {
         this.auth = FirebaseAuth.getInstance();
         this.qrRepository = QrRepository.getInstance();
         this.eventsRef = db.collection("events");
-
-        addSnapshotListener();
+        this.eventLoader = new DocumentBatchLoader(eventsRef, EVENT_CACHE_SIZE, EVENT_CACHE_TTL_MS);
+        this.listenerManager = new EventListenerManager(eventsRef, eventLoader::invalidate);
     }
 
     /**
@@ -78,10 +106,14 @@ public class EventRepository {
         this.auth = auth;
         this.qrRepository = qrRepository;
         this.eventsRef = eventsRef;
+        this.eventLoader = new DocumentBatchLoader(eventsRef, EVENT_CACHE_SIZE, EVENT_CACHE_TTL_MS);
+        this.listenerManager = new EventListenerManager(eventsRef, eventLoader::invalidate);
     }
 
     /**
      * Creates a new event in the Firestore database.
+     * Completes as soon as the event is stored; the poster is uploaded in the background
+     * and attached to the event once its upload finishes.
      *
      * @param event The event to be added.
      * @param posterUri Uri for the event poster. Null for none/no change.
@@ -95,28 +127,9 @@ public class EventRepository {
         doUpsertEventTransaction(newEventRef, event, addEventTask -> {
             if (addEventTask.isSuccessful()) {
                 if (posterUri != null) {
-                    // If event has poster, upload image first
-                    Image i = new Image(event.getOrganizerId(), newEventRef.getId());
-                    i.upload(posterUri, uploadImageTask -> {
-                        if (uploadImageTask.isSuccessful()) {
-                            event.setPosterImageId(i.getImageUrl());
-
-                            // ensure event ID is set so transaction can update event after it's created
-                            if (event.getEventId() == null || event.getEventId().isEmpty()) {
-                                event.setEventId(newEventRef.getId());
-                            }
-
-                            // Update event with image URL
-                            doUpsertEventTransaction(newEventRef, event, onCompleteListener);
-                        } else {
-                            Log.d("EventRepository", "addEvent: Failure to upload image");
-                            onCompleteListener.onComplete(Tasks.forException(uploadImageTask.getException()));
-                        }
-                    });
-                } else {
-                    // No posterUri, complete the listener
-                    onCompleteListener.onComplete(Tasks.forResult(null));
+                    uploadPoster(event, posterUri);
                 }
+                onCompleteListener.onComplete(Tasks.forResult(null));
 
                 // Create QR code for event, no need to update anything for event since we don't store eventQR in event
                 QR qr = new QR("/events/" + newEventRef.getId());
@@ -131,40 +144,29 @@ public class EventRepository {
 
     /**
      * Updates an existing event in the Firestore database.
+     * Completes as soon as the event is stored; a new poster is uploaded in the background
+     * and attached to the event once its upload finishes.
      *
      * @param event The event to be updated.
      * @param posterUri Uri for the event poster. Null for none/no change.
      * @param onCompleteListener The listener to notify upon completion.
      */
     public void updateEvent(Event event, @Nullable Uri posterUri, OnCompleteListener<Object> onCompleteListener) {
-        DocumentReference eventRef = eventsRef.document(event.getEventId());
-
         if (event.getEventId() == null) {
             Log.d("EventRepository", "updateEvent: Event ID is null");
             onCompleteListener.onComplete(Tasks.forException(new Exception("Event ID is null")));
             return;
         }
 
+        DocumentReference eventRef = eventsRef.document(event.getEventId());
+
         // Update the event first
         doUpsertEventTransaction(eventRef, event, task -> {
             if (task.isSuccessful()) {
                 if (posterUri != null) {
-                    // Check if event poster changed, if it has then upload new image
-                    Image i = new Image(event.getOrganizerId(), event.getEventId());
-                    i.upload(posterUri, uploadTask -> {
-                        if (uploadTask.isSuccessful()) {
-                            event.setPosterImageId(i.getImageUrl());
-                            // Update the event with the new image URL
-                            doUpsertEventTransaction(eventRef, event, onCompleteListener);
-                        } else {
-                            Log.d("EventRepository", "updateEvent: Failure to upload image");
-                            onCompleteListener.onComplete(Tasks.forException(uploadTask.getException()));
-                        }
-                    });
-                } else {
-                    // No image change - notify completion
-                    onCompleteListener.onComplete(Tasks.forResult(null));
+                    uploadPoster(event, posterUri);
                 }
+                onCompleteListener.onComplete(Tasks.forResult(null));
             } else {
                 Log.d("EventRepository", "updateEvent: Failure to update event");
                 onCompleteListener.onComplete(Tasks.forException(task.getException()));
@@ -172,6 +174,51 @@ public class EventRepository {
         });
     }
 
+    /**
+     * Queues the upload of an event's poster. The upload queue attaches the poster
+     * with {@link #attachPoster} once it is stored, even if the app was closed in between.
+     *
+     * @param event The stored event.
+     * @param posterUri Uri for the event poster.
+     */
+    private void uploadPoster(Event event, @NonNull Uri posterUri) {
+        Image i = new Image(event.getOrganizerId(), event.getEventId());
+        i.upload(posterUri, uploadImageTask -> {
+            if (uploadImageTask.isSuccessful()) {
+                event.setPosterImageId(i.getImageUrl());
+                event.setPosterPreviewUrl(i.getPreviewUrl());
+            } else {
+                Log.d("EventRepository", "uploadPoster: Failure to upload image", uploadImageTask.getException());
+            }
+        });
+    }
+
+    /**
+     * Points an event at its uploaded poster.
+     *
+     * @param eventId The ID of the event.
+     * @param poster The stored poster image.
+     * @return Task that completes once the event is updated, or right away if the event was deleted.
+     */
+    Task<Void> attachPoster(@NonNull String eventId, @NonNull Image poster) {
+        eventLoader.invalidate(eventId);
+        return eventsRef.document(eventId)
+                .update("posterImageId", poster.getImageUrl(),
+                        "posterPreviewUrl", poster.getPreviewUrl())
+                .continueWithTask(task -> {
+                    Exception e = task.getException();
+                    if (e instanceof FirebaseFirestoreException
+                            && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.NOT_FOUND) {
+                        Log.d("EventRepository", "attachPoster: Event " + eventId + " no longer exists");
+                        return Tasks.forResult(null);
+                    }
+                    if (e != null) {
+                        Log.w("EventRepository", "attachPoster: Failed to attach poster to " + eventId, e);
+                    }
+                    return task;
+                });
+    }
+
     /**
      * Executes a Firestore transaction to create or update an event.
      *
@@ -181,6 +228,7 @@ public class EventRepository {
      */
     private void doUpsertEventTransaction(@NonNull DocumentReference eventRef, Event event, OnCompleteListener<Object> onCompleteListener) {
         boolean isUpdate = event.getEventId() != null;
+        eventLoader.invalidate(eventRef.getId());
 
         db.runTransaction(transaction -> {
                     if (isUpdate) {
@@ -195,7 +243,6 @@ public class EventRepository {
                         // Create new event
                         event.setEventId(eventRef.getId());
                         event.setHasLotteryExecuted(false);
-                        event.setWaitingList(new ArrayList<WaitingListEntrant>());
                         transaction.set(eventRef, event);
                     }
                     return null;
@@ -207,35 +254,79 @@ public class EventRepository {
     }
 
     /**
-     * Deletes an event from the Firestore database.
+     * Deletes an event from the Firestore database, along with its entrants subcollection.
      *
      * @param eventId The ID of the event to be deleted.
      * @param onCompleteListener The listener to notify upon completion.
      */
     public void deleteEvent(@NonNull String eventId, OnCompleteListener<Void> onCompleteListener) {
-        eventsRef.document(eventId).delete().addOnCompleteListener(onCompleteListener)
-                .addOnFailureListener(e -> {
-                    System.err.println("Deletion failed: " + e.getMessage());
-                });
+        eventLoader.invalidate(eventId);
+        deleteEntrants(eventId, entrantsTask -> {
+            if (!entrantsTask.isSuccessful()) {
+                Log.w("EventRepository", "deleteEvent: Failed to delete entrants", entrantsTask.getException());
+            }
+
+            eventsRef.document(eventId).delete().addOnCompleteListener(onCompleteListener)
+                    .addOnFailureListener(e -> {
+                        System.err.println("Deletion failed: " + e.getMessage());
+                    });
+        });
+    }
+
+    /**
+     * Deletes every entrant document of an event, one page at a time.
+     *
+     * @param eventId The ID of the event.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    private void deleteEntrants(@NonNull String eventId, OnCompleteListener<Void> onCompleteListener) {
+        entrantsRef(eventId).limit(MAX_BATCH_WRITES).get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
+                return;
+            }
+
+            if (task.getResult().isEmpty()) {
+                onCompleteListener.onComplete(Tasks.forResult(null));
+                return;
+            }
+
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                batch.delete(document.getReference());
+            }
+            batch.commit().addOnCompleteListener(commitTask -> {
+                if (commitTask.isSuccessful()) {
+                    deleteEntrants(eventId, onCompleteListener);
+                } else {
+                    onCompleteListener.onComplete(Tasks.forException(commitTask.getException()));
+                }
+            });
+        });
     }
 
     /**
      * Retrieves a list of events organized by a specific user.
+     * Without past events, only upcoming events are queried, ordered by start time, so past events are
+     * never downloaded.
      *
      * @param userDeviceId       The ID of the organizer.
      * @param includePastEvents  Whether to include past events in the result.
      * @param onCompleteListener The listener to notify upon completion.
      */
     public void getEventsByOrganizerId(String userDeviceId, boolean includePastEvents, OnCompleteListener<List<Event>> onCompleteListener) {
-        eventsRef.whereEqualTo("organizerId", userDeviceId).get().addOnCompleteListener(task -> {
+        Query query = eventsRef.whereEqualTo("organizerId", userDeviceId);
+        if (!includePastEvents) {
+            query = query.whereGreaterThan(EVENT_TIME_FIELD, Timestamp.now()).orderBy(EVENT_TIME_FIELD);
+        }
+
+        query.get().addOnCompleteListener(task -> {
             if (task.isSuccessful() && task.getResult() != null) {
                 List<Event> events = new ArrayList<>();
                 for (DocumentSnapshot document : task.getResult().getDocuments()) {
-                    Event event = document.toObject(Event.class);
+                    Event event = toEvent(document);
                     if (event != null) {
-                        if (includePastEvents || !hasEventPassed(event)) {
-                            events.add(event);
-                        }
+                        events.add(event);
                     }
                 }
                 onCompleteListener.onComplete(Tasks.forResult(events));
@@ -247,16 +338,17 @@ public class EventRepository {
 
     /**
      * Retrieves an event by its ID.
+     * Requests made close together are batched into a single query, and recently loaded events are served from cache.
      *
      * @param eventId The ID of the event to be retrieved.
      * @param onCompleteListener The listener to notify upon completion.
      */
     public void getEventById(String eventId, OnCompleteListener<Event> onCompleteListener) {
-        eventsRef.document(eventId).get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
+        eventLoader.load(eventId, task -> {
+            if (task.isSuccessful()) {
                 DocumentSnapshot document = task.getResult();
-                if (document.exists()) {
-                    Event event = document.toObject(Event.class);
+                if (document != null && document.exists()) {
+                    Event event = toEvent(document);
                     onCompleteListener.onComplete(Tasks.forResult(event));
                 } else {
                     onCompleteListener.onComplete(Tasks.forException(new Exception("Event not found")));
@@ -267,6 +359,86 @@ public class EventRepository {
         });
     }
 
+    /**
+     * Retrieves the upcoming events among the given IDs, ordered by start time.
+     * Past events are filtered out by the query, so they are never downloaded.
+     *
+     * @param eventIds The IDs of the events.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void getUpcomingEventsByIds(Collection<String> eventIds, OnCompleteListener<List<Event>> onCompleteListener) {
+        List<String> ids = new ArrayList<>(eventIds);
+        Timestamp now = Timestamp.now();
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IN_QUERY) {
+            queries.add(eventsRef.whereIn(FieldPath.documentId(), ids.subList(i, Math.min(i + MAX_IN_QUERY, ids.size())))
+                    .whereGreaterThan(EVENT_TIME_FIELD, now)
+                    .orderBy(EVENT_TIME_FIELD)
+                    .get());
+        }
+
+        Tasks.<QuerySnapshot>whenAllSuccess(queries).addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
+                return;
+            }
+
+            List<Event> events = new ArrayList<>();
+            for (QuerySnapshot chunk : task.getResult()) {
+                for (DocumentSnapshot document : chunk.getDocuments()) {
+                    eventLoader.prime(document.getId(), document);
+                    Event event = toEvent(document);
+                    if (event != null) {
+                        events.add(event);
+                    }
+                }
+            }
+            // Each chunk is ordered on its own
+            events.sort((a, b) -> a.getEventTime().compareTo(b.getEventTime()));
+            onCompleteListener.onComplete(Tasks.forResult(events));
+        });
+    }
+
+    /**
+     * Checks which of the given events exist, in as few queries as possible.
+     * Requests are batched and served from the event cache like {@link #getEventById}.
+     *
+     * @param eventIds The IDs of the events to check.
+     * @param onCompleteListener The listener to notify upon completion; the result holds the IDs of the events that exist.
+     */
+    public void getExistingEventIds(Collection<String> eventIds, OnCompleteListener<Set<String>> onCompleteListener) {
+        if (eventIds.isEmpty()) {
+            onCompleteListener.onComplete(Tasks.forResult(new HashSet<>()));
+            return;
+        }
+
+        Set<String> existing = new HashSet<>();
+        int[] remaining = {eventIds.size()};
+        Exception[] failure = {null};
+
+        for (String eventId : eventIds) {
+            eventLoader.load(eventId, task -> {
+                if (task.isSuccessful()) {
+                    DocumentSnapshot document = task.getResult();
+                    if (document != null && document.exists()) {
+                        existing.add(eventId);
+                    }
+                } else {
+                    failure[0] = task.getException();
+                }
+
+                if (--remaining[0] > 0)
+                    return;
+
+                if (failure[0] != null) {
+                    onCompleteListener.onComplete(Tasks.forException(failure[0]));
+                } else {
+                    onCompleteListener.onComplete(Tasks.forResult(existing));
+                }
+            });
+        }
+    }
+
     /**
      * Checks if the event date has passed.
      *
@@ -274,120 +446,592 @@ public class EventRepository {
      * @return true if the event date has passed, false otherwise.
      */
     public boolean hasEventPassed(Event event) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MMMM d yyyy, h:mm a", Locale.getDefault());
-        try {
-            Date eventDate = dateFormat.parse(event.getEventDate());
-            return eventDate.before(new Date());
-        } catch (ParseException e) {
-            throw new IllegalArgumentException("Invalid event date format.", e);
+        return event.hasEventPassed();
+    }
+
+    /**
+     * Retrieves one page of all events, ordered by event ID.
+     * Loaded events are added to the event cache.
+     *
+     * @param pageSize The maximum number of events to return.
+     * @param startAfter The cursor of the previous page, or null for the first page.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void getEventsPage(int pageSize, @Nullable DocumentSnapshot startAfter, OnCompleteListener<Page<Event>> onCompleteListener) {
+        Query query = eventsRef.orderBy(FieldPath.documentId()).limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
         }
+
+        query.get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
+                return;
+            }
+
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            List<Event> events = new ArrayList<>();
+            for (DocumentSnapshot document : documents) {
+                eventLoader.prime(document.getId(), document);
+                Event event = toEvent(document);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+
+            DocumentSnapshot cursor = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+            onCompleteListener.onComplete(Tasks.forResult(new Page<>(events, cursor, documents.size() == pageSize)));
+        });
     }
 
     /**
-     * Retrieves all events from the Firestore database.
+     * Gets the reference to an event's entrants subcollection.
+     * Each entrant is stored as its own document, keyed by the entrant's device ID.
      *
+     * @param eventId The ID of the event.
+     * @return Collection reference for the event's entrants
+     */
+    private CollectionReference entrantsRef(@NonNull String eventId) {
+        return eventsRef.document(eventId).collection(ENTRANTS_COLLECTION);
+    }
+
+    /**
+     * Retrieves one page of an event's waiting list entrants, ordered by join time.
+     *
+     * @param eventId The ID of the event.
+     * @param pageSize The maximum number of entrants to return.
+     * @param startAfter The last document of the previous page, or null for the first page.
      * @param onCompleteListener The listener to notify upon completion.
      */
-    public void getAllEvents(OnCompleteListener<List<Event>> onCompleteListener) {
-        eventsRef.get().addOnCompleteListener(task -> {
+    public void getEntrantsPage(@NonNull String eventId, int pageSize, @Nullable DocumentSnapshot startAfter, OnCompleteListener<QuerySnapshot> onCompleteListener) {
+        Query query = entrantsRef(eventId).orderBy("createdAt").limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+        query.get().addOnCompleteListener(onCompleteListener);
+    }
+
+    /**
+     * Retrieves a single entrant of an event's waiting list.
+     *
+     * @param eventId The ID of the event.
+     * @param entrantId The device ID of the entrant.
+     * @param onCompleteListener The listener to notify upon completion; the result is null if the entrant is not on the waiting list.
+     */
+    public void getEntrant(@NonNull String eventId, @NonNull String entrantId, OnCompleteListener<WaitingListEntrant> onCompleteListener) {
+        entrantsRef(eventId).document(entrantId).get().addOnCompleteListener(task -> {
             if (task.isSuccessful() && task.getResult() != null) {
-                List<Event> events = new ArrayList<>();
-                for (DocumentSnapshot document : task.getResult().getDocuments()) {
-                    Event event = document.toObject(Event.class);
-                    if (event != null) {
-                        events.add(event);
-                    }
-                }
-                onCompleteListener.onComplete(Tasks.forResult(events));
+                DocumentSnapshot document = task.getResult();
+                onCompleteListener.onComplete(Tasks.forResult(document.exists() ? toEntrant(document) : null));
             } else {
                 onCompleteListener.onComplete(Tasks.forException(task.getException()));
             }
         });
     }
 
-
-    public void addSnapshotListener(){
-        //dont want to add multiple listeners
-        if(listening)
+    /**
+     * Loads the full waiting list of an event page by page and sets it on the event.
+     *
+     * @param event The event whose waiting list should be loaded.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void loadWaitingList(@NonNull Event event, OnCompleteListener<Event> onCompleteListener) {
+        if (event.getEventId() == null) {
+            onCompleteListener.onComplete(Tasks.forException(new Exception("Event ID is null")));
             return;
+        }
 
-        User user = User.getInstance();
-
-        Log.i("EVENT", "Adding Listener");
+        loadWaitingListPage(event.getEventId(), null, new ArrayList<>(), task -> {
+            if (task.isSuccessful()) {
+                event.setWaitingList(task.getResult());
+                onCompleteListener.onComplete(Tasks.forResult(event));
+            } else {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
+            }
+        });
+    }
 
-        eventsRef.addSnapshotListener((query, error) -> {
-            if(!listening){
-                listening = true;
+    /**
+     * Appends one page of entrants to the given list and continues with the next page until none are left.
+     *
+     * @param eventId The ID of the event.
+     * @param startAfter The last document of the previous page, or null for the first page.
+     * @param entrants The entrants loaded so far.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    private void loadWaitingListPage(String eventId, @Nullable DocumentSnapshot startAfter, ArrayList<WaitingListEntrant> entrants, OnCompleteListener<ArrayList<WaitingListEntrant>> onCompleteListener) {
+        getEntrantsPage(eventId, ENTRANTS_PAGE_SIZE, startAfter, task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
                 return;
             }
 
-            if(error != null){
-                Log.e("EVENT", "Listen failed: ", error);
-                listening = false;
-                return;
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            for (DocumentSnapshot document : documents) {
+                entrants.add(toEntrant(document));
             }
 
-            if(query == null)
-                return;
+            if (documents.size() < ENTRANTS_PAGE_SIZE) {
+                onCompleteListener.onComplete(Tasks.forResult(entrants));
+            } else {
+                loadWaitingListPage(eventId, documents.get(documents.size() - 1), entrants, onCompleteListener);
+            }
+        });
+    }
 
-            //we're not looking to update anything
-            if(listToUpdate == null && eventToUpdate == null)
+    /**
+     * Retrieves the device IDs of every entrant of an event with a given status.
+     * Uses an indexed query on the entrants subcollection, so only the matching entrants are read.
+     *
+     * @param eventId The ID of the event.
+     * @param level The status to match; {@link EntrantStatus#ALL} matches every entrant.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void getEntrantIdsByStatus(@NonNull String eventId, @NonNull EntrantStatus level, OnCompleteListener<List<String>> onCompleteListener) {
+        Query query = entrantsRef(eventId);
+        if (level != EntrantStatus.ALL) {
+            query = query.whereEqualTo("status", level.name());
+        }
+        loadEntrantIdsPage(query.orderBy(FieldPath.documentId()), null, new ArrayList<>(), onCompleteListener);
+    }
+
+    /**
+     * Retrieves the device IDs of every entrant of an event that has been checked in at the entrance.
+     *
+     * @param eventId The ID of the event.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void getCheckedInEntrantIds(@NonNull String eventId, OnCompleteListener<List<String>> onCompleteListener) {
+        Query query = entrantsRef(eventId)
+                .whereGreaterThan(CHECKED_IN_AT_FIELD, new Timestamp(0, 0))
+                .orderBy(CHECKED_IN_AT_FIELD)
+                .orderBy(FieldPath.documentId());
+        loadEntrantIdsPage(query, null, new ArrayList<>(), onCompleteListener);
+    }
+
+    /**
+     * Appends one page of matching entrant IDs to the given list and continues with the next page until none are left.
+     *
+     * @param query The ordered query matching the entrants.
+     * @param startAfter The last document of the previous page, or null for the first page.
+     * @param entrantIds The entrant IDs loaded so far.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    private void loadEntrantIdsPage(Query query, @Nullable DocumentSnapshot startAfter, List<String> entrantIds, OnCompleteListener<List<String>> onCompleteListener) {
+        Query page = query.limit(ENTRANT_IDS_PAGE_SIZE);
+        if (startAfter != null) {
+            page = page.startAfter(startAfter);
+        }
+
+        page.get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
                 return;
+            }
 
-            for(DocumentChange change : query.getDocumentChanges()){
-                Event event = change.getDocument().toObject(Event.class);
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            for (DocumentSnapshot document : documents) {
+                entrantIds.add(document.getId());
+            }
 
-                if(change.getType() == DocumentChange.Type.MODIFIED){
+            if (documents.size() < ENTRANT_IDS_PAGE_SIZE) {
+                onCompleteListener.onComplete(Tasks.forResult(entrantIds));
+            } else {
+                loadEntrantIdsPage(query, documents.get(documents.size() - 1), entrantIds, onCompleteListener);
+            }
+        });
+    }
 
-                    if(eventToUpdate != null && event.getEventId().equals(eventToUpdate.getEventId())){
-                        eventToUpdate.update(event);
-                    }
+    /**
+     * Creates or updates a single entrant on an event's waiting list, along with the event's entrant counts.
+     *
+     * @param eventId The ID of the event.
+     * @param entrant The entrant to be written.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void upsertEntrant(@NonNull String eventId, @NonNull WaitingListEntrant entrant, OnCompleteListener<Void> onCompleteListener) {
+        writeEntrants(eventId, Collections.singletonList(entrant), Collections.emptyList())
+                .addOnCompleteListener(onCompleteListener)
+                .addOnFailureListener(e -> Log.e("EventRepository", "upsertEntrant: Failed to write entrant", e));
+    }
 
-                    if(listToUpdate != null){
-                        for(Event e : listToUpdate){
-                            if(!e.getEventId().equals(event.getEventId()))
-                                continue;
+    /**
+     * Adds an entrant to an event's waiting list only if they have no entrant document yet, along with the event's entrant counts.
+     * Joining can then never overwrite an entrant who was already selected or accepted.
+     *
+     * @param eventId The ID of the event.
+     * @param entrant The entrant to be added.
+     * @param onCompleteListener The listener to notify upon completion; the result is false if the entrant was already on the waiting list.
+     */
+    public void addEntrantIfAbsent(@NonNull String eventId, @NonNull WaitingListEntrant entrant, OnCompleteListener<Boolean> onCompleteListener) {
+        DocumentReference entrantRef = entrantsRef(eventId).document(entrant.getEntrantId());
+        entrant.setWaitListEntrantId(entrant.getEntrantId());
+        eventLoader.invalidate(eventId);
 
-                            e.update(event);
-                            break;
-                        }
-                    }
+        db.runTransaction(transaction -> {
+                    if (transaction.get(entrantRef).exists())
+                        return false;
 
-                }
+                    transaction.set(entrantRef, entrant);
+                    transaction.update(eventsRef.document(eventId),
+                            ENTRANT_COUNTS_FIELD + "." + entrant.getStatus().name(), FieldValue.increment(1));
+                    return true;
+                })
+                .addOnSuccessListener(added -> {
+                    if (added)
+                        entrant.setStoredStatus(entrant.getStatus());
+                })
+                .addOnCompleteListener(onCompleteListener)
+                .addOnFailureListener(e -> Log.e("EventRepository", "addEntrantIfAbsent: Failed to add entrant", e));
+    }
+
+    /**
+     * Removes a single entrant from an event's waiting list, along with the entrant from the event's entrant counts.
+     *
+     * @param eventId The ID of the event.
+     * @param entrant The entrant to be removed.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void removeEntrant(@NonNull String eventId, @NonNull WaitingListEntrant entrant, OnCompleteListener<Void> onCompleteListener) {
+        writeEntrants(eventId, Collections.emptyList(), Collections.singletonList(entrant))
+                .addOnCompleteListener(onCompleteListener)
+                .addOnFailureListener(e -> Log.e("EventRepository", "removeEntrant: Failed to delete entrant", e));
+    }
 
-                else if(change.getType() == DocumentChange.Type.REMOVED){
+    /**
+     * Writes a set of entrant changes to an event's waiting list in batches.
+     * Only the given entrants are touched, so the cost is proportional to the change rather than the list.
+     * Each batch also updates the event's entrant counts by the changes it holds.
+     *
+     * @param eventId The ID of the event.
+     * @param upserts Entrants to be created or updated.
+     * @param removals Entrants to be removed.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void commitEntrantChanges(@NonNull String eventId, @NonNull List<WaitingListEntrant> upserts, @NonNull List<WaitingListEntrant> removals, OnCompleteListener<Void> onCompleteListener) {
+        List<Task<Void>> commits = new ArrayList<>();
+        int total = upserts.size() + removals.size();
 
-                    if(eventToUpdate != null && event.getEventId().equals(eventToUpdate.getEventId())){
-                        eventToUpdate.setEventId(null);
-                    }
+        // One write of every batch is kept for the entrant counts
+        for (int start = 0; start < total; start += MAX_BATCH_WRITES - 1) {
+            int end = Math.min(start + MAX_BATCH_WRITES - 1, total);
+            commits.add(writeEntrants(eventId,
+                    upserts.subList(Math.min(start, upserts.size()), Math.min(end, upserts.size())),
+                    removals.subList(Math.max(start - upserts.size(), 0), Math.max(end - upserts.size(), 0))));
+        }
 
-                    if(listToUpdate != null){
-                        for(Event e : listToUpdate){
-                            if(!e.getEventId().equals(event.getEventId()))
-                                continue;
+        Tasks.whenAll(commits).addOnCompleteListener(onCompleteListener);
+    }
 
-                            e.setEventId(null);
-                            break;
-                        }
+    /**
+     * Writes entrant changes and the entrant count changes they make in a single batch.
+     * Counts are changed from each entrant's stored status to its new status, and the stored status
+     * is updated once the batch is committed.
+     *
+     * @param eventId The ID of the event.
+     * @param upserts Entrants to be created or updated.
+     * @param removals Entrants to be removed.
+     * @return The commit task.
+     */
+    private Task<Void> writeEntrants(String eventId, List<WaitingListEntrant> upserts, List<WaitingListEntrant> removals) {
+        WriteBatch batch = db.batch();
+        Map<EntrantStatus, Long> countChanges = new EnumMap<>(EntrantStatus.class);
+        List<WaitingListEntrant> written = new ArrayList<>(upserts);
+        List<EntrantStatus> writtenStatuses = new ArrayList<>();
+        List<WaitingListEntrant> removed = new ArrayList<>(removals);
+
+        for (WaitingListEntrant entrant : written) {
+            entrant.setWaitListEntrantId(entrant.getEntrantId());
+            batch.set(entrantsRef(eventId).document(entrant.getEntrantId()), entrant);
+            countStatusChange(countChanges, entrant.getStoredStatus(), entrant.getStatus());
+            writtenStatuses.add(entrant.getStatus());
+        }
+
+        for (WaitingListEntrant entrant : removed) {
+            batch.delete(entrantsRef(eventId).document(entrant.getEntrantId()));
+            countStatusChange(countChanges, entrant.getStoredStatus(), null);
+        }
+
+        Map<String, Object> countUpdates = new HashMap<>();
+        for (Map.Entry<EntrantStatus, Long> change : countChanges.entrySet()) {
+            if (change.getValue() != 0) {
+                countUpdates.put(ENTRANT_COUNTS_FIELD + "." + change.getKey().name(), FieldValue.increment(change.getValue()));
+            }
+        }
+        if (!countUpdates.isEmpty()) {
+            batch.update(eventsRef.document(eventId), countUpdates);
+            eventLoader.invalidate(eventId);
+        }
+
+        return batch.commit().addOnSuccessListener(aVoid -> {
+            for (int i = 0; i < written.size(); i++) {
+                written.get(i).setStoredStatus(writtenStatuses.get(i));
+            }
+            for (WaitingListEntrant entrant : removed) {
+                entrant.setStoredStatus(null);
+            }
+        });
+    }
+
+    /**
+     * Records an entrant moving from one status to another in a set of entrant count changes.
+     *
+     * @param countChanges Count changes by status.
+     * @param from The entrant's stored status, or null for a new entrant.
+     * @param to The entrant's new status, or null for a removed entrant.
+     */
+    private static void countStatusChange(Map<EntrantStatus, Long> countChanges, @Nullable EntrantStatus from, @Nullable EntrantStatus to) {
+        if (from == to)
+            return;
+
+        if (from != null)
+            countChanges.merge(from, -1L, Long::sum);
+        if (to != null)
+            countChanges.merge(to, 1L, Long::sum);
+    }
+
+    /**
+     * Records entrants' arrival at an event on their entrant documents, one transaction per batch.
+     * Entrants that have left the event since are skipped rather than failing the batch, and an
+     * entrant already checked in keeps their first check-in time.
+     *
+     * @param eventId The ID of the event.
+     * @param checkInTimes Check-in time in milliseconds, by device ID of the entrant.
+     * @param onCompleteListener The listener to notify upon completion.
+     */
+    public void recordCheckIns(@NonNull String eventId, @NonNull Map<String, Long> checkInTimes, OnCompleteListener<Void> onCompleteListener) {
+        List<Map.Entry<String, Long>> checkIns = new ArrayList<>(checkInTimes.entrySet());
+        List<Task<Void>> commits = new ArrayList<>();
+
+        for (int start = 0; start < checkIns.size(); start += MAX_BATCH_WRITES) {
+            List<Map.Entry<String, Long>> chunk = checkIns.subList(start, Math.min(start + MAX_BATCH_WRITES, checkIns.size()));
+            commits.add(db.runTransaction(transaction -> {
+                List<DocumentSnapshot> documents = new ArrayList<>();
+                for (Map.Entry<String, Long> checkIn : chunk) {
+                    documents.add(transaction.get(entrantsRef(eventId).document(checkIn.getKey())));
+                }
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    DocumentSnapshot document = documents.get(i);
+                    if (!document.exists() || document.get(CHECKED_IN_AT_FIELD) != null) {
+                        continue;
                     }
+                    transaction.update(document.getReference(), CHECKED_IN_AT_FIELD, new Timestamp(new Date(chunk.get(i).getValue())));
                 }
+                return null;
+            }));
+        }
+
+        Tasks.whenAll(commits).addOnCompleteListener(onCompleteListener);
+    }
+
+    /**
+     * Converts an entrant document to a WaitingListEntrant.
+     *
+     * @param document The entrant document.
+     * @return The entrant
+     */
+    private WaitingListEntrant toEntrant(DocumentSnapshot document) {
+        WaitingListEntrant entrant = document.toObject(WaitingListEntrant.class);
+        if (entrant != null) {
+            entrant.setWaitListEntrantId(document.getId());
+            entrant.setStoredStatus(entrant.getStatus());
+        }
+        return entrant;
+    }
+
+    /**
+     * Converts an event document to an Event.
+     * Documents that still embed their waiting list are migrated to the entrants subcollection on the way,
+     * and documents with only a date string get their start and end time.
+     * Documents written before entrant counts were stored get them counted from the entrants subcollection.
+     *
+     * @param document The event document.
+     * @return The event
+     */
+    private Event toEvent(DocumentSnapshot document) {
+        if (document.contains(LEGACY_WAITING_LIST_FIELD)) {
+            migrateLegacyWaitingList(document);
+        } else if (!document.contains(ENTRANT_COUNTS_FIELD)) {
+            recountEntrants(document.getId());
+        }
+        Event event = document.toObject(Event.class);
+        if (event != null && event.getEventTime() == null && document.getString(LEGACY_EVENT_DATE_FIELD) != null) {
+            migrateLegacyEventDate(document, event);
+        }
+        return event;
+    }
+
+    /**
+     * Parses a legacy event date string into the event's start and end time and stores them on the event document.
+     *
+     * @param document The event document holding the legacy date string.
+     * @param event The event read from the document; updated in place.
+     */
+    private void migrateLegacyEventDate(DocumentSnapshot document, Event event) {
+        try {
+            event.setEventDate(document.getString(LEGACY_EVENT_DATE_FIELD));
+        } catch (IllegalArgumentException e) {
+            Log.w("EventRepository", "Unparseable date on event " + document.getId() + ": " + document.getString(LEGACY_EVENT_DATE_FIELD));
+            return;
+        }
+
+        String eventId = document.getId();
+        eventsRef.document(eventId).update(EVENT_TIME_FIELD, event.getEventTime(), EVENT_END_TIME_FIELD, event.getEventEndTime())
+                .addOnSuccessListener(aVoid -> Log.i("EventRepository", "Migrated date of event " + eventId))
+                .addOnFailureListener(e -> Log.e("EventRepository", "Failed to migrate date of event " + eventId, e));
+    }
+
+    /**
+     * Counts an event's entrants by status from its entrants subcollection and stores the counts on the event document.
+     * The counts are replaced rather than incremented, so counting an event twice is harmless.
+     *
+     * @param eventId The ID of the event.
+     */
+    private void recountEntrants(String eventId) {
+        if (!pendingRecounts.add(eventId))
+            return;
+
+        loadWaitingListPage(eventId, null, new ArrayList<>(), task -> {
+            if (!task.isSuccessful()) {
+                pendingRecounts.remove(eventId);
+                Log.e("EventRepository", "Failed to count entrants of event " + eventId, task.getException());
+                return;
+            }
+
+            Map<String, Long> counts = new HashMap<>();
+            for (WaitingListEntrant entrant : task.getResult()) {
+                if (entrant != null && entrant.getStatus() != null)
+                    counts.merge(entrant.getStatus().name(), 1L, Long::sum);
+            }
+
+            eventLoader.invalidate(eventId);
+            eventsRef.document(eventId).update(ENTRANT_COUNTS_FIELD, counts)
+                    .addOnCompleteListener(updateTask -> pendingRecounts.remove(eventId))
+                    .addOnSuccessListener(aVoid -> Log.i("EventRepository", "Counted entrants of event " + eventId))
+                    .addOnFailureListener(e -> Log.e("EventRepository", "Failed to store entrant counts of event " + eventId, e));
+        });
+    }
+
+    /**
+     * Moves an embedded waitingList array into the entrants subcollection and removes it from the event document.
+     * The move is one transaction that re-reads the event, so it happens once even if the event is read
+     * again, or on another device, before it completes. Entrants keep their original fields, including
+     * createdAt, and entrant documents that already exist are left as they are. The entrant counts are
+     * set from the migrated entrants rather than incremented.
+     *
+     * @param document The event document holding the legacy waiting list.
+     */
+    @SuppressWarnings("unchecked")
+    private void migrateLegacyWaitingList(DocumentSnapshot document) {
+        String eventId = document.getId();
+        if (!pendingMigrations.add(eventId))
+            return;
+
+        DocumentReference eventRef = eventsRef.document(eventId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(eventRef);
+            Object legacy = current.get(LEGACY_WAITING_LIST_FIELD);
+            if (!current.exists() || legacy == null)
+                return 0;
+
+            Map<String, Map<String, Object>> entrants = new LinkedHashMap<>();
+            if (legacy instanceof List) {
+                for (Object item : (List<Object>) legacy) {
+                    if (!(item instanceof Map))
+                        continue;
+
+                    Map<String, Object> map = (Map<String, Object>) item;
+                    Object entrantId = map.get("entrantId");
+                    if (entrantId instanceof String && toStatus(map.get("status")) != null)
+                        entrants.put((String) entrantId, map);
+                }
+            }
+
+            Map<String, DocumentSnapshot> existing = new HashMap<>();
+            for (String entrantId : entrants.keySet()) {
+                existing.put(entrantId, transaction.get(entrantsRef(eventId).document(entrantId)));
+            }
+
+            Map<String, Long> counts = new HashMap<>();
+            int migrated = 0;
+            for (Map.Entry<String, Map<String, Object>> entry : entrants.entrySet()) {
+                DocumentSnapshot stored = existing.get(entry.getKey());
+                if (stored.exists()) {
+                    EntrantStatus status = toStatus(stored.get("status"));
+                    if (status != null)
+                        counts.merge(status.name(), 1L, Long::sum);
+                    continue;
+                }
+
+                Map<String, Object> data = new HashMap<>(entry.getValue());
+                data.put("waitListEntrantId", entry.getKey());
+                data.putIfAbsent("createdAt", Timestamp.now());
+                transaction.set(stored.getReference(), data);
+                counts.merge(toStatus(data.get("status")).name(), 1L, Long::sum);
+                migrated++;
+            }
+
+            transaction.update(eventRef, LEGACY_WAITING_LIST_FIELD, FieldValue.delete(), ENTRANT_COUNTS_FIELD, counts);
+            return migrated;
+        }).addOnCompleteListener(task -> {
+            pendingMigrations.remove(eventId);
+            eventLoader.invalidate(eventId);
+            if (task.isSuccessful()) {
+                Log.i("EventRepository", "Migrated " + task.getResult() + " entrants of event " + eventId);
+            } else {
+                Log.e("EventRepository", "Failed to migrate waiting list of event " + eventId, task.getException());
             }
-            if(onUpdate != null)
-                onUpdate.run();
         });
+    }
 
+    /**
+     * Reads an entrant status stored as its name.
+     *
+     * @param value The stored value.
+     * @return The status, or null if the value is not a known status.
+     */
+    @Nullable
+    private static EntrantStatus toStatus(Object value) {
+        if (value == null)
+            return null;
+        try {
+            return EntrantStatus.valueOf(value.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
-    public void attachList(ArrayList<Event> events, Runnable onUpdate){
-        this.listToUpdate = events;
-        this.eventToUpdate = null;
-        this.onUpdate = onUpdate;
+    /**
+     * Keeps an event up to date with its Firestore document until the returned registration is removed.
+     * Only this event's document is listened to, and the listener is shared with any other observers of the event.
+     *
+     * @param event The event to keep in sync; its ID is set to null if the event is deleted.
+     * @param onUpdate Runs after the event has changed.
+     * @return Registration to stop observing the event.
+     */
+    public ListenerRegistration attachEvent(Event event, Runnable onUpdate){
+        return listenerManager.observe(event, onUpdate);
     }
 
-    public void attachEvent(Event event, Runnable onUpdate){
-        this.eventToUpdate = event;
-        this.listToUpdate = null;
-        this.onUpdate = onUpdate;
+    /**
+     * Keeps every event in a list up to date with its Firestore document until the returned registration is removed.
+     *
+     * @param events The events to keep in sync; deleted events have their ID set to null.
+     * @param onUpdate Runs after any of the events has changed.
+     * @return Registration to stop observing the events.
+     */
+    public ListenerRegistration attachList(List<Event> events, Runnable onUpdate){
+        List<ListenerRegistration> registrations = new ArrayList<>();
+        for(Event event : events){
+            if(event.getEventId() != null)
+                registrations.add(listenerManager.observe(event, onUpdate));
+        }
+
+        return () -> {
+            for(ListenerRegistration registration : registrations)
+                registration.remove();
+        };
     }
 }
 /*
@@ -1,20 +1,30 @@
 package com.example.pickme.repositories;
 
+import android.content.ContentResolver;
 import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
-import android.widget.GridView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.example.pickme.models.Image;
-import com.example.pickme.utils.GalleryAdapter;
 import com.example.pickme.utils.ImageQuery;
+import com.example.pickme.utils.ImageVariants;
+import com.example.pickme.utils.PreparedImage;
 import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.Filter;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
@@ -22,18 +32,28 @@ import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Handles interactions with the images collection <br>
  * Responsibilities:
  * CRUD operations for image data
  *
- * @version 1.4
+ * @version 2.0
  */
 public class ImageRepository {
     private final String TAG = "ImageRepository";
+    // images with the same content share one file here, named by its content hash
+    private static final String BLOBS_DIR = "blobs";
 
     // authentication
     private final String auth_uid;
@@ -44,6 +64,21 @@ public class ImageRepository {
     // database access
     private final FirebaseFirestore db;
     private final CollectionReference imgCollection;
+    // reference counts of the stored files, by content hash
+    private final CollectionReference blobCollection;
+
+    // most recently used images by document ID, so repeated downloads skip the query
+    private static final int IMAGE_CACHE_SIZE = 100;
+    private final Map<String, Image> imageCache = new LinkedHashMap<String, Image>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > IMAGE_CACHE_SIZE;
+        }
+    };
+
+    // decodes, downscales and re-encodes images before upload, and writes the upload journal, off the main thread
+    private final ExecutorService preprocessExecutor = Executors.newSingleThreadExecutor();
+    private final UploadQueue uploadQueue;
 
     private static ImageRepository instance;
 
@@ -54,14 +89,6 @@ public class ImageRepository {
         return instance;
     }
 
-    /**
-     * Callback for handling duplicate checking
-     */
-    private interface duplicateCallback {
-        void hasDuplicate(DocumentReference doc);
-        void noDuplicate();
-    }
-
     //endregion
 
     //region Constructors
@@ -78,6 +105,26 @@ public class ImageRepository {
 
         db = FirebaseFirestore.getInstance();
         imgCollection = db.collection("images");
+        blobCollection = db.collection("imageBlobs");
+
+        // resumes uploads that were interrupted by the app closing
+        uploadQueue = new UploadQueue(FirebaseApp.getInstance().getApplicationContext().getFilesDir(),
+                imgStorage, imgCollection, blobCollection, preprocessExecutor,
+                image -> {
+                    imageCache.put(imageId(image), image);
+                    deleteLegacyImages(image);
+                }, this::deleteBlobFiles);
+
+        // failed uploads wait for their next attempt, unless a network comes back first
+        Context context = FirebaseApp.getInstance().getApplicationContext();
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                mainHandler.post(uploadQueue::retryNow);
+            }
+        });
 
         // anonymous auth
         auth.signInAnonymously().addOnSuccessListener(authResult ->
@@ -90,282 +137,355 @@ public class ImageRepository {
     //region Class methods
 
     /**
-     * Checks Firestore DB for image duplicates and
-     * calls back to duplicateCallback based on result.
-     * @param i Image object to check duplicates for
-     * @param callback The duplicateCallback for conditional handling
+     * Gets the document ID of an image. Each entity has at most one image of each type,
+     * so the ID is derived from both and a new upload replaces the previous image in place.
+     * @param i The image
+     * @return The ID of the image document
      */
-    private void checkDuplicates(Image i, duplicateCallback callback) {
-        String uploaderId = i.getUploaderId();
-        String imageAssociation = i.getImageAssociation();
-        String imageType = i.getImageType().toString();
-
-        // check for an already existing image of the same type
-        Query query = imgCollection
-                .where(Filter.and(
-                        Filter.equalTo("imageType", imageType),
-                        Filter.equalTo("uploaderId", uploaderId),
-                        Filter.equalTo("imageAssociation", imageAssociation)
-                ));
-
-        query.get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // if existing image of the same type is found, update it
-                        QuerySnapshot queryRes = task.getResult();
-                        if (!queryRes.isEmpty()) {
-                            Log.d(TAG, "checkDuplicates: DB query successful, duplicate found");
-                            DocumentReference doc = queryRes
-                                    .getDocuments()
-                                    .get(0)
-                                    .getReference();
-                            callback.hasDuplicate(doc);
-                        } else {
-                            Log.d(TAG, "checkDuplicates: DB query returned empty, no duplicates found");
-                            callback.noDuplicate();
-                        }
-                    }
-                });
+    private String imageId(Image i) {
+        return i.getImageType().toString() + "_" + i.getImageAssociation();
     }
 
      /**
      * Uploads a new image or updates an existing one with attached URI to FirebaseStorage,
      * then stores the image information to Firestore DB.
+     * The upload is queued and survives the app being closed; see {@link UploadQueue}.
      *
      * @param i The image object to upload
      * @param uri The image URI to be attached
      */
     public void upload(@NonNull Image i, @NonNull Uri uri, OnCompleteListener<Image> listener) {
-        
-        checkDuplicates(i, new duplicateCallback() {
-            @Override
-            public void hasDuplicate(DocumentReference doc) {
-                uploadUriToFirebase(i, doc, uri, listener);
-            }
+        ContentResolver resolver = FirebaseApp.getInstance().getApplicationContext().getContentResolver();
 
-            @Override
-            public void noDuplicate() {
-                DocumentReference doc = imgCollection.document();
-                uploadUriToFirebase(i, doc, uri, listener);
+        enqueue(i, () -> ImageVariants.prepare(resolver, uri), () -> {
+            try (InputStream in = resolver.openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Unable to open " + uri);
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                return bytes.toByteArray();
             }
-        });
+        }, listener);
     }
 
     /**
-     * Uploads an image URL to Firestore DB. Used for generated images.
-     * @param i Image object of which the URL being uploaded is associated with
-     * @param data The bytes of a bitmap to upload
+     * Queues an image for upload once it has been downscaled and recompressed off the main thread.
+     * If the image could not be prepared, the source is uploaded as-is without variants.
+     * @param i Image object of which the URLs are being uploaded
+     * @param prepare Downscales and recompresses the source
+     * @param readSource Reads the unprocessed source
+     * @param listener Called once the image document is stored, or with the failure of the upload
      */
-    public void upload(@NonNull Image i, byte[] data, OnCompleteListener<Image> listener) {
-        
-        checkDuplicates(i, new duplicateCallback() {
-            @Override
-            public void hasDuplicate(DocumentReference doc) {
-                uploadBytes(i, doc, data, listener);
-            }
-
-            @Override
-            public void noDuplicate() {
-                DocumentReference doc = imgCollection.document();
-                uploadBytes(i, doc, data, listener);
+    private void enqueue(Image i, Callable<PreparedImage> prepare, Callable<byte[]> readSource, OnCompleteListener<Image> listener) {
+        String imageId = imageId(i);
+
+        uploadQueue.enqueue(i, imageId, () -> {
+            PreparedImage prepared;
+            try {
+                prepared = prepare.call();
+            } catch (IOException e) {
+                Log.w(TAG, String.format("upload: Could not prepare %s, uploading source", imageId), e);
+                prepared = PreparedImage.unprocessed(readSource.call());
             }
-        });
+            Log.d(TAG, String.format("upload: %s %d -> %d bytes", imageId, prepared.getSourceBytes(), prepared.getData().length));
+            return prepared;
+        }, listener);
     }
 
     /**
-     * upload() helper function to update existing images
-     * @param i Image object of which the URL being uploaded is associated with
-     * @param doc The document reference from the query result to update
-     * @param uri The uri to update with
+     * Gets the storage location of an image's original file.
+     * Its variants are stored next to it, with the variant size appended to the name.
+     * @param i The image
+     * @return Reference to the original file
      */
-    private void uploadUriToFirebase(Image i, DocumentReference doc, Uri uri, OnCompleteListener<Image> listener) {
-
-        String imageId = doc.getId();
-        String uploaderId = i.getUploaderId();
-        String imageType = i.getImageType().toString();
-        StorageReference imgRef = imgStorage.child(imageType).child(uploaderId).child(imageId);
-
-        // upload storage file
-        imgRef
-            .putFile(uri)
-            .addOnCompleteListener(task -> {
-                if (task.isSuccessful()) {
-                    Log.d(TAG, String.format("upload: File %s uploaded", imageId));
-
-                    // update document
-                    imgRef.getDownloadUrl().addOnSuccessListener(url -> {
-                        // db store
-                        i.setImageUrl(url.toString());
-                        db
-                                .runTransaction(transaction -> {
-                                    transaction.set(doc, i);
-                                    return i;
-                                })
-                                .addOnCompleteListener(listener);
-                    });
-                }
-            });
+    private StorageReference storageRef(Image i) {
+        return imgStorage.child(i.getImageType().toString()).child(i.getImageAssociation());
     }
 
-    private void uploadBytes(Image i, DocumentReference doc, byte[] data, OnCompleteListener<Image> listener) {
-        
+    /**
+     * Gets the storage path of a file shared by every image with the same content, as stored before
+     * each upload got a path of its own. Newer files are stored in a folder of this name.
+     * Its variants are stored next to it, with the variant size appended to the name.
+     * @param contentHash The SHA-256 of the file
+     * @return Path of the original file
+     */
+    static String blobPath(String contentHash) {
+        return BLOBS_DIR + "/" + contentHash;
+    }
 
-        String imageId = doc.getId();
-        String uploaderId = i.getUploaderId();
-        String imageType = i.getImageType().toString();
-        StorageReference imgRef = imgStorage.child(imageType).child(uploaderId).child(imageId);
+    /**
+     * Deletes a shared file and its variants once no image references them.
+     * @param path The storage path of the file, see {@link UploadQueue#storagePath}
+     */
+    private void deleteBlobFiles(String path) {
+        Log.d(TAG, String.format("delete: Releasing file %s", path));
+        StorageReference blobRef = imgStorage.child(path);
+        blobRef.delete().addOnFailureListener(e -> Log.w(TAG, String.format("delete: File %s deletion failed", path), e));
+        // variants are missing for small images, so their failures are ignored
+        for (int size : ImageVariants.SIZES) {
+            imgStorage.child(path + "_" + size).delete();
+        }
+    }
 
-        // update storage file
-        imgRef
-                .putBytes(data)
+    /**
+     * Deletes an image document and releases its reference to its shared file,
+     * deleting the file if no other image references it.
+     * @param i Image object to be deleted
+     * @param doc The image document
+     * @param contentHash The SHA-256 of the image's file
+     * @param listener Called once the image document is deleted
+     */
+    private void deleteSharedImage(Image i, DocumentReference doc, String contentHash, OnCompleteListener<Image> listener) {
+        DocumentReference blobRef = blobCollection.document(contentHash);
+
+        db
+                .runTransaction(transaction -> {
+                    DocumentSnapshot blob = transaction.get(blobRef);
+                    String released = null;
+                    if (blob.exists()) {
+                        Long refCount = blob.getLong(UploadQueue.REF_COUNT_FIELD);
+                        if (refCount == null || refCount <= 1) {
+                            transaction.delete(blobRef);
+                            released = UploadQueue.storagePath(blob);
+                        } else {
+                            transaction.update(blobRef, UploadQueue.REF_COUNT_FIELD, FieldValue.increment(-1));
+                        }
+                    }
+                    transaction.delete(doc);
+                    return released;
+                })
                 .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        Log.d(TAG, String.format("upload: File %s uploaded", imageId));
-
-                        // update document
-                        imgRef.getDownloadUrl().addOnSuccessListener(url -> {
-                            // db store
-                            i.setImageUrl(url.toString());
-                            db
-                                    .runTransaction(transaction -> {
-                                        transaction.set(doc, i);
-                                        return i;
-                                    })
-                                    .addOnCompleteListener(listener);
-                        });
+                    if (!task.isSuccessful()) {
+                        Log.d(TAG, String.format("delete: Document %s deletion failed", doc.getId()));
+                        listener.onComplete(Tasks.forException(task.getException()));
+                        return;
                     }
+                    if (task.getResult() != null) {
+                        deleteBlobFiles(task.getResult());
+                    }
+                    imageCache.remove(imageId(i));
+                    Log.d(TAG, "delete: Deletion completed");
+                    listener.onComplete(Tasks.forResult(i));
                 });
     }
 
     /**
-     * Download an image from Firestore db.
-     * <br>
-     * <b>Requires the ImageQuery callback to access the query data.</b>
-     * @param i Image object with download info
-     * @param callback <i>new ImageQuery()</i>
-     * @see com.example.pickme.utils.ImageQuery
+     * Gets the storage location of an image uploaded before image IDs were derived from the association.
+     * @param i The image
+     * @param imageId The random ID of the image document
+     * @return Reference to the original file
      */
-    public void download(@NonNull Image i, @NonNull ImageQuery callback) {
-        
+    private StorageReference legacyStorageRef(Image i, String imageId) {
+        return imgStorage.child(i.getImageType().toString()).child(i.getUploaderId()).child(imageId);
+    }
 
-        String imageAssociation = i.getImageAssociation();
-        String imageType = i.getImageType().toString();
+    /**
+     * Deletes the documents and files of an image that were uploaded before image IDs were derived from
+     * the association, once the image is stored under its derived ID and they can no longer be found.
+     * Those images predate shared files, so each owns its file.
+     * @param i The image that was stored
+     */
+    private void deleteLegacyImages(Image i) {
+        String imageId = imageId(i);
 
-        Query query = imgCollection
+        imgCollection
                 .where(Filter.and(
-                        Filter.equalTo("imageType", imageType),
-                        Filter.equalTo("imageAssociation", imageAssociation)));
-
-        query.get()
+                        Filter.equalTo("imageType", i.getImageType().toString()),
+                        Filter.equalTo("imageAssociation", i.getImageAssociation())))
+                .get()
                 .addOnCompleteListener(querySnapshotTask -> {
-                    if (querySnapshotTask.isSuccessful()) {
-                        QuerySnapshot queryRes = querySnapshotTask.getResult();
-                        if (!queryRes.isEmpty()) {
-                            Image queriedImage = queryRes
-                                    .getDocuments()
-                                    .get(0)
-                                    .toObject(Image.class);
-                            callback.onSuccess(queriedImage);
-                            Log.d(TAG, "download: Query successful, sent Image to callback");
-                        } else {
-                            Log.d(TAG, "download: Query returned empty");
-                            callback.onEmpty();
+                    if (!querySnapshotTask.isSuccessful()) {
+                        Log.w(TAG, String.format("upload: Could not look up legacy images of %s", imageId), querySnapshotTask.getException());
+                        return;
+                    }
+
+                    for (DocumentSnapshot snapshot : querySnapshotTask.getResult().getDocuments()) {
+                        Image stored = snapshot.toObject(Image.class);
+                        if (snapshot.getId().equals(imageId) || stored == null || stored.getContentHash() != null)
+                            continue;
+
+                        String legacyId = snapshot.getId();
+                        StorageReference imgRef = legacyStorageRef(stored, legacyId);
+                        Log.d(TAG, String.format("upload: Deleting legacy image %s of %s", legacyId, imageId));
+                        // the document goes even if the file is already gone, so the lookup stops finding it
+                        imgRef.delete().addOnCompleteListener(deleteFileTask -> snapshot.getReference().delete()
+                                .addOnFailureListener(e -> Log.w(TAG, String.format("upload: Legacy document %s deletion failed", legacyId), e)));
+                        for (int size : ImageVariants.SIZES) {
+                            imgRef.getParent().child(imgRef.getName() + "_" + size).delete();
                         }
                     }
                 });
     }
 
+    /**
+     * Gets the document of an image. Images uploaded before image IDs were derived from the association
+     * are stored under random IDs, so they are looked up by query if the document does not exist.
+     * @param i Image object with the type and association to look up
+     * @param listener Called with the document, which does not exist if there is no such image
+     */
+    private void findImageDocument(Image i, OnCompleteListener<DocumentSnapshot> listener) {
+        imgCollection
+                .document(imageId(i))
+                .get()
+                .addOnCompleteListener(docTask -> {
+                    if (!docTask.isSuccessful() || docTask.getResult().exists()) {
+                        listener.onComplete(docTask);
+                        return;
+                    }
+
+                    imgCollection
+                            .where(Filter.and(
+                                    Filter.equalTo("imageType", i.getImageType().toString()),
+                                    Filter.equalTo("imageAssociation", i.getImageAssociation())))
+                            .limit(1)
+                            .get()
+                            .addOnCompleteListener(querySnapshotTask -> {
+                                if (!querySnapshotTask.isSuccessful()) {
+                                    listener.onComplete(Tasks.forException(querySnapshotTask.getException()));
+                                    return;
+                                }
+                                QuerySnapshot queryRes = querySnapshotTask.getResult();
+                                listener.onComplete(queryRes.isEmpty()
+                                        ? docTask
+                                        : Tasks.forResult(queryRes.getDocuments().get(0)));
+                            });
+                });
+    }
+
+    /**
+     * Download an image from Firestore db.
+     * Images that were recently downloaded or uploaded are served from memory.
+     * <br>
+     * <b>Requires the ImageQuery callback to access the query data.</b>
+     * @param i Image object with download info
+     * @param callback <i>new ImageQuery()</i>
+     * @see com.example.pickme.utils.ImageQuery
+     */
+    public void download(@NonNull Image i, @NonNull ImageQuery callback) {
+        String imageId = imageId(i);
+
+        Image cached = imageCache.get(imageId);
+        if (cached != null) {
+            Log.d(TAG, "download: Served from cache");
+            callback.onSuccess(cached);
+            return;
+        }
+
+        findImageDocument(i, docTask -> {
+            if (!docTask.isSuccessful())
+                return;
+
+            Image queriedImage = docTask.getResult().toObject(Image.class);
+            if (queriedImage != null) {
+                imageCache.put(imageId, queriedImage);
+                callback.onSuccess(queriedImage);
+                Log.d(TAG, "download: Query successful, sent Image to callback");
+            } else {
+                Log.d(TAG, "download: Query returned empty");
+                callback.onEmpty();
+            }
+        });
+    }
+
     /**
      * Delete an image from Firestore db.
      * @param i Image object to be deleted
      */
     public void delete(@NonNull Image i, OnCompleteListener<Image> listener) {
-        
-
-        String uploaderId = i.getUploaderId();
-        String imageAssociation = i.getImageAssociation();
-        String imageType = i.getImageType().toString();
-
-        Query query = imgCollection
-                .where(Filter.and(
-                        Filter.equalTo("imageType", imageType),
-                        Filter.equalTo("uploaderId", uploaderId),
-                        Filter.equalTo("imageAssociation", imageAssociation)
-                ));
+        // an upload still in the queue would otherwise store the image again
+        uploadQueue.cancel(imageId(i));
+
+        findImageDocument(i, docTask -> {
+            if (!docTask.isSuccessful())
+                return;
+
+            DocumentSnapshot snapshot = docTask.getResult();
+            Image stored = snapshot.toObject(Image.class);
+            if (stored == null) {
+                Log.d(TAG, "delete: Query returned empty, no deletion occurred");
+                return;
+            }
 
-        query.get()
-                .addOnCompleteListener(querySnapshotTask -> {
-                    if (querySnapshotTask.isSuccessful()) {
-                        QuerySnapshot queryRes = querySnapshotTask.getResult();
-                        if (!queryRes.isEmpty()) {
-                            DocumentReference doc = queryRes
-                                    .getDocuments()
-                                    .get(0)
-                                    .getReference();
-
-                            String imageId = doc.getId();
-
-                            Log.d(TAG, "delete: Query successful");
-                            Log.d(TAG, String.format("delete: Deleting file %s", imageId));
-                            imgStorage
-                                    .child(imageType)
-                                    .child(uploaderId)
-                                    .child(imageId)
-                                    .delete()
-                                    .addOnCompleteListener(deleteFileTask -> {
-                                        if (deleteFileTask.isSuccessful()) {
-                                            Log.d(TAG, "delete: Deleting document " + imageId);
-                                            db
-                                                    .runTransaction(transaction -> {
-                                                        transaction.delete(doc);
-                                                        Log.d(TAG, "delete: Deletion completed");
-                                                        return i;
-                                                    })
-                                                    .addOnCompleteListener(listener);
-                                        } else {
-                                            Log.d(TAG, String.format("delete: File %s deletion failed!", imageId));
-                                        }
-                                    });
+            DocumentReference doc = snapshot.getReference();
+            if (stored.getContentHash() != null) {
+                deleteSharedImage(i, doc, stored.getContentHash(), listener);
+                return;
+            }
 
-                        } else {
-                            Log.d(TAG, "delete: Query returned empty, no deletion occurred");
+            // images stored before files were shared own their file
+            String imageId = doc.getId();
+            StorageReference imgRef = imageId.equals(imageId(i)) ? storageRef(i) : legacyStorageRef(stored, imageId);
+
+            Log.d(TAG, "delete: Query successful");
+            Log.d(TAG, String.format("delete: Deleting file %s", imageId));
+            imgRef
+                    .delete()
+                    .addOnCompleteListener(deleteFileTask -> {
+                        if (!deleteFileTask.isSuccessful()) {
+                            Log.d(TAG, String.format("delete: File %s deletion failed!", imageId));
+                            return;
                         }
-                    }
-                });
 
+                        // variants are missing for small and older images, so their failures are ignored
+                        for (int size : ImageVariants.SIZES) {
+                            imgRef.getParent().child(imgRef.getName() + "_" + size).delete();
+                        }
+                        imageCache.remove(imageId(i));
+
+                        Log.d(TAG, "delete: Deleting document " + imageId);
+                        doc
+                                .delete()
+                                .addOnCompleteListener(deleteDocTask -> {
+                                    if (!deleteDocTask.isSuccessful()) {
+                                        listener.onComplete(Tasks.forException(deleteDocTask.getException()));
+                                        return;
+                                    }
+                                    Log.d(TAG, "delete: Deletion completed");
+                                    listener.onComplete(Tasks.forResult(i));
+                                });
+                    });
+        });
     }
 
     /**
-     * Gets every image URL stored in Firebase DB and puts it into the passed gridView object
-     * @param context The activity in which the gallery resides
-     * @param gallery The gridView you want to show the images
+     * Gets one page of the images stored in Firebase DB, ordered by document ID
+     * @param pageSize The maximum number of images to return
+     * @param startAfter The cursor of the previous page, or null for the first page
+     * @param listener Called with the page of images
      */
-    public void getAllImages(@NonNull Context context, @NonNull GridView gallery) {
-        
-        // querying images collection for everything
-        imgCollection
+    public void getImagesPage(int pageSize, @Nullable DocumentSnapshot startAfter, @NonNull OnCompleteListener<Page<Image>> listener) {
+        Query query = imgCollection.orderBy(FieldPath.documentId()).limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+
+        query
                 .get()
                 .addOnCompleteListener(querySnapshotTask -> {
-                    if (querySnapshotTask.isSuccessful()) {
-                        Log.d(TAG, "getAll: Query all successful");
-                        QuerySnapshot queryRes = querySnapshotTask.getResult();
-                        if (!queryRes.isEmpty()) {
-                            // acquired list of image documents
-                            ArrayList<Image> images = new ArrayList<>();
-                            List<DocumentSnapshot> docs = queryRes.getDocuments();
-
-                            // extracting list of images
-                            for (DocumentSnapshot doc : docs) {
-                                images.add(doc.toObject(Image.class));
-                            }
-                            // clearing and resetting adapter
-                            gallery.setAdapter(null);
-                            GalleryAdapter adapter = new GalleryAdapter(context, images);
-                            gallery.setAdapter(adapter);
-                        } else {
-                            Log.d(TAG, "getAll: Query all returned empty");
+                    if (!querySnapshotTask.isSuccessful() || querySnapshotTask.getResult() == null) {
+                        Log.d(TAG, "getImagesPage: Query failed");
+                        listener.onComplete(Tasks.forException(querySnapshotTask.getException()));
+                        return;
+                    }
+
+                    // extracting the page of images
+                    List<DocumentSnapshot> docs = querySnapshotTask.getResult().getDocuments();
+                    ArrayList<Image> images = new ArrayList<>();
+                    for (DocumentSnapshot doc : docs) {
+                        Image image = doc.toObject(Image.class);
+                        if (image != null) {
+                            images.add(image);
                         }
                     }
+                    Log.d(TAG, String.format("getImagesPage: Loaded %d images", images.size()));
+
+                    DocumentSnapshot cursor = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+                    listener.onComplete(Tasks.forResult(new Page<>(images, cursor, docs.size() == pageSize)));
                 });
     }
     //endregion
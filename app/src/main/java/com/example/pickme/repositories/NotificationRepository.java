@@ -2,6 +2,7 @@ package com.example.pickme.repositories;
 
 import android.Manifest;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.util.Log;
 
@@ -17,6 +18,8 @@ import com.example.pickme.views.adapters.NotifRecAdapter;
 import com.example.pickme.views.adapters.NotificationAdapter;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
@@ -26,10 +29,15 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QuerySnapshot;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Handles interactions with the notifications collection
  * @author sophiecabungcal, Omar-Kattan-1
- * @version 1.1
+ * @version 1.2
  * <b></b>
  * Responsibilities:
  * CRUD operations for notification data
@@ -38,6 +46,15 @@ public class NotificationRepository {
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
     private final CollectionReference notificationsRef = db.collection("notifications");
 
+    // Newest notifications kept live by the listener
+    private static final int LISTEN_LIMIT = 50;
+    private static final String PREFS_NAME = "notifications";
+    private static final String LAST_SEEN_SECONDS = "lastSeenSeconds_";
+    private static final String LAST_SEEN_NANOS = "lastSeenNanos_";
+    private static final int NOTIFICATION_CACHE_SIZE = 200;
+    private static final long NOTIFICATION_CACHE_TTL_MS = 5 * 60_000;
+    private final DocumentBatchLoader notificationLoader = new DocumentBatchLoader(notificationsRef, NOTIFICATION_CACHE_SIZE, NOTIFICATION_CACHE_TTL_MS);
+
     private NotificationAdapter notificationAdapter;
     private NotifRecAdapter notifRecAdapter;
     static boolean listening = false;
@@ -90,13 +107,59 @@ public class NotificationRepository {
         notificationsRef.document(notificationId).get().addOnSuccessListener(onSuccessListener);
     }
 
+    /**
+     * Reads several notifications by ID in as few queries as possible
+     *
+     * @param notificationIds       the IDs of the notifications
+     * @param onCompleteListener    task to be completed once this is done; notifications that do not exist are left out, the rest keep the order of notificationIds
+     */
+    public void getNotificationsByIds(List<String> notificationIds, OnCompleteListener<List<Notification>> onCompleteListener) {
+        if (notificationIds.isEmpty()) {
+            onCompleteListener.onComplete(Tasks.forResult(new ArrayList<>()));
+            return;
+        }
+
+        Notification[] notifications = new Notification[notificationIds.size()];
+        int[] remaining = {notificationIds.size()};
+        Exception[] failure = {null};
+
+        for (int i = 0; i < notificationIds.size(); i++) {
+            int index = i;
+            notificationLoader.load(notificationIds.get(i), task -> {
+                if (task.isSuccessful()) {
+                    DocumentSnapshot document = task.getResult();
+                    notifications[index] = document != null ? document.toObject(Notification.class) : null;
+                } else {
+                    failure[0] = task.getException();
+                }
+
+                if (--remaining[0] > 0)
+                    return;
+
+                if (failure[0] != null) {
+                    onCompleteListener.onComplete(Tasks.forException(failure[0]));
+                    return;
+                }
+
+                List<Notification> result = new ArrayList<>();
+                for (Notification notification : notifications) {
+                    if (notification != null)
+                        result.add(notification);
+                }
+                onCompleteListener.onComplete(Tasks.forResult(result));
+            });
+        }
+    }
+
     // Update a notification
     public void updateNotification(Notification notification) {
+        notificationLoader.invalidate(notification.getNotificationId());
         notificationsRef.document(notification.getNotificationId()).set(notification);
     }
 
     // Delete a notification by ID
     public void deleteNotification(String notificationId) {
+        notificationLoader.invalidate(notificationId);
         notificationsRef.document(notificationId).delete();
     }
 
@@ -115,21 +178,28 @@ public class NotificationRepository {
         notificationsRef.whereEqualTo("senderId", userId).get().addOnCompleteListener(onCompleteListener);
     }
 
+    /**
+     * Listens for notifications delivered to the current user's inbox.
+     * Only inbox entries newer than the last one seen are fetched, so reconnecting only downloads
+     * what was delivered in the meantime.
+     *
+     * @param context context used for the system notifications and for storing the last seen timestamp
+     */
     public void addSnapshotListener(Context context){
         if(listening)
             return;
 
+        listening = true;
+
+        Context appContext = context.getApplicationContext();
         NotificationList notificationList = NotificationList.getInstance();
         User user = User.getInstance();
+        String deviceId = user.getDeviceId();
+        Timestamp lastSeen = getLastSeen(appContext, deviceId);
 
-        Log.i("NOTIF", "adding listener");
+        Log.i("NOTIF", "adding listener, last seen: " + lastSeen);
 
-        notificationsRef.addSnapshotListener((query, error) -> {
-
-            if(!listening){
-                listening = true;
-                return;
-            }
+        UserRepository.getInstance().listenToInbox(deviceId, lastSeen, LISTEN_LIMIT, (query, error) -> {
 
             if(error != null){
                 Log.e("NOTIF", "Listen failed: ", error);
@@ -138,47 +208,115 @@ public class NotificationRepository {
             }
 
             if(query != null){
-                for(DocumentChange change : query.getDocumentChanges()){
-                    Log.i("NOTIF", "doc changed: " + change.getDocument().getId());
-                    Notification notification = change.getDocument().toObject(Notification.class);
+                Timestamp newest = null;
+                Map<String, UserNotification> added = new HashMap<>();
 
-                    if(!notification.getSendTo().contains(user.getDeviceId()))
-                        continue;
+                for(DocumentChange change : query.getDocumentChanges()){
+                    String notificationId = change.getDocument().getId();
+                    Log.i("NOTIF", "inbox changed: " + notificationId);
 
                     if(change.getType() == DocumentChange.Type.ADDED){
-                        notificationList.add(notification);
-                        user.addUserNotification(new UserNotification(notification.getNotificationId()));
-                        EventRepository.getInstance().getEventById(notification.getEventID(), task ->{
-                                NotificationCompat.Builder builder = new NotificationCompat.Builder(context, "channelID")
-                                    .setSmallIcon(android.R.drawable.ic_menu_info_details)
-                                    .setContentTitle(task.getResult().getEventTitle())
-                                    .setContentText(notification.getMessage());
-
+                        UserNotification userNotification = change.getDocument().toObject(UserNotification.class);
+                        userNotification.setNotificationID(notificationId);
 
-                                NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
-                                if (ActivityCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED) {
-                                    notificationManager.notify(notification.getNotificationId().hashCode(), builder.build());
-                                }
+                        if(userNotification.getTimestamp() != null && (newest == null || userNotification.getTimestamp().compareTo(newest) > 0))
+                            newest = userNotification.getTimestamp();
 
-                                });
+                        // may already be in the inbox from the first page
+                        if(NotificationList.getByID(notificationId) != null)
+                            continue;
 
+                        added.put(notificationId, userNotification);
                     }
-                    else if(change.getType() == DocumentChange.Type.REMOVED)
-                        notificationList.remove(notification);
+                    // once the window is full, older entries drop out of it without being deleted
+                    else if(change.getType() == DocumentChange.Type.REMOVED && query.size() < LISTEN_LIMIT)
+                        notificationList.remove(NotificationList.getByID(notificationId));
 
                 }
 
-                if(notificationAdapter != null)
-                    this.notificationAdapter.notifyDataSetChanged();
+                if(newest != null)
+                    setLastSeen(appContext, deviceId, newest);
+
+                getNotificationsByIds(new ArrayList<>(added.keySet()), task -> {
+                    if(task.isSuccessful() && task.getResult() != null){
+                        for(Notification notification : task.getResult()){
+                            if(NotificationList.getByID(notification.getNotificationId()) != null)
+                                continue;
+
+                            UserNotification userNotification = added.get(notification.getNotificationId());
+                            notification.markRead(userNotification.isRead());
+                            notificationList.add(notification);
+                            if(!user.hasUserNotification(notification.getNotificationId()))
+                                user.addUserNotification(userNotification);
+                            showNotification(appContext, notification);
+                        }
+                    }
+
+                    if(notificationAdapter != null)
+                        this.notificationAdapter.notifyDataSetChanged();
 
-                if(notifRecAdapter != null)
-                    this.notifRecAdapter.notifyDataSetChanged();
+                    if(notifRecAdapter != null)
+                        this.notifRecAdapter.notifyDataSetChanged();
+                });
             }
 
         });
 
     }
 
+    /**
+     * Posts a system notification for a notification sent to the user
+     *
+     * @param context       context to post the notification from
+     * @param notification  the notification to show
+     */
+    private void showNotification(Context context, Notification notification){
+        EventRepository.getInstance().getEventById(notification.getEventID(), task ->{
+            if(!task.isSuccessful() || task.getResult() == null)
+                return;
+
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, "channelID")
+                    .setSmallIcon(android.R.drawable.ic_menu_info_details)
+                    .setContentTitle(task.getResult().getEventTitle())
+                    .setContentText(notification.getMessage());
+
+            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
+            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED) {
+                notificationManager.notify(notification.getNotificationId().hashCode(), builder.build());
+            }
+        });
+    }
+
+    /**
+     * Gets the timestamp of the newest notification this device has received.
+     * A device that has never listened starts from now, like the old listener that skipped its first snapshot.
+     *
+     * @param context   context to read the preferences from
+     * @param deviceId  the device ID of the user
+     * @return the last seen timestamp
+     */
+    private Timestamp getLastSeen(Context context, String deviceId){
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if(!prefs.contains(LAST_SEEN_SECONDS + deviceId))
+            return Timestamp.now();
+
+        return new Timestamp(prefs.getLong(LAST_SEEN_SECONDS + deviceId, 0), prefs.getInt(LAST_SEEN_NANOS + deviceId, 0));
+    }
+
+    /**
+     * Stores the timestamp of the newest notification this device has received
+     *
+     * @param context   context to write the preferences to
+     * @param deviceId  the device ID of the user
+     * @param lastSeen  the last seen timestamp
+     */
+    private void setLastSeen(Context context, String deviceId, Timestamp lastSeen){
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(LAST_SEEN_SECONDS + deviceId, lastSeen.getSeconds())
+                .putInt(LAST_SEEN_NANOS + deviceId, lastSeen.getNanoseconds())
+                .apply();
+    }
+
     public void attachAdapter(NotificationAdapter notificationAdapter){
         this.notificationAdapter = notificationAdapter;
     }
@@ -0,0 +1,62 @@
+package com.example.pickme.repositories;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * One page of a collection read with a cursor.
+ * Pass {@link #getCursor()} back to the repository to read the page after this one.
+ *
+ * @param <T> The type of the items on the page
+ * @version 1.0
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final DocumentSnapshot cursor;
+    private final boolean hasMore;
+
+    /**
+     * Creates a page.
+     *
+     * @param items The items on the page
+     * @param cursor The last document read for the page, or null if the page is empty
+     * @param hasMore Whether another page may follow
+     */
+    public Page(List<T> items, @Nullable DocumentSnapshot cursor, boolean hasMore) {
+        this.items = items;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Gets the items on the page.
+     *
+     * @return items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor to read the next page from.
+     *
+     * @return The last document read for the page, or null if the page is empty
+     */
+    @Nullable
+    public DocumentSnapshot getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Checks whether another page may follow.
+     * A full page always reports more, so the last page of a collection whose size is a multiple of the page size is empty.
+     *
+     * @return true if the next page should be requested
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -1,17 +1,30 @@
 package com.example.pickme.repositories;
 
+import androidx.annotation.Nullable;
+
 import com.example.pickme.models.QR;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Handles interactions with the QRs collection
  * CRUD operations for QR data
  */
 public class QrRepository {
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int MAX_IN_QUERY = 30;
+
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
     private final CollectionReference qrRef = db.collection("QRs");
 
@@ -31,29 +44,26 @@ public class QrRepository {
      * @return Task for tracking success/failure
      */
     public Task<DocumentReference> createQR(QR qr) {
-        // Add the QR object to Firestore and let Firestore generate the document ID
-        return qrRef.add(qr).continueWithTask(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                DocumentReference docRef = task.getResult();
-                String generatedQrId = docRef.getId();  // Retrieve the auto-generated document ID
-
-                // Set the qrId in the QR object and update Firestore with this value
-                qr.setQrId(generatedQrId);
-                return docRef.update("qrId", generatedQrId).continueWith(updateTask -> docRef);  // Return DocumentReference after update
-            } else {
-                throw task.getException();  // Propagate the exception if the add operation failed
+        // Let Firestore generate the document ID locally, so the qrId is written with the document in one go
+        DocumentReference docRef = qrRef.document();
+        qr.setQrId(docRef.getId());
+        return docRef.set(qr).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();  // Propagate the exception if the write failed
             }
+            return docRef;
         });
     }
 
     /**
      * Reads a QR document by its ID.
+     * The qrId is the document ID, so this is a direct document read rather than a query.
      *
      * @param qrID ID of the QR document to read
-     * @return Task containing the QR document if found
+     * @return Task containing the QR document; it does not exist if the QR is not found
      */
-    public Task<QuerySnapshot> readQRByID(String qrID) {
-        return qrRef.whereEqualTo("qrId", qrID).get();
+    public Task<DocumentSnapshot> readQRByID(String qrID) {
+        return qrRef.document(qrID).get();
     }
 
     /**
@@ -65,6 +75,21 @@ public class QrRepository {
         return qrRef.get();
     }
 
+    /**
+     * Retrieves a page of QR documents ordered by document ID.
+     *
+     * @param pageSize     The maximum number of QR documents to return
+     * @param startAfterId The ID of the last QR document of the previous page, or null for the first page
+     * @return Task containing the page of QR documents
+     */
+    public Task<QuerySnapshot> getQRPage(int pageSize, @Nullable String startAfterId) {
+        Query query = qrRef.orderBy(FieldPath.documentId()).limit(pageSize);
+        if (startAfterId != null) {
+            query = query.startAfter(startAfterId);
+        }
+        return query.get();
+    }
+
     /**
      * Reads a QR document by its association.
      *
@@ -75,6 +100,21 @@ public class QrRepository {
         return qrRef.whereEqualTo("qrAssociation", qrAssociation).get();
     }
 
+    /**
+     * Reads the QR documents of several associations, in chunks that fit a single whereIn query.
+     *
+     * @param qrAssociations Associated entity references of the QR documents
+     * @return Task containing the QR documents found, one query result per chunk
+     */
+    public Task<List<QuerySnapshot>> readQRsByAssociations(List<String> qrAssociations) {
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (int i = 0; i < qrAssociations.size(); i += MAX_IN_QUERY) {
+            List<String> chunk = new ArrayList<>(qrAssociations.subList(i, Math.min(i + MAX_IN_QUERY, qrAssociations.size())));
+            queries.add(qrRef.whereIn("qrAssociation", chunk).get());
+        }
+        return Tasks.whenAllSuccess(queries);
+    }
+
     /**
      * Deletes a QR document by its ID.
      *
@@ -85,6 +125,24 @@ public class QrRepository {
         return qrRef.document(qrID).delete();
     }
 
+    /**
+     * Deletes several QR documents in batches.
+     *
+     * @param qrIDs IDs of the QR documents to delete
+     * @return Task for tracking success/failure
+     */
+    public Task<Void> deleteQRs(List<String> qrIDs) {
+        List<Task<Void>> commits = new ArrayList<>();
+        for (int i = 0; i < qrIDs.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = db.batch();
+            for (String qrID : qrIDs.subList(i, Math.min(i + MAX_BATCH_WRITES, qrIDs.size()))) {
+                batch.delete(qrRef.document(qrID));
+            }
+            commits.add(batch.commit());
+        }
+        return Tasks.whenAll(commits);
+    }
+
     /**
      * Deletes a QR document by its association.
      *
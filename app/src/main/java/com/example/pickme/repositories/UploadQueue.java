@@ -0,0 +1,863 @@
+package com.example.pickme.repositories;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.pickme.models.Enums.ImageType;
+import com.example.pickme.models.Image;
+import com.example.pickme.utils.ImageVariants;
+import com.example.pickme.utils.PreparedImage;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Uploads images in the background and keeps a journal of them on the device until they are stored.
+ * <p>
+ * Responsibilities:
+ * - Writes each prepared image and its variants to files next to a journal entry, so uploads survive process death
+ * - Skips the upload of an image whose content is already stored, sharing its files instead
+ * - Uploads the original through a resumable Storage session and remembers the session,
+ *   so an interrupted upload continues where it stopped
+ * - Retries failed uploads with exponential backoff, and right away once a network becomes available;
+ *   only uploads that cannot succeed, such as a missing source file or a denied permission, are dropped
+ * - Runs at most {@link #MAX_CONCURRENT} uploads at a time
+ * - Stores the image document once the files are uploaded, and attaches it to its event or user
+ * - Counts the images sharing each stored file, releasing a file once no image references it
+ * - Uploads every file to a path of its own, so releasing a file never deletes one another upload has just recorded
+ * <p>
+ * A new upload of an image replaces one that is still queued for it.
+ * All methods are expected to be called from the main thread; files are written on the given executor.
+ *
+ * @version 1.2
+ */
+public class UploadQueue {
+    private static final String TAG = "UploadQueue";
+    private static final String JOURNAL_DIR = "uploads";
+    private static final int MAX_CONCURRENT = 2;
+    private static final long BASE_RETRY_DELAY_MS = 2_000;
+    private static final long MAX_RETRY_DELAY_MS = 5 * 60_000;
+    static final String IMAGE_URL_FIELD = "imageUrl";
+    static final String CONTENT_HASH_FIELD = "contentHash";
+    static final String REF_COUNT_FIELD = "refCount";
+    static final String PATH_FIELD = "path";
+
+    private final File journalDir;
+    private final StorageReference imgStorage;
+    private final CollectionReference imgCollection;
+    private final CollectionReference blobCollection;
+    private final ExecutorService fileExecutor;
+    private final Consumer<Image> onStored;
+    private final Consumer<String> onBlobReleased;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Queued uploads by image ID, oldest first
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private final Map<Job, OnCompleteListener<Image>> completionListeners = new HashMap<>();
+    private int running = 0;
+
+    /**
+     * Creates the queue and resumes the uploads left in the journal by an earlier process.
+     *
+     * @param filesDir The app's private files directory
+     * @param imgStorage Root of the image files
+     * @param imgCollection The images collection
+     * @param blobCollection The reference counts of stored files, by content hash
+     * @param fileExecutor Executor for reading and writing the journal
+     * @param onStored Called with each image whose document has been stored
+     * @param onBlobReleased Called with the storage path of each stored file no image references anymore
+     */
+    UploadQueue(@NonNull File filesDir, @NonNull StorageReference imgStorage, @NonNull CollectionReference imgCollection,
+                @NonNull CollectionReference blobCollection, @NonNull ExecutorService fileExecutor,
+                @NonNull Consumer<Image> onStored, @NonNull Consumer<String> onBlobReleased) {
+        this.journalDir = new File(filesDir, JOURNAL_DIR);
+        this.imgStorage = imgStorage;
+        this.imgCollection = imgCollection;
+        this.blobCollection = blobCollection;
+        this.fileExecutor = fileExecutor;
+        this.onStored = onStored;
+        this.onBlobReleased = onBlobReleased;
+
+        Tasks.call(fileExecutor, this::readJournal).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Failed to read upload journal", task.getException());
+                return;
+            }
+            for (Job job : task.getResult()) {
+                if (!jobs.containsKey(job.imageId)) {
+                    jobs.put(job.imageId, job);
+                }
+            }
+            Log.d(TAG, String.format("Resuming %d uploads", task.getResult().size()));
+            schedule();
+        });
+    }
+
+    /**
+     * Prepares an image off the main thread, records it in the journal and queues its upload.
+     *
+     * @param image The image to upload; its URLs are set once it is stored
+     * @param imageId The ID of the image document
+     * @param prepare Produces the encoded image and its variants
+     * @param listener Called once the image document is stored, or with the failure that made the upload impossible
+     */
+    void enqueue(@NonNull Image image, @NonNull String imageId,
+                 @NonNull Callable<PreparedImage> prepare, @Nullable OnCompleteListener<Image> listener) {
+        Tasks.call(fileExecutor, () -> writeJob(image, imageId, prepare.call())).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, String.format("Failed to queue upload of %s", imageId), task.getException());
+                if (listener != null) {
+                    listener.onComplete(Tasks.forException(task.getException()));
+                }
+                return;
+            }
+
+            cancel(imageId);
+            Job job = task.getResult();
+            job.image = image;
+            jobs.put(imageId, job);
+            if (listener != null) {
+                completionListeners.put(job, listener);
+            }
+            schedule();
+        });
+    }
+
+    /**
+     * Drops the queued upload of an image, if any. An upload in progress is cancelled.
+     *
+     * @param imageId The ID of the image document
+     */
+    void cancel(@NonNull String imageId) {
+        Job job = jobs.remove(imageId);
+        if (job == null)
+            return;
+
+        job.cancelled = true;
+        if (job.upload != null) {
+            job.upload.cancel();
+        }
+        complete(job, Tasks.forException(new CancellationException("Upload of " + imageId + " was cancelled")));
+    }
+
+    /**
+     * Retries every upload waiting for its next attempt right away, e.g. once a network becomes available.
+     */
+    void retryNow() {
+        for (Job job : jobs.values()) {
+            job.retryAt = 0;
+        }
+        schedule();
+    }
+
+    /**
+     * Computes how long to wait before the next attempt of an upload.
+     *
+     * @param attempts The number of attempts that have failed
+     * @return The delay in milliseconds, doubling with each attempt up to {@link #MAX_RETRY_DELAY_MS}
+     */
+    static long retryDelay(int attempts) {
+        long delay = BASE_RETRY_DELAY_MS << Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(delay, MAX_RETRY_DELAY_MS);
+    }
+
+    /**
+     * Checks whether a failed attempt may succeed when tried again. Failures caused by the network,
+     * the server or the user not being signed in yet are retryable; a missing or unreadable source
+     * file, a denied permission or a rejected request fail the same way every time.
+     *
+     * @param e The failure of the attempt
+     * @return true if the upload should be kept and retried
+     */
+    static boolean isRetryable(@Nullable Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FileNotFoundException || cause instanceof IllegalArgumentException)
+                return false;
+            if (cause instanceof StorageException
+                    && ((StorageException) cause).getErrorCode() == StorageException.ERROR_NOT_AUTHORIZED)
+                return false;
+            if (cause instanceof FirebaseFirestoreException) {
+                FirebaseFirestoreException.Code code = ((FirebaseFirestoreException) cause).getCode();
+                if (code == FirebaseFirestoreException.Code.PERMISSION_DENIED || code == FirebaseFirestoreException.Code.INVALID_ARGUMENT)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts queued uploads, oldest first, until the concurrency limit is reached.
+     */
+    private void schedule() {
+        for (Job job : jobs.values()) {
+            if (running >= MAX_CONCURRENT)
+                return;
+            if (job.running || job.retryAt > SystemClock.elapsedRealtime())
+                continue;
+
+            start(job);
+        }
+    }
+
+    /**
+     * Runs one attempt of an upload: the original, then the variants, then the image document.
+     *
+     * @param job The upload
+     */
+    private void start(Job job) {
+        running++;
+        job.running = true;
+
+        findBlob(job)
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return uploadOriginal(job);
+                })
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return uploadVariants(job);
+                })
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return store(job);
+                })
+                .addOnCompleteListener(task -> finish(job, task));
+    }
+
+    /**
+     * Looks for a stored file with the same content. If there is one, its URLs are used and the upload is skipped.
+     * Variants it lacks are uploaded next to it.
+     *
+     * @param job The upload
+     * @return Task that completes once the lookup is done; a failed lookup only means the files are uploaded
+     */
+    private Task<Void> findBlob(Job job) {
+        if (job.imageUrl != null)
+            return Tasks.forResult(null);
+
+        return blobCollection
+                .document(job.contentHash)
+                .get()
+                .continueWith(task -> {
+                    if (!task.isSuccessful() || task.getResult().getString(IMAGE_URL_FIELD) == null)
+                        return null;
+
+                    DocumentSnapshot blob = task.getResult();
+                    job.imageUrl = blob.getString(IMAGE_URL_FIELD);
+                    for (int size : job.variantSizes) {
+                        String url = blob.getString(variantField(size));
+                        if (url != null) {
+                            job.variantUrls.put(size, url);
+                        }
+                    }
+                    job.reusedPath = storagePath(blob);
+                    persist(job);
+                    Log.d(TAG, String.format("Upload of %s skipped, content already stored as %s", job.imageId, job.contentHash));
+                    return null;
+                });
+    }
+
+    /**
+     * Uploads the original file through a resumable session, unless an earlier attempt finished it.
+     *
+     * @param job The upload
+     * @return Task that completes once the download URL of the original is known
+     */
+    private Task<Void> uploadOriginal(Job job) {
+        if (job.imageUrl != null)
+            return Tasks.forResult(null);
+
+        StorageReference ref = imgStorage.child(job.storagePath());
+        Uri file = Uri.fromFile(job.dataFile(journalDir));
+        UploadTask upload = ref.putFile(file, job.metadata(), job.sessionUri != null ? Uri.parse(job.sessionUri) : null);
+        job.upload = upload;
+
+        upload.addOnProgressListener(snapshot -> {
+            Uri session = snapshot.getUploadSessionUri();
+            if (session != null && !session.toString().equals(job.sessionUri)) {
+                job.sessionUri = session.toString();
+                persist(job);
+            }
+        });
+
+        return upload
+                .continueWithTask(task -> {
+                    job.upload = null;
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    Log.d(TAG, String.format("File %s uploaded", job.imageId));
+                    return ref.getDownloadUrl();
+                })
+                .onSuccessTask(url -> {
+                    job.imageUrl = url.toString();
+                    job.sessionUri = null;
+                    persist(job);
+                    return Tasks.forResult(null);
+                });
+    }
+
+    /**
+     * Uploads the variants that no earlier attempt finished, in parallel.
+     * Failed variants are left out; loaders then fall back to the original.
+     *
+     * @param job The upload
+     * @return Task that completes once every variant has been uploaded or has failed
+     */
+    private Task<Void> uploadVariants(Job job) {
+        Map<Integer, Task<Uri>> uploads = new TreeMap<>();
+        for (int size : job.variantSizes) {
+            if (job.variantUrls.containsKey(size))
+                continue;
+
+            StorageReference variantRef = imgStorage.child(job.storagePath() + "_" + size);
+            uploads.put(size, variantRef.putFile(Uri.fromFile(job.variantFile(journalDir, size)), job.metadata(), null)
+                    .continueWithTask(task -> {
+                        if (!task.isSuccessful()) {
+                            throw task.getException();
+                        }
+                        return variantRef.getDownloadUrl();
+                    }));
+        }
+
+        return Tasks.whenAllComplete(uploads.values()).continueWith(task -> {
+            for (Map.Entry<Integer, Task<Uri>> upload : uploads.entrySet()) {
+                if (upload.getValue().isSuccessful()) {
+                    job.variantUrls.put(upload.getKey(), upload.getValue().getResult().toString());
+                } else {
+                    Log.w(TAG, String.format("Variant %d of %s failed", upload.getKey(), job.imageId),
+                            upload.getValue().getException());
+                }
+            }
+            Log.d(TAG, String.format("%d variants of %s uploaded", job.variantUrls.size(), job.imageId));
+            return null;
+        });
+    }
+
+    /**
+     * Stores the image document and counts the reference to its file, releasing the file the image used before.
+     * Then points its event or user at it, so an upload finished after the app was closed is still shown.
+     * <p>
+     * The blob record is read again in the transaction. If it was released since the lookup, files that were
+     * to be shared are uploaded again. If another upload of the same content was recorded first, its files are
+     * shared and the ones this upload wrote are released. Variants uploaded for a shared file are added to its record.
+     *
+     * @param job The upload
+     * @return Task with the stored image
+     */
+    private Task<Image> store(Job job) {
+        Image image = job.image != null ? job.image : job.restoreImage();
+        image.setContentHash(job.contentHash);
+
+        DocumentReference imageRef = imgCollection.document(job.imageId);
+        DocumentReference blobRef = blobCollection.document(job.contentHash);
+        Map<String, Object> blobFields = new HashMap<>();
+        blobFields.put(IMAGE_URL_FIELD, job.imageUrl);
+        for (Map.Entry<Integer, String> url : job.variantUrls.entrySet()) {
+            blobFields.put(variantField(url.getKey()), url.getValue());
+        }
+        blobFields.put(PATH_FIELD, job.storagePath());
+
+        return imgCollection.getFirestore()
+                .runTransaction(transaction -> {
+                    DocumentSnapshot previous = transaction.get(imageRef);
+                    DocumentSnapshot blob = transaction.get(blobRef);
+                    String previousHash = previous.getString(CONTENT_HASH_FIELD);
+                    boolean newReference = !job.contentHash.equals(previousHash);
+                    DocumentSnapshot previousBlob = newReference && previousHash != null
+                            ? transaction.get(blobCollection.document(previousHash))
+                            : null;
+
+                    // paths of the files no image references once the transaction commits
+                    List<String> released = new ArrayList<>();
+                    if (!blob.exists()) {
+                        // the shared files were released after they were looked up, so they have to be uploaded again
+                        if (job.reusedPath != null)
+                            throw new BlobReleasedException(job.contentHash);
+
+                        Map<String, Object> created = new HashMap<>(blobFields);
+                        created.put(REF_COUNT_FIELD, 1);
+                        transaction.set(blobRef, created);
+                        setUrls(image, blobFields::get);
+                    } else {
+                        Map<String, Object> updates = new HashMap<>();
+                        Map<String, Object> urls = new HashMap<>(blob.getData());
+                        if (storagePath(blob).equals(job.storagePath())) {
+                            // variants the shared file lacked were uploaded next to it, and are shared from now on
+                            for (Map.Entry<Integer, String> url : job.variantUrls.entrySet()) {
+                                String field = variantField(url.getKey());
+                                if (blob.getString(field) == null) {
+                                    updates.put(field, url.getValue());
+                                }
+                            }
+                            urls.putAll(updates);
+                        } else {
+                            // another upload of the same content was recorded first, or the shared file was
+                            // replaced since the lookup; no record references the files at this upload's path
+                            released.add(job.storagePath());
+                        }
+                        if (newReference)
+                            updates.put(REF_COUNT_FIELD, FieldValue.increment(1));
+                        if (!updates.isEmpty())
+                            transaction.update(blobRef, updates);
+                        setUrls(image, urls::get);
+                    }
+
+                    if (previousBlob != null && previousBlob.exists()) {
+                        Long refCount = previousBlob.getLong(REF_COUNT_FIELD);
+                        if (refCount == null || refCount <= 1) {
+                            transaction.delete(previousBlob.getReference());
+                            released.add(storagePath(previousBlob));
+                        } else {
+                            transaction.update(previousBlob.getReference(), REF_COUNT_FIELD, FieldValue.increment(-1));
+                        }
+                    }
+
+                    transaction.set(imageRef, image);
+                    return released;
+                })
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    for (String path : task.getResult()) {
+                        onBlobReleased.accept(path);
+                    }
+                    onStored.accept(image);
+                    if (image.getImageType() == ImageType.EVENT_POSTER)
+                        return EventRepository.getInstance().attachPoster(image.getImageAssociation(), image);
+                    if (image.getImageType() == ImageType.PROFILE_PICTURE)
+                        return UserRepository.getInstance().attachProfilePicture(image.getImageAssociation(), image);
+
+                    return Tasks.forResult(null);
+                })
+                .continueWith(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return image;
+                });
+    }
+
+    /**
+     * Points an image at the files of a blob record.
+     *
+     * @param image The image
+     * @param fields Reads a field of the blob record
+     */
+    private static void setUrls(Image image, Function<String, Object> fields) {
+        image.setImageUrl((String) fields.apply(IMAGE_URL_FIELD));
+        image.setThumbnailUrl((String) fields.apply(variantField(ImageVariants.THUMBNAIL_SIZE)));
+        image.setPreviewUrl((String) fields.apply(variantField(ImageVariants.PREVIEW_SIZE)));
+    }
+
+    /**
+     * Gets the storage path of the original file of a blob record.
+     * Its variants are stored next to it, with the variant size appended to the name.
+     *
+     * @param blob The blob record
+     * @return The path of the original file
+     */
+    static String storagePath(DocumentSnapshot blob) {
+        String path = blob.getString(PATH_FIELD);
+        return path != null ? path : ImageRepository.blobPath(blob.getId());
+    }
+
+    /**
+     * Gets the field of a blob record that holds the URL of a variant.
+     *
+     * @param size The size of the variant
+     * @return The field name
+     */
+    static String variantField(int size) {
+        return size == ImageVariants.THUMBNAIL_SIZE ? "thumbnailUrl" : size == ImageVariants.PREVIEW_SIZE ? "previewUrl" : "url_" + size;
+    }
+
+    /**
+     * Ends an attempt: removes a stored or impossible upload from the journal, or schedules its next attempt.
+     * Retryable failures stay in the journal however often they fail, so the next process picks them up too.
+     *
+     * @param job The upload
+     * @param task The result of the attempt
+     */
+    private void finish(Job job, Task<Image> task) {
+        running--;
+        job.running = false;
+
+        if (job.cancelled) {
+            schedule();
+            return;
+        }
+
+        if (task.isSuccessful()) {
+            Log.d(TAG, String.format("Upload of %s stored", job.imageId));
+            jobs.remove(job.imageId);
+            complete(job, task);
+            schedule();
+            return;
+        }
+
+        job.attempts++;
+        Exception e = task.getException();
+        if (!isRetryable(e)) {
+            Log.e(TAG, String.format("Dropping upload of %s, it cannot succeed", job.imageId), e);
+            jobs.remove(job.imageId);
+            complete(job, task);
+            schedule();
+            return;
+        }
+
+        if (e instanceof BlobReleasedException || (e != null && e.getCause() instanceof BlobReleasedException)) {
+            // variants this upload added next to the released file would be left behind
+            onBlobReleased.accept(job.storagePath());
+            job.imageUrl = null;
+            job.variantUrls.clear();
+            job.reusedPath = null;
+        }
+
+        // a session the server no longer accepts cannot be resumed, so the next attempt starts over
+        if (!(e instanceof StorageException) || !((StorageException) e).getIsRecoverableException()) {
+            job.sessionUri = null;
+        }
+
+        long delay = retryDelay(job.attempts);
+        Log.w(TAG, String.format("Upload of %s failed, retrying in %d ms", job.imageId, delay), e);
+        job.retryAt = SystemClock.elapsedRealtime() + delay;
+        persist(job);
+        handler.postDelayed(this::schedule, delay);
+        schedule();
+    }
+
+    /**
+     * Removes a finished upload's files and notifies its listeners.
+     *
+     * @param job The upload
+     * @param task The outcome to report
+     */
+    private void complete(Job job, Task<Image> task) {
+        fileExecutor.execute(() -> job.deleteFiles(journalDir));
+
+        OnCompleteListener<Image> listener = completionListeners.remove(job);
+        if (listener != null) {
+            listener.onComplete(task);
+        }
+    }
+
+    /**
+     * Writes the state of an upload to its journal entry.
+     *
+     * @param job The upload
+     */
+    private void persist(Job job) {
+        String json;
+        try {
+            json = job.toJson().toString();
+        } catch (JSONException e) {
+            Log.e(TAG, String.format("Failed to serialize upload of %s", job.imageId), e);
+            return;
+        }
+        fileExecutor.execute(() -> {
+            // the job may have finished while the write was waiting
+            if (job.cancelled || !job.entryFile(journalDir).exists())
+                return;
+            try {
+                writeEntry(job, json);
+            } catch (IOException e) {
+                Log.e(TAG, String.format("Failed to update journal entry of %s", job.imageId), e);
+            }
+        });
+    }
+
+    /**
+     * Writes a prepared image and its variants to files, then records the upload in the journal.
+     * The journal entry is written last, so every entry has its files.
+     *
+     * @param image The image to upload
+     * @param imageId The ID of the image document
+     * @param prepared The encoded image and its variants
+     * @return The recorded upload
+     * @throws IOException If the files cannot be written
+     * @throws JSONException If the entry cannot be serialized
+     */
+    private Job writeJob(Image image, String imageId, PreparedImage prepared) throws IOException, JSONException {
+        if (!journalDir.isDirectory() && !journalDir.mkdirs()) {
+            throw new IOException("Failed to create upload journal directory");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), imageId, prepared.getContentHash(), image, prepared.getContentType());
+        writeFile(job.dataFile(journalDir), prepared.getData());
+        for (Map.Entry<Integer, byte[]> variant : prepared.getVariants().entrySet()) {
+            writeFile(job.variantFile(journalDir, variant.getKey()), variant.getValue());
+            job.variantSizes.add(variant.getKey());
+        }
+        writeEntry(job, job.toJson().toString());
+        return job;
+    }
+
+    /**
+     * Reads every upload recorded in the journal, oldest first. Unreadable entries are removed.
+     *
+     * @return The recorded uploads
+     */
+    private List<Job> readJournal() {
+        List<Job> restored = new ArrayList<>();
+        File[] entries = journalDir.listFiles((dir, name) -> name.endsWith(".json"));
+        if (entries == null)
+            return restored;
+
+        for (File entry : entries) {
+            StringBuilder json = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new FileReader(entry))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    json.append(line);
+                }
+                restored.add(Job.fromJson(new JSONObject(json.toString())));
+            } catch (IOException | JSONException e) {
+                Log.e(TAG, "Dropping unreadable journal entry " + entry.getName(), e);
+                if (!entry.delete()) {
+                    Log.e(TAG, "Failed to delete journal entry " + entry.getName());
+                }
+            }
+        }
+        restored.sort((a, b) -> Long.compare(a.queuedAt, b.queuedAt));
+        return restored;
+    }
+
+    /**
+     * Replaces a journal entry, writing to a temporary file first so a crash never leaves half an entry.
+     *
+     * @param job The upload
+     * @param json The serialized entry
+     * @throws IOException If the entry cannot be written
+     */
+    private void writeEntry(Job job, String json) throws IOException {
+        File entry = job.entryFile(journalDir);
+        File temp = new File(journalDir, entry.getName() + ".tmp");
+        try (Writer writer = new FileWriter(temp)) {
+            writer.write(json);
+        }
+        if (!temp.renameTo(entry)) {
+            throw new IOException("Failed to replace " + entry.getName());
+        }
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
+
+    /**
+     * One queued upload and the progress it has made. The journal entry holds everything except the live image object.
+     */
+    private static class Job {
+        final String key;
+        final String imageId;
+        final String contentHash;
+        final String imageType;
+        final String imageAssociation;
+        final String uploaderId;
+        final boolean generated;
+        final String contentType;
+        final long queuedAt;
+        final List<Integer> variantSizes = new ArrayList<>();
+
+        // progress, saved in the journal
+        String sessionUri;
+        String imageUrl;
+        final Map<Integer, String> variantUrls = new TreeMap<>();
+        int attempts;
+        // the storage path of the identical stored image whose URLs were taken instead of uploading; null otherwise
+        String reusedPath;
+
+        // state of this process only
+        Image image;
+        UploadTask upload;
+        boolean running;
+        boolean cancelled;
+        long retryAt;
+
+        Job(String key, String imageId, String contentHash, Image image, @Nullable String contentType) {
+            this(key, imageId, contentHash, image.getImageType().toString(), image.getImageAssociation(),
+                    image.getUploaderId(), image.isGenerated(), contentType, System.currentTimeMillis());
+        }
+
+        private Job(String key, String imageId, String contentHash, String imageType, String imageAssociation,
+                    String uploaderId, boolean generated, @Nullable String contentType, long queuedAt) {
+            this.key = key;
+            this.imageId = imageId;
+            this.contentHash = contentHash;
+            this.imageType = imageType;
+            this.imageAssociation = imageAssociation;
+            this.uploaderId = uploaderId;
+            this.generated = generated;
+            this.contentType = contentType;
+            this.queuedAt = queuedAt;
+        }
+
+        File entryFile(File dir) {
+            return new File(dir, key + ".json");
+        }
+
+        File dataFile(File dir) {
+            return new File(dir, key + ".data");
+        }
+
+        File variantFile(File dir, int size) {
+            return new File(dir, key + "_" + size + ".data");
+        }
+
+        /**
+         * Gets the storage path of the original file. An upload writes to a path no other upload uses,
+         * unless it shares a stored file, whose missing variants it then writes next to that file.
+         *
+         * @return The path of the original file
+         */
+        String storagePath() {
+            return reusedPath != null ? reusedPath : ImageRepository.blobPath(contentHash) + "/" + key;
+        }
+
+        void deleteFiles(File dir) {
+            List<File> files = new ArrayList<>(Arrays.asList(entryFile(dir), dataFile(dir)));
+            for (int size : variantSizes) {
+                files.add(variantFile(dir, size));
+            }
+            for (File file : files) {
+                if (file.exists() && !file.delete()) {
+                    Log.w(TAG, "Failed to delete " + file.getName());
+                }
+            }
+        }
+
+        @Nullable
+        StorageMetadata metadata() {
+            if (contentType == null)
+                return null;
+
+            return new StorageMetadata.Builder().setContentType(contentType).build();
+        }
+
+        /**
+         * Recreates the image of an upload restored from the journal.
+         *
+         * @return The image to store
+         */
+        Image restoreImage() {
+            Image restored = new Image(uploaderId, imageAssociation);
+            restored.setImageType(ImageType.valueOf(imageType));
+            restored.setGenerated(generated);
+            return restored;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject variants = new JSONObject();
+            for (Map.Entry<Integer, String> url : variantUrls.entrySet()) {
+                variants.put(String.valueOf(url.getKey()), url.getValue());
+            }
+
+            return new JSONObject()
+                    .put("key", key)
+                    .put("imageId", imageId)
+                    .put("contentHash", contentHash)
+                    .put("imageType", imageType)
+                    .put("imageAssociation", imageAssociation)
+                    .put("uploaderId", uploaderId)
+                    .put("generated", generated)
+                    .put("contentType", contentType)
+                    .put("queuedAt", queuedAt)
+                    .put("variantSizes", new JSONArray(variantSizes))
+                    .put("sessionUri", sessionUri)
+                    .put("imageUrl", imageUrl)
+                    .put("variantUrls", variants)
+                    .put("attempts", attempts)
+                    .put("reusedPath", reusedPath);
+        }
+
+        static Job fromJson(JSONObject json) throws JSONException {
+            Job job = new Job(
+                    json.getString("key"),
+                    json.getString("imageId"),
+                    json.getString("contentHash"),
+                    json.getString("imageType"),
+                    json.getString("imageAssociation"),
+                    json.getString("uploaderId"),
+                    json.getBoolean("generated"),
+                    json.optString("contentType", null),
+                    json.getLong("queuedAt"));
+
+            JSONArray sizes = json.getJSONArray("variantSizes");
+            for (int i = 0; i < sizes.length(); i++) {
+                job.variantSizes.add(sizes.getInt(i));
+            }
+            job.sessionUri = json.optString("sessionUri", null);
+            job.imageUrl = json.optString("imageUrl", null);
+            JSONObject variants = json.getJSONObject("variantUrls");
+            for (int size : job.variantSizes) {
+                if (variants.has(String.valueOf(size))) {
+                    job.variantUrls.put(size, variants.getString(String.valueOf(size)));
+                }
+            }
+            job.attempts = json.getInt("attempts");
+            job.reusedPath = json.optString("reusedPath", null);
+            return job;
+        }
+    }
+
+    /**
+     * Thrown when the stored file an upload meant to share was released before the upload was recorded.
+     */
+    private static class BlobReleasedException extends RuntimeException {
+        BlobReleasedException(String contentHash) {
+            super("Stored file " + contentHash + " was released");
+        }
+    }
+}
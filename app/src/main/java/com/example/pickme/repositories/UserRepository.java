@@ -2,31 +2,62 @@ package com.example.pickme.repositories;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import com.example.pickme.models.Image;
 import com.example.pickme.models.User;
+import com.example.pickme.utils.UserNotification;
 import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Handles interactions with the users collection in our Firebase Firestore.
  * <p>
  * Responsibilities:
  * - CRUD operations for user data based on DeviceID
+ * - Reading and writing each user's inbox, stored under users/{deviceId}/inbox
+ * - Pointing users at their profile pictures once they are uploaded
  *
- * @version 1.2
+ * @version 1.7
  */
 public class UserRepository {
+    private static final int USER_CACHE_SIZE = 500;
+    private static final long USER_CACHE_TTL_MS = 60_000;
+    private static final String INBOX_COLLECTION = "inbox";
+    private static final String LEGACY_NOTIFICATIONS_FIELD = "userNotifications";
+    public static final int INBOX_PAGE_SIZE = 20;
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int MAX_IN_QUERY = 30;
+    private static final String NOTIFICATIONS_COLLECTION = "notifications";
+
     private final FirebaseFirestore db;
     private final FirebaseAuth auth;
     private static CollectionReference usersRef;
+    private static DocumentBatchLoader userLoader;
 
     private static UserRepository instance;
 
@@ -46,6 +77,7 @@ public class UserRepository {
 
         // Initializes usersRef after proper assignment.
         this.usersRef = db.collection("users");
+        userLoader = new DocumentBatchLoader(usersRef, USER_CACHE_SIZE, USER_CACHE_TTL_MS);
     }
 
     /**
@@ -59,6 +91,7 @@ public class UserRepository {
         this.db = db;
         this.auth = auth;
         this.usersRef = usersRef;
+        userLoader = new DocumentBatchLoader(usersRef, USER_CACHE_SIZE, USER_CACHE_TTL_MS);
     }
 
     /**
@@ -72,7 +105,12 @@ public class UserRepository {
             Log.e("UserRepository", "DeviceID is required for fetching a user.");
             return;
         }
-        usersRef.document(deviceId).get().addOnCompleteListener(onCompleteListener);
+        usersRef.document(deviceId).get().addOnCompleteListener(task -> {
+            if (task.isSuccessful() && task.getResult() != null && task.getResult().contains(LEGACY_NOTIFICATIONS_FIELD)) {
+                migrateLegacyInbox(task.getResult());
+            }
+            onCompleteListener.onComplete(task);
+        });
     }
 
     /**
@@ -96,26 +134,18 @@ public class UserRepository {
             if (task.isSuccessful()) {
                 String userAuthId = Objects.requireNonNull(task.getResult().getUser()).getUid();
 
-                // Creates the User object
-                String last_initial = !lastName.isEmpty()? String.valueOf(lastName.charAt(0)) : "";
-                String initials = firstName.charAt(0) + last_initial;
-                Image newImage = new Image(deviceId, deviceId);
-                newImage.generate(initials, task1 -> {
-                    if (task1.isSuccessful()) {
-                        newImage.setImageUrl(task1.getResult().getImageUrl());
-                        User newUser = new User(this, userAuthId, firstName, lastName, email, contact, newImage.getImageUrl(), false, deviceId, true, false, true);
-                        newUser.signup(firstName, lastName);
-                        User.setInstance(newUser);
-
-                        // Save user data to Firestore using DeviceID as the document ID
-                        FirebaseMessaging.getInstance().getToken().addOnCompleteListener(task2 -> {
-                            newUser.setRegToken(task2.getResult());
-                            db.collection("users").document(deviceId)  // set the user document ID to the deviceId
-                                    .set(newUser)
-                                    .addOnSuccessListener(aVoid -> callback.onSuccess(newUser))
-                                    .addOnFailureListener(e -> callback.onFailure("Failed to save user data: " + e.getMessage()));
-                        });
-                    }
+                // Creates the User object; without a profile picture the initials are drawn on the device
+                User newUser = new User(this, userAuthId, firstName, lastName, email, contact, null, false, deviceId, true, false, true);
+                newUser.signup(firstName, lastName);
+                User.setInstance(newUser);
+
+                // Save user data to Firestore using DeviceID as the document ID
+                FirebaseMessaging.getInstance().getToken().addOnCompleteListener(task2 -> {
+                    newUser.setRegToken(task2.getResult());
+                    db.collection("users").document(deviceId)  // set the user document ID to the deviceId
+                            .set(newUser)
+                            .addOnSuccessListener(aVoid -> callback.onSuccess(newUser))
+                            .addOnFailureListener(e -> callback.onFailure("Failed to save user data: " + e.getMessage()));
                 });
 
             } else {
@@ -145,12 +175,40 @@ public class UserRepository {
 //            updates.put("notificationEnabled", user.isNotificationEnabled());
 //            updates.put("profilePictureUrl", user.getProfilePictureUrl());
 
+        // merged, so fields the User object does not map, like an inbox not migrated yet, are kept
+        userLoader.invalidate(user.getDeviceId());
         usersRef.document(user.getDeviceId())
-                .set(user)
+                .set(user, SetOptions.merge())
                 .addOnCompleteListener(onCompleteListener)
                 .addOnFailureListener(e -> Log.e("UserRepository", "Failed to update user data in Firestore", e));
     }
 
+    /**
+     * Points a user at their uploaded profile picture.
+     *
+     * @param deviceId The device ID of the user
+     * @param picture The stored profile picture
+     * @return Task that completes once the user is updated, or right away if the user was deleted
+     */
+    Task<Void> attachProfilePicture(@NonNull String deviceId, @NonNull Image picture) {
+        userLoader.invalidate(deviceId);
+        return usersRef.document(deviceId)
+                .update("profilePictureUrl", picture.getImageUrl(),
+                        "profilePictureThumbnailUrl", picture.getThumbnailUrl())
+                .continueWithTask(task -> {
+                    Exception e = task.getException();
+                    if (e instanceof FirebaseFirestoreException
+                            && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.NOT_FOUND) {
+                        Log.d("UserRepository", "attachProfilePicture: User " + deviceId + " no longer exists");
+                        return Tasks.forResult(null);
+                    }
+                    if (e != null) {
+                        Log.w("UserRepository", "attachProfilePicture: Failed to attach picture to " + deviceId, e);
+                    }
+                    return task;
+                });
+    }
+
     /**
      * Deletes a user from the Firestore database.
      *
@@ -162,6 +220,7 @@ public class UserRepository {
             return;
         }
 
+        userLoader.invalidate(deviceId);
         usersRef.document(deviceId)
                 .delete()
                 .addOnSuccessListener(aVoid -> Log.d("UserRepository", "User deleted successfully"))
@@ -169,29 +228,56 @@ public class UserRepository {
     }
 
     /**
-     * Fetches all users from the Firestore database.
+     * Fetches one page of users, ordered by device ID.
+     * Loaded users are added to the user cache.
      *
+     * @param pageSize           The maximum number of users to return
+     * @param startAfter         The cursor of the previous page, or null for the first page
      * @param onCompleteListener Listener to handle the completion of the task
      */
-    public void getAllUsers(OnCompleteListener<QuerySnapshot> onCompleteListener) {
-        usersRef.get().addOnCompleteListener(onCompleteListener);
+    public void getUsersPage(int pageSize, @Nullable DocumentSnapshot startAfter, OnCompleteListener<Page<User>> onCompleteListener) {
+        Query query = usersRef.orderBy(FieldPath.documentId()).limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+
+        query.get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
+                return;
+            }
+
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            List<User> users = new ArrayList<>();
+            for (DocumentSnapshot document : documents) {
+                userLoader.prime(document.getId(), document);
+                User user = document.toObject(User.class);
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+
+            DocumentSnapshot cursor = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+            onCompleteListener.onComplete(Tasks.forResult(new Page<>(users, cursor, documents.size() == pageSize)));
+        });
     }
 
     /**
      * Fetches a user by their device ID (same as the document ID).
+     * Requests made close together are batched into a single query, and recently loaded users are served from cache.
      *
      * @param deviceId           The device ID of the user
-     * @param onCompleteListener Listener to handle the completion of the task
+     * @param onCompleteListener Listener to handle the completion of the task; the result is null if the user does not exist
      */
     public void getUserByDeviceId(String deviceId, OnCompleteListener<User> onCompleteListener) {
         if (deviceId == null || deviceId.isEmpty()) {
             Log.e("UserRepository", "User ID is required for fetching a user.");
             return;
         }
-        usersRef.document(deviceId).get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
+        userLoader.load(deviceId, task -> {
+            if (task.isSuccessful()) {
                 DocumentSnapshot document = task.getResult();
-                User user = document.toObject(User.class);
+                User user = document != null ? document.toObject(User.class) : null;
                 onCompleteListener.onComplete(Tasks.forResult(user));
             } else {
                 onCompleteListener.onComplete(Tasks.forException(task.getException()));
@@ -199,6 +285,256 @@ public class UserRepository {
         });
     }
 
+    /**
+     * Fetches several users by their device IDs in as few queries as possible.
+     *
+     * @param deviceIds          The device IDs of the users
+     * @param onCompleteListener Listener to handle the completion of the task; users that do not exist are left out, the rest keep the order of deviceIds
+     */
+    public void getUsersByDeviceIds(List<String> deviceIds, OnCompleteListener<List<User>> onCompleteListener) {
+        deviceIds = deviceIds.stream()
+                .filter(id -> id != null && !id.isEmpty())
+                .collect(Collectors.toList());
+
+        if (deviceIds.isEmpty()) {
+            onCompleteListener.onComplete(Tasks.forResult(new ArrayList<>()));
+            return;
+        }
+
+        User[] users = new User[deviceIds.size()];
+        int[] remaining = {deviceIds.size()};
+        Exception[] failure = {null};
+
+        for (int i = 0; i < deviceIds.size(); i++) {
+            int index = i;
+            getUserByDeviceId(deviceIds.get(i), task -> {
+                if (task.isSuccessful()) {
+                    users[index] = task.getResult();
+                } else {
+                    failure[0] = task.getException();
+                }
+
+                if (--remaining[0] > 0)
+                    return;
+
+                if (failure[0] != null) {
+                    onCompleteListener.onComplete(Tasks.forException(failure[0]));
+                    return;
+                }
+
+                List<User> result = new ArrayList<>();
+                for (User user : users) {
+                    if (user != null)
+                        result.add(user);
+                }
+                onCompleteListener.onComplete(Tasks.forResult(result));
+            });
+        }
+    }
+
+    /**
+     * Gets the reference to a user's inbox subcollection.
+     *
+     * @param deviceId The device ID of the user
+     * @return The inbox collection reference
+     */
+    private CollectionReference inboxRef(String deviceId) {
+        return usersRef.document(deviceId).collection(INBOX_COLLECTION);
+    }
+
+    /**
+     * Retrieves a page of a user's inbox, newest first.
+     *
+     * @param deviceId           The device ID of the user
+     * @param pageSize           The maximum number of inbox entries to return
+     * @param startAfter         The last inbox document of the previous page, or null for the first page
+     * @param onCompleteListener Listener to handle the completion of the task
+     */
+    public void getInboxPage(@NonNull String deviceId, int pageSize, @Nullable DocumentSnapshot startAfter, OnCompleteListener<QuerySnapshot> onCompleteListener) {
+        Query query = inboxRef(deviceId).orderBy("timestamp", Query.Direction.DESCENDING).limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+        query.get().addOnCompleteListener(onCompleteListener);
+    }
+
+    /**
+     * Listens for entries delivered to a user's inbox after a given time, newest first.
+     *
+     * @param deviceId The device ID of the user
+     * @param after    Only entries delivered after this time are returned
+     * @param limit    The maximum number of entries kept in the listener's window
+     * @param listener Listener receiving the inbox snapshots
+     * @return Registration to stop listening
+     */
+    public ListenerRegistration listenToInbox(@NonNull String deviceId, @NonNull Timestamp after, int limit, EventListener<QuerySnapshot> listener) {
+        return inboxRef(deviceId).whereGreaterThan("timestamp", after)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(limit)
+                .addSnapshotListener(listener);
+    }
+
+    /**
+     * Creates or updates a single entry of a user's inbox, e.g. to change its read state.
+     *
+     * @param deviceId           The device ID of the user
+     * @param userNotification   The inbox entry
+     * @param onCompleteListener Listener to handle the completion of the task
+     */
+    public void updateInboxEntry(@NonNull String deviceId, @NonNull UserNotification userNotification, OnCompleteListener<Void> onCompleteListener) {
+        inboxRef(deviceId).document(userNotification.getNotificationID())
+                .set(userNotification)
+                .addOnCompleteListener(onCompleteListener)
+                .addOnFailureListener(e -> Log.e("UserRepository", "Failed to update inbox entry", e));
+    }
+
+    /**
+     * Removes entries from a user's inbox in batches.
+     *
+     * @param deviceId           The device ID of the user
+     * @param notificationIds    The notification IDs of the entries to remove
+     * @param onCompleteListener Listener to handle the completion of the task
+     */
+    public void removeInboxEntries(@NonNull String deviceId, @NonNull List<String> notificationIds, OnCompleteListener<Void> onCompleteListener) {
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+
+        for (String notificationId : notificationIds) {
+            batch.delete(inboxRef(deviceId).document(notificationId));
+            if (++writes == MAX_BATCH_WRITES) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+
+        if (writes > 0) {
+            commits.add(batch.commit());
+        }
+
+        Tasks.whenAll(commits).addOnCompleteListener(onCompleteListener);
+    }
+
+    /**
+     * Delivers a notification to the inboxes of several users in batches.
+     * Each user only gets a small inbox document; their user document is not read or rewritten.
+     *
+     * @param deviceIds          The device IDs of the recipients
+     * @param userNotification   The inbox entry to deliver
+     * @param onCompleteListener Listener to handle the completion of the task
+     */
+    public void deliverToInboxes(@NonNull List<String> deviceIds, @NonNull UserNotification userNotification, OnCompleteListener<Void> onCompleteListener) {
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+
+        for (String deviceId : deviceIds) {
+            batch.set(inboxRef(deviceId).document(userNotification.getNotificationID()), userNotification);
+            if (++writes == MAX_BATCH_WRITES) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+
+        if (writes > 0) {
+            commits.add(batch.commit());
+        }
+
+        Tasks.whenAll(commits).addOnCompleteListener(onCompleteListener);
+    }
+
+    /**
+     * Moves the notifications still embedded in a user document into the user's inbox subcollection,
+     * then removes the embedded array.
+     * Each entry keeps the time its notification was sent, so the migrated entries are older than the
+     * last notification seen and are not announced again.
+     *
+     * @param document The user document containing the legacy array
+     */
+    private void migrateLegacyInbox(DocumentSnapshot document) {
+        String deviceId = document.getId();
+        User user = document.toObject(User.class);
+        Object legacy = document.get(LEGACY_NOTIFICATIONS_FIELD);
+        if (user == null || !(legacy instanceof List)) {
+            return;
+        }
+
+        List<UserNotification> entries = new ArrayList<>();
+        for (Object item : (List<?>) legacy) {
+            if (!(item instanceof Map))
+                continue;
+
+            Map<?, ?> map = (Map<?, ?>) item;
+            Object notificationId = map.get("notificationID");
+            if (notificationId == null)
+                continue;
+
+            entries.add(new UserNotification(notificationId.toString(), Boolean.TRUE.equals(map.get("read"))));
+        }
+
+        List<Task<QuerySnapshot>> lookups = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i += MAX_IN_QUERY) {
+            List<String> ids = new ArrayList<>();
+            for (UserNotification entry : entries.subList(i, Math.min(i + MAX_IN_QUERY, entries.size()))) {
+                ids.add(entry.getNotificationID());
+            }
+            lookups.add(db.collection(NOTIFICATIONS_COLLECTION).whereIn(FieldPath.documentId(), ids).get());
+        }
+
+        Tasks.<QuerySnapshot>whenAllSuccess(lookups).addOnCompleteListener(lookupTask -> {
+            if (!lookupTask.isSuccessful() || lookupTask.getResult() == null) {
+                Log.e("UserRepository", "Failed to look up inbox of user " + deviceId, lookupTask.getException());
+                return;
+            }
+
+            Map<String, Timestamp> sentAt = new HashMap<>();
+            for (QuerySnapshot chunk : lookupTask.getResult()) {
+                for (DocumentSnapshot notification : chunk.getDocuments()) {
+                    Timestamp timestamp = notification.getTimestamp("timestamp");
+                    if (timestamp != null)
+                        sentAt.put(notification.getId(), timestamp);
+                }
+            }
+
+            // entries whose notification is gone keep their list order at the start of the epoch
+            for (int i = 0; i < entries.size(); i++) {
+                Timestamp timestamp = sentAt.get(entries.get(i).getNotificationID());
+                entries.get(i).setTimestamp(timestamp != null ? timestamp : new Timestamp(i + 1, 0));
+            }
+            writeMigratedInbox(deviceId, entries);
+        });
+    }
+
+    /**
+     * Writes migrated inbox entries in batches, then removes the embedded array from the user document.
+     *
+     * @param deviceId The device ID of the user
+     * @param entries  The migrated inbox entries
+     */
+    private void writeMigratedInbox(String deviceId, List<UserNotification> entries) {
+        List<Task<Void>> commits = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = db.batch();
+            for (UserNotification entry : entries.subList(i, Math.min(i + MAX_BATCH_WRITES, entries.size()))) {
+                batch.set(inboxRef(deviceId).document(entry.getNotificationID()), entry);
+            }
+            commits.add(batch.commit());
+        }
+
+        Tasks.whenAll(commits).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e("UserRepository", "Failed to migrate inbox of user " + deviceId, task.getException());
+                return;
+            }
+
+            userLoader.invalidate(deviceId);
+            usersRef.document(deviceId).update(LEGACY_NOTIFICATIONS_FIELD, FieldValue.delete())
+                    .addOnSuccessListener(aVoid -> Log.i("UserRepository", "Migrated inbox of user " + deviceId));
+        });
+    }
+
     /**
      * Checks if a user exists in the Firestore database by their device ID.
      *
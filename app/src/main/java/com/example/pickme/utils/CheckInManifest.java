@@ -0,0 +1,94 @@
+package com.example.pickme.utils;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The entrants allowed into an event and the ones already checked in.
+ * Both are hash sets, so validating a scan is a constant-time local lookup with no network access.
+ *
+ * @version 1.0
+ */
+public class CheckInManifest {
+
+    /**
+     * Outcome of validating a scanned entrant against the manifest.
+     */
+    public enum Result {
+        /**
+         * The entrant accepted the invitation and is now checked in.
+         */
+        ADMITTED,
+
+        /**
+         * The entrant accepted the invitation but has already been checked in.
+         */
+        ALREADY_CHECKED_IN,
+
+        /**
+         * The entrant is not on the accepted list of the event.
+         */
+        NOT_ACCEPTED
+    }
+
+    private final String eventId;
+    private final Set<String> acceptedIds;
+    private final Set<String> checkedInIds;
+
+    /**
+     * Creates a manifest for an event.
+     *
+     * @param eventId The ID of the event.
+     * @param acceptedIds Device IDs of the entrants that accepted their invitation.
+     * @param checkedInIds Device IDs of the entrants already checked in.
+     */
+    public CheckInManifest(String eventId, Collection<String> acceptedIds, Collection<String> checkedInIds) {
+        this.eventId = eventId;
+        this.acceptedIds = new HashSet<>(acceptedIds);
+        this.checkedInIds = new HashSet<>(checkedInIds);
+    }
+
+    /**
+     * Validates a scanned entrant and checks them in if they are admitted.
+     *
+     * @param entrantId The device ID of the scanned entrant.
+     * @return Whether the entrant was admitted, and why not otherwise.
+     */
+    public Result checkIn(String entrantId) {
+        if (!acceptedIds.contains(entrantId)) {
+            return Result.NOT_ACCEPTED;
+        }
+        if (!checkedInIds.add(entrantId)) {
+            return Result.ALREADY_CHECKED_IN;
+        }
+        return Result.ADMITTED;
+    }
+
+    /**
+     * Gets the ID of the event the manifest belongs to.
+     *
+     * @return The event ID.
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Gets the number of entrants allowed into the event.
+     *
+     * @return The number of accepted entrants.
+     */
+    public int getAcceptedCount() {
+        return acceptedIds.size();
+    }
+
+    /**
+     * Gets the number of entrants checked in so far.
+     *
+     * @return The number of checked-in entrants.
+     */
+    public int getCheckedInCount() {
+        return checkedInIds.size();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.pickme.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.pickme.models.Enums.EntrantStatus;
+import com.example.pickme.repositories.EventRepository;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Check-in at an event's entrance that keeps working without a connection.
+ * <p>
+ * Responsibilities:
+ * - Downloads the event's accepted and already checked-in entrants once and keeps them on the device as a manifest
+ * - Validates scans against the manifest locally
+ * - Appends every check-in to a log file on the device, so none are lost if the app is closed
+ * - Uploads the log to the entrant documents in batches, picking up where the last upload stopped
+ *
+ * @version 1.1
+ */
+public class CheckInSession {
+    private static final String TAG = "CheckIn";
+    private static final String PREFS_NAME = "checkIn";
+    private static final String MANIFEST_PREFIX = "manifest_";
+    private static final String CHECKED_IN_PREFIX = "checkedIn_";
+    private static final String SYNCED_PREFIX = "synced_";
+    private static final String LOG_DIR = "checkIns";
+    private static final long SYNC_DELAY_MS = 5_000;
+    private static final int MAX_SYNC_RECORDS = 500;
+
+    private final String eventId;
+    private final SharedPreferences prefs;
+    private final File logFile;
+    private final CheckInManifest manifest;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Every check-in in the log, in order; the first syncedCount have been uploaded
+    private final List<String> loggedIds = new ArrayList<>();
+    private final List<Long> loggedTimes = new ArrayList<>();
+    private int syncedCount;
+    private boolean syncing = false;
+    private boolean syncScheduled = false;
+
+    /**
+     * Opens a check-in session for an event. The accepted entrants, and those checked in by any device,
+     * are downloaded when possible, otherwise the manifest stored by an earlier session is used.
+     *
+     * @param context Context used to access the stored manifest and log.
+     * @param eventId The ID of the event.
+     * @param onCompleteListener Called with the session, or with an error if no manifest is available.
+     */
+    public static void open(@NonNull Context context, @NonNull String eventId, OnCompleteListener<CheckInSession> onCompleteListener) {
+        Context appContext = context.getApplicationContext();
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+        EventRepository.getInstance().getEntrantIdsByStatus(eventId, EntrantStatus.ACCEPTED, task -> {
+            Set<String> acceptedIds;
+            if (task.isSuccessful() && task.getResult() != null) {
+                acceptedIds = new HashSet<>(task.getResult());
+                prefs.edit().putStringSet(MANIFEST_PREFIX + eventId, acceptedIds).apply();
+            } else {
+                acceptedIds = prefs.getStringSet(MANIFEST_PREFIX + eventId, null);
+                if (acceptedIds == null) {
+                    Log.e(TAG, "No manifest available for event " + eventId, task.getException());
+                    onCompleteListener.onComplete(Tasks.forException(new IllegalStateException("Check-in list could not be downloaded")));
+                    return;
+                }
+                Log.w(TAG, "Using stored manifest for event " + eventId, task.getException());
+            }
+
+            EventRepository.getInstance().getCheckedInEntrantIds(eventId, checkedInTask -> {
+                Set<String> checkedInIds;
+                if (checkedInTask.isSuccessful() && checkedInTask.getResult() != null) {
+                    checkedInIds = new HashSet<>(checkedInTask.getResult());
+                    prefs.edit().putStringSet(CHECKED_IN_PREFIX + eventId, checkedInIds).apply();
+                } else {
+                    Log.w(TAG, "Using stored check-ins for event " + eventId, checkedInTask.getException());
+                    checkedInIds = prefs.getStringSet(CHECKED_IN_PREFIX + eventId, Collections.emptySet());
+                }
+
+                CheckInSession session = new CheckInSession(appContext, prefs, eventId, acceptedIds, checkedInIds);
+                onCompleteListener.onComplete(Tasks.forResult(session));
+                session.sync();
+            });
+        });
+    }
+
+    /**
+     * Creates a session from a manifest and the check-ins already in the log.
+     *
+     * @param context Application context.
+     * @param prefs Preferences holding the manifest and upload progress.
+     * @param eventId The ID of the event.
+     * @param acceptedIds Device IDs of the entrants that accepted their invitation.
+     * @param checkedInIds Device IDs of the entrants whose check-in has been uploaded.
+     */
+    private CheckInSession(Context context, SharedPreferences prefs, String eventId, Set<String> acceptedIds, Set<String> checkedInIds) {
+        this.eventId = eventId;
+        this.prefs = prefs;
+
+        File logDir = new File(context.getFilesDir(), LOG_DIR);
+        if (!logDir.isDirectory() && !logDir.mkdirs()) {
+            Log.e(TAG, "Failed to create check-in log directory");
+        }
+        this.logFile = new File(logDir, eventId + ".log");
+        readLog();
+
+        this.syncedCount = Math.min(prefs.getInt(SYNCED_PREFIX + eventId, 0), loggedIds.size());
+        Set<String> allCheckedInIds = new HashSet<>(checkedInIds);
+        allCheckedInIds.addAll(loggedIds);
+        this.manifest = new CheckInManifest(eventId, acceptedIds, allCheckedInIds);
+    }
+
+    /**
+     * Validates a scanned entrant and records the check-in if they are admitted.
+     * The upload is delayed briefly so check-ins in quick succession go up together.
+     *
+     * @param entrantId The device ID of the scanned entrant.
+     * @return Whether the entrant was admitted, and why not otherwise.
+     */
+    public CheckInManifest.Result checkIn(String entrantId) {
+        CheckInManifest.Result result = manifest.checkIn(entrantId);
+        if (result != CheckInManifest.Result.ADMITTED) {
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        loggedIds.add(entrantId);
+        loggedTimes.add(now);
+        appendToLog(entrantId, now);
+
+        if (!syncScheduled) {
+            syncScheduled = true;
+            handler.postDelayed(() -> {
+                syncScheduled = false;
+                sync();
+            }, SYNC_DELAY_MS);
+        }
+        return result;
+    }
+
+    /**
+     * Uploads the check-ins that have not been uploaded yet, in batches.
+     * Does nothing if an upload is already running; call again once connectivity returns.
+     */
+    public void sync() {
+        if (syncing || syncedCount >= loggedIds.size()) {
+            return;
+        }
+        syncing = true;
+
+        int end = Math.min(syncedCount + MAX_SYNC_RECORDS, loggedIds.size());
+        Map<String, Long> checkInTimes = new LinkedHashMap<>();
+        for (int i = syncedCount; i < end; i++) {
+            checkInTimes.put(loggedIds.get(i), loggedTimes.get(i));
+        }
+
+        EventRepository.getInstance().recordCheckIns(eventId, checkInTimes, task -> {
+            syncing = false;
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Failed to upload check-ins, keeping them for the next sync", task.getException());
+                return;
+            }
+
+            syncedCount = end;
+            prefs.edit().putInt(SYNCED_PREFIX + eventId, syncedCount).apply();
+            Log.d(TAG, "Uploaded " + checkInTimes.size() + " check-ins for event " + eventId);
+            sync();
+        });
+    }
+
+    /**
+     * Stops any pending delayed upload. Check-ins that were not uploaded stay in the log.
+     */
+    public void close() {
+        handler.removeCallbacksAndMessages(null);
+        syncScheduled = false;
+    }
+
+    /**
+     * Gets the manifest the session validates against.
+     *
+     * @return The manifest.
+     */
+    public CheckInManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Gets the number of check-ins not uploaded yet.
+     *
+     * @return The number of pending check-ins.
+     */
+    public int getPendingCount() {
+        return loggedIds.size() - syncedCount;
+    }
+
+    /**
+     * Reads the check-ins recorded by earlier sessions from the log file.
+     */
+    private void readLog() {
+        if (!logFile.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length != 2) {
+                    continue;
+                }
+                try {
+                    loggedTimes.add(Long.parseLong(fields[1]));
+                    loggedIds.add(fields[0]);
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Skipping malformed check-in record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read check-in log", e);
+        }
+    }
+
+    /**
+     * Appends a check-in to the log file.
+     *
+     * @param entrantId The device ID of the entrant.
+     * @param time The check-in time in milliseconds.
+     */
+    private void appendToLog(String entrantId, long time) {
+        try (Writer writer = new FileWriter(logFile, true)) {
+            writer.write(entrantId + "\t" + time + "\n");
+        } catch (IOException e) {
+            // The check-in is still uploaded from memory by this session
+            Log.e(TAG, "Failed to append check-in to log", e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.pickme.utils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.example.pickme.models.Event;
 import com.example.pickme.repositories.EventRepository;
@@ -19,7 +20,9 @@ import com.google.firebase.firestore.DocumentSnapshot;
 public class EventFetcher {
 
     private static final String TAG = "EventFetcher";
+    private static final String EVENT_PREFIX = "/events/";
     private final EventRepository eventRepository;
+    private final QrEventIndex qrEventIndex;
 
     /**
      * Constructs an instance of EventFetcher with the specified {@link EventRepository}.
@@ -27,13 +30,25 @@ public class EventFetcher {
      * @param eventRepository The repository to fetch event details.
      */
     public EventFetcher(EventRepository eventRepository) {
+        this(eventRepository, null);
+    }
+
+    /**
+     * Constructs an instance of EventFetcher that resolves known QR codes through a {@link QrEventIndex}.
+     *
+     * @param eventRepository The repository to fetch event details.
+     * @param qrEventIndex    The QR to event map, or null to always read the QR document.
+     */
+    public EventFetcher(EventRepository eventRepository, @Nullable QrEventIndex qrEventIndex) {
         this.eventRepository = eventRepository;
+        this.qrEventIndex = qrEventIndex;
     }
 
     /**
      * Fetches the {@link Event} object associated with the given QR ID.
-     * The method first retrieves the QR document to extract the associated event ID
-     * and then fetches the event details using the extracted event ID.
+     * For a QR code already in the QR event index, the event is read right away, while the QR document
+     * is read alongside it to confirm the code was not regenerated since; otherwise the QR document
+     * is read by ID to extract the associated event ID, and the event details are fetched with it.
      *
      * @param qrID     The QR ID to look up in the database. Must not be null or empty.
      * @param callback Callback interface to handle the result or error.
@@ -44,12 +59,19 @@ public class EventFetcher {
             return;
         }
 
+        String knownEventID = qrEventIndex != null ? qrEventIndex.getEventId(qrID) : null;
+        if (knownEventID != null) {
+            Log.d(TAG, "Resolved QR ID " + qrID + " from index to Event ID: " + knownEventID);
+            fetchVerifiedEvent(qrID, knownEventID, callback);
+            return;
+        }
+
         Log.d(TAG, "Fetching QR document for QR ID: " + qrID);
 
         // Use the repository method to fetch the QR document by QR ID
         QrRepository.getInstance().readQRByID(qrID).addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null && !task.getResult().isEmpty()) {
-                DocumentSnapshot document = task.getResult().getDocuments().get(0);
+            if (task.isSuccessful() && task.getResult() != null && task.getResult().exists()) {
+                DocumentSnapshot document = task.getResult();
 
                 // Log the raw QR document data for debugging
                 Log.d(TAG, "Raw QR Code Document: " + document.getData());
@@ -60,6 +82,9 @@ public class EventFetcher {
                     String eventID = qrReference.replace("/events/", "");
                     Log.d(TAG, "Extracted Event ID: " + eventID);
 
+                    if (qrEventIndex != null)
+                        qrEventIndex.put(qrID, eventID);
+
                     // Use the event ID to fetch the event details
                     fetchEventById(eventID, callback);
                 } else {
@@ -73,13 +98,57 @@ public class EventFetcher {
         });
     }
 
+    /**
+     * Fetches the {@link Event} a QR code is expected to belong to, reading the QR document in parallel
+     * to confirm it still exists and belongs to that event. A code whose QR document was deleted, e.g.
+     * because the organizer regenerated it, is rejected and dropped from the QR event index.
+     *
+     * @param qrID     The QR ID of the scanned code.
+     * @param eventID  The event ID the code is expected to belong to.
+     * @param callback Callback interface to handle the result or error.
+     */
+    public void fetchVerifiedEvent(String qrID, String eventID, EventCallback callback) {
+        Task<DocumentSnapshot> qrRead = QrRepository.getInstance().readQRByID(qrID);
+
+        fetchEventById(eventID, new EventCallback() {
+            @Override
+            public void onEventFetched(Event event) {
+                qrRead.addOnCompleteListener(task -> {
+                    if (!task.isSuccessful() || task.getResult() == null) {
+                        Log.e(TAG, "Error fetching QR document", task.getException());
+                        callback.onError("Error fetching QR document");
+                        return;
+                    }
+
+                    String qrReference = task.getResult().getString("qrAssociation");
+                    if (!task.getResult().exists() || !(EVENT_PREFIX + eventID).equals(qrReference)) {
+                        Log.w(TAG, "QR ID " + qrID + " no longer belongs to Event ID: " + eventID);
+                        if (qrEventIndex != null)
+                            qrEventIndex.remove(qrID);
+                        callback.onError("This QR code is no longer valid");
+                        return;
+                    }
+
+                    if (qrEventIndex != null)
+                        qrEventIndex.put(qrID, eventID);
+                    callback.onEventFetched(event);
+                });
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
     /**
      * Fetches the {@link Event} object associated with the given event ID.
      *
      * @param eventID  The event ID to look up in the database. Must not be null or empty.
      * @param callback Callback interface to handle the result or error.
      */
-    private void fetchEventById(String eventID, EventCallback callback) {
+    public void fetchEventById(String eventID, EventCallback callback) {
         Log.d(TAG, "Fetching event details for Event ID: " + eventID);
 
         eventRepository.getEventById(eventID, new OnCompleteListener<Event>() {
@@ -11,22 +11,30 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.example.pickme.R;
 import com.example.pickme.models.Image;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Custom adapter for images in GridViews using Glide.
  * This adapter is used to display images in a grid view by loading them from URLs using Glide.
+ * It also provides the images ahead of the visible tiles to a {@link ListPreloader}.
  *
- * @version 1.0
+ * @version 1.2
  */
-public class GalleryAdapter extends ArrayAdapter<Image> {
+public class GalleryAdapter extends ArrayAdapter<Image> implements ListPreloader.PreloadModelProvider<Image> {
 
     private final Context context;
     private final LayoutInflater inflater;
     private final ArrayList<Image> images;
+    // Takes the tile size from the first tile laid out, so preloads match the loads of visible tiles
+    private final ViewPreloadSizeProvider<Image> sizeProvider = new ViewPreloadSizeProvider<>();
 
     /**
      * Constructor for GalleryAdapter.
@@ -70,14 +78,47 @@ public class GalleryAdapter extends ArrayAdapter<Image> {
         }
 
         ImageView iv = convertView.findViewById(R.id.gallery_imageview);
-        Image i = images.get(position);
-        Glide
-                .with(context)
-                .load(i.getImageUrl())
-                .error(R.drawable.ic_disabled)
-                .into(iv);
+        sizeProvider.setView(iv);
+        // the image loader picks the variant for the tile size
+        getPreloadRequestBuilder(images.get(position)).into(iv);
 
         return convertView;
     }
 
-}
\ No newline at end of file
+    /**
+     * Get the image to preload for a tile.
+     *
+     * @param position the position of the tile
+     * @return the image shown in the tile
+     */
+    @NonNull
+    @Override
+    public List<Image> getPreloadItems(int position) {
+        return Collections.singletonList(images.get(position));
+    }
+
+    /**
+     * Get the request that loads an image into a tile, so preloaded images are found in the cache.
+     *
+     * @param image the image of the tile
+     * @return the request for the image
+     */
+    @NonNull
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Image image) {
+        return Glide
+                .with(context)
+                .load(image)
+                .error(R.drawable.ic_disabled);
+    }
+
+    /**
+     * Get the provider of the tile size images are preloaded at.
+     *
+     * @return the size provider
+     */
+    public ViewPreloadSizeProvider<Image> getPreloadSizeProvider() {
+        return sizeProvider;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.example.pickme.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.signature.ObjectKey;
+import com.example.pickme.models.Image;
+
+import java.io.InputStream;
+
+/**
+ * Lets Glide load an {@link Image} directly, so views do not pick URLs themselves.
+ * <p>
+ * Responsibilities:
+ * - Picks the smallest stored variant that still covers the size Glide loads at
+ * - Keys the cached data by URL and content hash; each upload is stored at a path of its own,
+ *   so a replaced image never shares a URL with the one it replaced
+ * <p>
+ * The download itself is left to Glide's URL loader.
+ *
+ * @version 1.1
+ */
+public class ImageModelLoader implements ModelLoader<Image, InputStream> {
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+
+    private ImageModelLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        this.urlLoader = urlLoader;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull Image image, int width, int height, @NonNull Options options) {
+        String url = image.getUrlForSize(targetSize(width, height));
+        LoadData<InputStream> data = urlLoader.buildLoadData(new GlideUrl(url), width, height, options);
+        if (data == null)
+            return null;
+
+        return new LoadData<>(new ObjectKey(cacheKey(image, url)), data.fetcher);
+    }
+
+    @Override
+    public boolean handles(@NonNull Image image) {
+        return image.getImageUrl() != null;
+    }
+
+    /**
+     * Gets the longest side an image is loaded at.
+     *
+     * @param width The width Glide loads at, or {@link Target#SIZE_ORIGINAL}
+     * @param height The height Glide loads at, or {@link Target#SIZE_ORIGINAL}
+     * @return The longest side in pixels, or {@link Integer#MAX_VALUE} to load the original
+     */
+    static int targetSize(int width, int height) {
+        if (width == Target.SIZE_ORIGINAL || height == Target.SIZE_ORIGINAL)
+            return Integer.MAX_VALUE;
+
+        return Math.max(width, height);
+    }
+
+    /**
+     * Gets the key an image's data is cached under.
+     * Only stored fields are used, so the same image read again keeps its key.
+     *
+     * @param image The image
+     * @param url The URL of the loaded variant
+     * @return The cache key
+     */
+    static String cacheKey(Image image, String url) {
+        return image.getContentHash() != null ? url + "#" + image.getContentHash() : url;
+    }
+
+    /**
+     * Creates the loader with the URL loader Glide has registered.
+     */
+    public static class Factory implements ModelLoaderFactory<Image, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<Image, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new ImageModelLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {}
+    }
+}
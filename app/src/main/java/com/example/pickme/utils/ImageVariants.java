@@ -0,0 +1,277 @@
+package com.example.pickme.utils;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.OpenableColumns;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prepares images for upload: a recompressed original plus the downscaled variants stored alongside it.
+ * <p>
+ * Responsibilities:
+ * - Decodes the source at the smallest sample size that still covers the upload size
+ * - Applies the EXIF orientation and drops all other metadata by re-encoding
+ * - Shrinks the original to at most {@link #MAX_UPLOAD_SIZE} and encodes it at {@link #UPLOAD_QUALITY}
+ * - Scales the original to each variant size and encodes it, skipping sizes the original does not exceed
+ * <p>
+ * Decoding and encoding are slow, so these methods should be called off the main thread.
+ *
+ * @version 1.1
+ */
+public class ImageVariants {
+    public static final int THUMBNAIL_SIZE = 128;
+    public static final int PREVIEW_SIZE = 512;
+    // Variant sizes, as the longest side in pixels
+    public static final int[] SIZES = {THUMBNAIL_SIZE, PREVIEW_SIZE};
+    // Longest side of the uploaded original in pixels
+    public static final int MAX_UPLOAD_SIZE = 1600;
+    public static final int UPLOAD_QUALITY = 85;
+
+    /**
+     * Opens a fresh stream over the source for each decoding pass.
+     */
+    private interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Prepares an image picked from a content URI.
+     *
+     * @param resolver Resolver to open the URI with
+     * @param uri The picked image
+     * @return The image to upload
+     * @throws IOException If the image cannot be read or decoded
+     */
+    public static PreparedImage prepare(@NonNull ContentResolver resolver, @NonNull Uri uri) throws IOException {
+        return prepare(() -> {
+            InputStream in = resolver.openInputStream(uri);
+            if (in == null) {
+                throw new IOException("Unable to open " + uri);
+            }
+            return in;
+        }, querySize(resolver, uri));
+    }
+
+    /**
+     * Decodes, orients, shrinks and encodes an image and its variants.
+     *
+     * @param source The encoded image
+     * @param sourceBytes The size of the encoded image, or -1 if unknown
+     * @return The image to upload
+     * @throws IOException If the image cannot be read or decoded
+     */
+    private static PreparedImage prepare(Source source, long sourceBytes) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = source.open()) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, MAX_UPLOAD_SIZE);
+        Bitmap decoded;
+        try (InputStream in = source.open()) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Unable to decode image");
+        }
+
+        int orientation;
+        try (InputStream in = source.open()) {
+            orientation = readOrientation(in);
+        }
+
+        Bitmap original = transform(decoded, orientation, MAX_UPLOAD_SIZE);
+        if (original != decoded) {
+            decoded.recycle();
+        }
+
+        Bitmap.CompressFormat format = uploadFormat(original);
+        byte[] data = encode(original, format);
+
+        Map<Integer, byte[]> variants = new TreeMap<>();
+        int originalSize = Math.max(original.getWidth(), original.getHeight());
+        for (int size : SIZES) {
+            if (size >= originalSize)
+                continue;
+
+            Bitmap variant = transform(original, ExifInterface.ORIENTATION_NORMAL, size);
+            variants.put(size, encode(variant, format));
+            variant.recycle();
+        }
+        original.recycle();
+
+        return new PreparedImage(data, contentType(format), variants, sourceBytes);
+    }
+
+    /**
+     * Computes the largest power-of-two sample size that keeps an image's longest side at or above a target.
+     *
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param targetSize The smallest longest side the decoded image may have
+     * @return The sample size to decode with; 1 for images that are not larger than twice the target
+     */
+    public static int sampleSize(int width, int height, int targetSize) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Turns an image upright and shrinks it to fit a size.
+     *
+     * @param bitmap The image
+     * @param orientation The EXIF orientation of the image
+     * @param maxSize The longest side the result may have
+     * @return The transformed image, or the same image if no change is needed
+     */
+    private static Bitmap transform(Bitmap bitmap, int orientation, int maxSize) {
+        Matrix matrix = orientationMatrix(orientation);
+        int longest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longest > maxSize) {
+            float scale = (float) maxSize / longest;
+            matrix.postScale(scale, scale);
+        }
+        if (matrix.isIdentity()) {
+            return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    /**
+     * Picks the format to upload an image in: lossy WebP where the platform can write it,
+     * otherwise JPEG, or PNG for images with transparency.
+     *
+     * @param bitmap The image
+     * @return The format to encode the image in
+     */
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat uploadFormat(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+    }
+
+    /**
+     * Gets the MIME type of an encoding format.
+     *
+     * @param format The format
+     * @return The MIME type
+     */
+    private static String contentType(Bitmap.CompressFormat format) {
+        switch (format) {
+            case PNG:
+                return "image/png";
+            case JPEG:
+                return "image/jpeg";
+            default:
+                return "image/webp";
+        }
+    }
+
+    /**
+     * Encodes an image.
+     *
+     * @param bitmap The image
+     * @param format The format to encode in
+     * @return The encoded image
+     */
+    private static byte[] encode(Bitmap bitmap, Bitmap.CompressFormat format) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.compress(format, UPLOAD_QUALITY, bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Looks up the size of the file behind a content URI.
+     *
+     * @param resolver Resolver to query the URI with
+     * @param uri The file
+     * @return The size in bytes, or -1 if the provider does not report it
+     */
+    private static long querySize(ContentResolver resolver, Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            // Not every URI is backed by a provider that can be queried
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the EXIF orientation of an image.
+     *
+     * @param in The encoded image
+     * @return The orientation, or {@link ExifInterface#ORIENTATION_NORMAL} if the image has none
+     */
+    private static int readOrientation(@Nullable InputStream in) {
+        if (in == null)
+            return ExifInterface.ORIENTATION_NORMAL;
+
+        try {
+            return new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /**
+     * Builds the transform that displays an image upright.
+     *
+     * @param orientation The EXIF orientation of the image
+     * @return The rotation and mirroring to apply
+     */
+    private static Matrix orientationMatrix(int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                break;
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.pickme.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.example.pickme.models.User;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws the avatars of users without a profile picture on the device, instead of uploading a generated image.
+ * <p>
+ * Responsibilities:
+ * - Renders the user's initials on a background color seeded by their device ID, so an avatar looks the same everywhere
+ * - Keeps rendered avatars in memory and as files in the cache directory, keyed by initials and color
+ * - Loads the profile picture with Glide instead for users who uploaded one
+ * <p>
+ * Avatars are read and rendered off the main thread and set on the view once ready.
+ *
+ * @version 1.0
+ */
+public class InitialsAvatar {
+    private static final String TAG = "InitialsAvatar";
+    private static final String CACHE_DIR = "avatars";
+    // Rendered size in pixels, large enough for the profile screens
+    private static final int SIZE = 256;
+    private static final int MEMORY_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static InitialsAvatar instance;
+
+    private final File cacheDir;
+    private final LruCache<String, Bitmap> memoryCache = new LruCache<String, Bitmap>(MEMORY_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // The avatar each view is waiting for, so a recycled view does not show a stale one
+    private final Map<ImageView, String> pendingKeys = new WeakHashMap<>();
+
+    public static InitialsAvatar getInstance(@NonNull Context context) {
+        if (instance == null)
+            instance = new InitialsAvatar(context.getApplicationContext());
+
+        return instance;
+    }
+
+    private InitialsAvatar(Context context) {
+        cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+    }
+
+    /**
+     * Shows a user's avatar: their profile picture if they uploaded one, otherwise their initials.
+     *
+     * @param view The view to show the avatar in
+     * @param user The user
+     */
+    public void into(@NonNull ImageView view, @NonNull User user) {
+        if (user.hasCustomProfilePicture()) {
+            pendingKeys.remove(view);
+            Glide.with(view).load(user.avatarUrl()).into(view);
+            return;
+        }
+        into(view, initials(user.getFirstName(), user.getLastName()), user.getDeviceId());
+    }
+
+    /**
+     * Shows an initials avatar.
+     *
+     * @param view The view to show the avatar in
+     * @param initials The initials to draw
+     * @param seed The device ID the background color is derived from
+     */
+    public void into(@NonNull ImageView view, @NonNull String initials, @Nullable String seed) {
+        // a pending Glide load would replace the avatar when it finishes
+        Glide.with(view).clear(view);
+
+        int color = color(seed);
+        String key = cacheKey(initials, color);
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            pendingKeys.remove(view);
+            view.setImageBitmap(cached);
+            return;
+        }
+
+        pendingKeys.put(view, key);
+        view.setImageDrawable(null);
+        executor.execute(() -> {
+            Bitmap avatar = load(key, initials, color);
+            handler.post(() -> {
+                memoryCache.put(key, avatar);
+                if (key.equals(pendingKeys.get(view))) {
+                    pendingKeys.remove(view);
+                    view.setImageBitmap(avatar);
+                }
+            });
+        });
+    }
+
+    /**
+     * Reads an avatar from the cache directory, or renders and stores it there.
+     *
+     * @param key The cache key of the avatar
+     * @param initials The initials to draw
+     * @param color The background color
+     * @return The avatar
+     */
+    private Bitmap load(String key, String initials, int color) {
+        File file = new File(cacheDir, key + ".png");
+        if (file.exists()) {
+            Bitmap stored = BitmapFactory.decodeFile(file.getPath());
+            if (stored != null)
+                return stored;
+        }
+
+        Bitmap avatar = render(initials, color);
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            Log.w(TAG, "Failed to create avatar cache directory");
+            return avatar;
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            avatar.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to store avatar " + key, e);
+        }
+        return avatar;
+    }
+
+    /**
+     * Draws initials centered on a solid background.
+     *
+     * @param initials The initials to draw
+     * @param color The background color
+     * @return The avatar
+     */
+    private static Bitmap render(String initials, int color) {
+        Bitmap b = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        Canvas c = new Canvas(b);
+        Paint p = new Paint(Paint.ANTI_ALIAS_FLAG);
+        c.drawColor(color);
+        p.setTextAlign(Paint.Align.CENTER);
+        p.setColor(Color.WHITE);
+        p.setTextSize(SIZE / 2f);
+        c.drawText(
+                initials,
+                (float) c.getWidth() / 2,
+                (((float) c.getHeight() / 2) - ((p.descent() + p.ascent()) / 2)),
+                p
+        );
+        return b;
+    }
+
+    /**
+     * Gets the initials of a name: the first letter of the first and last name, upper case.
+     *
+     * @param firstName The first name
+     * @param lastName The last name, may be empty
+     * @return The initials, or "?" if the name is empty
+     */
+    public static String initials(@Nullable String firstName, @Nullable String lastName) {
+        StringBuilder initials = new StringBuilder();
+        for (String name : new String[]{firstName, lastName}) {
+            if (name != null && !name.trim().isEmpty()) {
+                initials.appendCodePoint(name.trim().codePointAt(0));
+            }
+        }
+        return initials.length() > 0 ? initials.toString().toUpperCase(Locale.ROOT) : "?";
+    }
+
+    /**
+     * Derives a dark background color from a device ID, so white initials stay readable.
+     *
+     * @param seed The device ID, or null for a fixed color
+     * @return The opaque color
+     */
+    public static int color(@Nullable String seed) {
+        // spread the hash so similar device IDs do not get similar colors
+        Random rnd = new Random(seed != null ? seed.hashCode() * 0x9E3779B97F4A7C15L : 0);
+        return 0xFF000000 | (rnd.nextInt(128) << 16) | (rnd.nextInt(128) << 8) | rnd.nextInt(128);
+    }
+
+    /**
+     * Gets the key an avatar is cached under.
+     *
+     * @param initials The initials
+     * @param color The background color
+     * @return A key that is also a valid file name
+     */
+    static String cacheKey(String initials, int color) {
+        StringBuilder key = new StringBuilder();
+        for (byte b : initials.getBytes(StandardCharsets.UTF_8)) {
+            key.append(String.format("%02x", b));
+        }
+        return String.format(Locale.ROOT, "%s_%08x_%d", key, color, SIZE);
+    }
+}
@@ -5,22 +5,26 @@ import android.util.Log;
 import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Event;
 import com.example.pickme.models.User;
+import com.example.pickme.models.WaitingList;
 import com.example.pickme.models.WaitingListEntrant;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.repositories.UserRepository;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Tasks;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Utility class for running a lottery on an event's waiting list.
  */
 public class LotteryUtils {
+    private final Random random = new Random();
 
     /**
      * Runs the lottery for the specified event.
@@ -54,33 +58,39 @@ public class LotteryUtils {
      * @param onCompleteListener The listener to be called upon completion of the lottery process.
      */
     public void replaceCancelledEntrants(Event event, OnCompleteListener<List<String>> onCompleteListener) {
-        List<WaitingListEntrant> cancelledEntrants = event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == EntrantStatus.CANCELLED)
+        WaitingList waitingList = event.getWaitingListIndex();
+        List<WaitingListEntrant> cancelledEntrants = new ArrayList<>(waitingList.getEntrants(EntrantStatus.CANCELLED));
+        List<String> cancelledIds = cancelledEntrants.stream()
+                .map(WaitingListEntrant::getEntrantId)
                 .collect(Collectors.toList());
 
-        ArrayList<WaitingListEntrant> updatedWaitingList = new ArrayList<>(event.getWaitingList());
-        updatedWaitingList.removeAll(cancelledEntrants);  // Get rid of the cancelled entrants
-
         // Update the event's waiting list to not include the cancelled entrants
-        event.setWaitingList(updatedWaitingList);
+        for (String entrantId : cancelledIds) {
+            waitingList.remove(entrantId);
+        }
 
         // Remove eventId from each cancelled entrant's eventIDs property and update the user in Firestore
-        for (WaitingListEntrant entrant : cancelledEntrants) {
-            UserRepository userRepository = UserRepository.getInstance();
-            userRepository.getUserByDeviceId(entrant.getEntrantId(), userTask -> {
-                if (userTask.isSuccessful() && userTask.getResult() != null) {
-                    User user = userTask.getResult();
-                    if (user != null) {
-                        user.getEventIDs().remove(event.getEventId());
-                        userRepository.updateUser(user, null);
-                    }
-                }
-            });
-        }
+        UserRepository userRepository = UserRepository.getInstance();
+        userRepository.getUsersByDeviceIds(cancelledIds, usersTask -> {
+            if (!usersTask.isSuccessful() || usersTask.getResult() == null)
+                return;
+
+            for (User user : usersTask.getResult()) {
+                user.getEventIDs().remove(event.getEventId());
+                UserRepository.updateUser(user, task -> {});
+            }
+        });
 
-        // Draw the lottery for the event with the number of cancelled entrants
-        int rejectedCount = cancelledEntrants.size();
-        drawLottery(event, rejectedCount, onCompleteListener);
+        // Delete the cancelled entrants' documents, then draw the lottery for the event with the number of cancelled entrants
+        EventRepository.getInstance().commitEntrantChanges(event.getEventId(), new ArrayList<>(), cancelledEntrants, task -> {
+            if (!task.isSuccessful()) {
+                onCompleteListener.onComplete(Tasks.forException(task.getException()));
+                return;
+            }
+
+            int rejectedCount = cancelledIds.size();
+            drawLottery(event, rejectedCount, onCompleteListener);
+        });
     }
 
     /**
@@ -90,22 +100,16 @@ public class LotteryUtils {
      * @param onCompleteListener The listener to be called upon completion of the lottery process.
      */
     public void cancelPendingEntrants(Event event, OnCompleteListener<Void> onCompleteListener) {
-        List<WaitingListEntrant> pendingEntrants = event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == EntrantStatus.SELECTED)
-                .collect(Collectors.toList());
+        WaitingList waitingList = event.getWaitingListIndex();
+        List<WaitingListEntrant> pendingEntrants = new ArrayList<>(waitingList.getEntrants(EntrantStatus.SELECTED));
 
-        ArrayList<WaitingListEntrant> updatedWaitingList = new ArrayList<>(event.getWaitingList());
         // Update status of selected entrants to cancelled
         for (WaitingListEntrant entrant : pendingEntrants) {
-            entrant.setStatus(EntrantStatus.CANCELLED);
-            updatedWaitingList.set(updatedWaitingList.indexOf(entrant), entrant);
+            waitingList.setStatus(entrant, EntrantStatus.CANCELLED);
         }
 
-        // Update the event's waiting list to not include the pending entrants
-        event.setWaitingList(updatedWaitingList);
-
-        // Update the event in the database with the new waiting list
-        EventRepository.getInstance().updateEvent(event, null, task -> {
+        // Write only the entrants whose status changed
+        EventRepository.getInstance().commitEntrantChanges(event.getEventId(), pendingEntrants, new ArrayList<>(), task -> {
             if (task.isSuccessful()) {
                 onCompleteListener.onComplete(Tasks.forResult(null));
             } else {
@@ -130,62 +134,98 @@ public class LotteryUtils {
 
     /**
      * Draws the lottery for the event.
+     * Only the entrants on this event are checked for existence, and only entrants whose status changes are written back.
      *
      * @param event The event object.
      * @param numToDraw The number of entrants to draw.
      * @param onCompleteListener The listener to be called upon completion of the lottery process.
      */
     private void drawLottery(Event event, int numToDraw, OnCompleteListener<List<String>> onCompleteListener) {
-        List<WaitingListEntrant> checkedEntrants = new ArrayList<>();
+        WaitingList waitingList = event.getWaitingListIndex();
+        List<String> entrantIds = event.getWaitingList().stream()
+                .map(WaitingListEntrant::getEntrantId)
+                .collect(Collectors.toList());
 
-        UserRepository.getInstance().getAllUsers(query -> {
-            if(!query.isSuccessful() || query.getResult() == null)
+        UserRepository.getInstance().getUsersByDeviceIds(entrantIds, usersTask -> {
+            if (!usersTask.isSuccessful() || usersTask.getResult() == null) {
+                onCompleteListener.onComplete(Tasks.forException(usersTask.getException()));
                 return;
+            }
 
-            for(WaitingListEntrant entrant : event.getWaitingList()){
+            Set<String> existingIds = new HashSet<>();
+            for (User user : usersTask.getResult()) {
+                existingIds.add(user.getDeviceId());
+            }
 
-                boolean exists = false;
-                for(DocumentSnapshot doc : query.getResult().getDocuments()){
-                    if(doc.getId().equals(entrant.getEntrantId())){
-                        checkedEntrants.add(entrant);
-                        exists = true;
-                        break;
-                    }
+            // Drop entrants whose user no longer exists
+            List<WaitingListEntrant> removedEntrants = new ArrayList<>();
+            for (String entrantId : entrantIds) {
+                if (!existingIds.contains(entrantId)) {
+                    removedEntrants.add(waitingList.remove(entrantId));
                 }
-
-                if(!exists)
-                    event.getWaitingList().remove(entrant);
             }
 
-            List<WaitingListEntrant> waitingEntrants = new ArrayList<>(checkedEntrants.stream().filter(e -> e.getStatus() == EntrantStatus.WAITING || e.getStatus() == EntrantStatus.REJECTED).collect(Collectors.toList()));
-            Collections.shuffle(waitingEntrants);
+            List<WaitingListEntrant> eligibleEntrants = waitingList.getEntrantsByStatus(EntrantStatus.WAITING, EntrantStatus.REJECTED);
 
-            List<String> selectedUserDeviceIds = new ArrayList<>();
-            for (int i = 0; i < Math.min(numToDraw, waitingEntrants.size()); i++) {
-                selectedUserDeviceIds.add(waitingEntrants.get(i).getEntrantId());
-                checkedEntrants.get(checkedEntrants.indexOf(waitingEntrants.get(i))).setStatus(EntrantStatus.SELECTED);     // Update entrant status to selected in checked entrants
-            }
+            int numDrawn = drawRandom(eligibleEntrants, numToDraw, random);
 
-            for(int i = Math.min(numToDraw, waitingEntrants.size()); i < waitingEntrants.size(); i++){
-                checkedEntrants.get(checkedEntrants.indexOf(waitingEntrants.get(i))).setStatus(EntrantStatus.REJECTED);
+            List<String> selectedUserDeviceIds = new ArrayList<>();
+            List<WaitingListEntrant> changedEntrants = new ArrayList<>();
+            for (int i = 0; i < eligibleEntrants.size(); i++) {
+                WaitingListEntrant entrant = eligibleEntrants.get(i);
+                if (i < numDrawn) {
+                    selectedUserDeviceIds.add(entrant.getEntrantId());
+                    waitingList.setStatus(entrant, EntrantStatus.SELECTED);
+                    changedEntrants.add(entrant);
+                } else if (entrant.getStatus() != EntrantStatus.REJECTED) {
+                    waitingList.setStatus(entrant, EntrantStatus.REJECTED);
+                    changedEntrants.add(entrant);
+                }
             }
 
-            event.setWaitingList(new ArrayList<>(checkedEntrants)); // Update event's waiting list to reflect entrantStatus changes
             event.setHasLotteryExecuted(true);
             Log.i("EVENT", "has lottery executed = true");
 
-            // don't need to update poster so keep null but we need to update waiting list w/ new entrant status
-            EventRepository.getInstance().updateEvent(event, null, task -> {
-                if (task.isSuccessful()) {
-                    onCompleteListener.onComplete(Tasks.forResult(selectedUserDeviceIds));
-                    Log.i("EVENT", "event updated after lottery");
-                } else {
-                    onCompleteListener.onComplete(Tasks.forException(task.getException()));
+            // write the drawn entrants' new statuses, then mark the lottery as executed on the event
+            EventRepository.getInstance().commitEntrantChanges(event.getEventId(), changedEntrants, removedEntrants, entrantsTask -> {
+                if (!entrantsTask.isSuccessful()) {
+                    onCompleteListener.onComplete(Tasks.forException(entrantsTask.getException()));
+                    return;
                 }
+
+                // don't need to update poster so keep null
+                EventRepository.getInstance().updateEvent(event, null, task -> {
+                    if (task.isSuccessful()) {
+                        onCompleteListener.onComplete(Tasks.forResult(selectedUserDeviceIds));
+                        Log.i("EVENT", "event updated after lottery");
+                    } else {
+                        onCompleteListener.onComplete(Tasks.forException(task.getException()));
+                    }
+                });
             });
         });
     }
 
+    /**
+     * Moves k uniformly chosen items to the front of the list using a partial Fisher-Yates shuffle.
+     * Only k swaps are made, so drawing a few winners from a long waiting list stays cheap.
+     *
+     * @param items The list to draw from; reordered in place.
+     * @param k The number of items to draw.
+     * @param random The source of randomness.
+     * @return The number of items drawn, which is k capped at the size of the list.
+     */
+    static <T> int drawRandom(List<T> items, int k, Random random) {
+        int n = items.size();
+        int numDrawn = Math.max(0, Math.min(k, n));
+
+        for (int i = 0; i < numDrawn; i++) {
+            int j = i + random.nextInt(n - i);
+            Collections.swap(items, i, j);
+        }
+        return numDrawn;
+    }
+
     /**
      * Determines the number of entrants to draw in the lottery.
      *
@@ -193,16 +233,11 @@ public class LotteryUtils {
      * @return The number of entrants to draw.
      */
     public int determineNumToDraw(Event event) {
-        int currentNumInvited = 0;
+        WaitingList waitingList = event.getWaitingListIndex();
+        int currentNumInvited = waitingList.count(EntrantStatus.ACCEPTED, EntrantStatus.SELECTED);
         int targetNumWinners = event.getMaxWinners();
 
-        for (WaitingListEntrant entrant : event.getWaitingList()) {
-            if (entrant.getStatus() == EntrantStatus.ACCEPTED || entrant.getStatus() == EntrantStatus.SELECTED) {
-                currentNumInvited++;
-            }
-        }
-
-        int numWaitingEntrants = (int) event.getWaitingList().stream().filter(e -> e.getStatus() == EntrantStatus.WAITING || e.getStatus() == EntrantStatus.REJECTED).count();
+        int numWaitingEntrants = waitingList.count(EntrantStatus.WAITING, EntrantStatus.REJECTED);
         return Math.min(targetNumWinners - currentNumInvited, numWaitingEntrants);
     }
 }
\ No newline at end of file
@@ -7,10 +7,14 @@ import com.example.pickme.models.User;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.repositories.NotificationRepository;
 import com.example.pickme.repositories.UserRepository;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages local notifications
@@ -18,9 +22,12 @@ import java.util.concurrent.CompletableFuture;
  * <p>
  * Responsibilities:
  * Create and send notifications to users
+ * loads the user's inbox a page at a time
  * cleans notifications (if deleted from repo and such)
  **/
 public class NotificationHelper {
+    // events found to be deleted this session; event IDs are never reused, so they are not checked again
+    private static final Set<String> missingEventIds = new HashSet<>();
 
     /**
      * empty constructor
@@ -30,106 +37,204 @@ public class NotificationHelper {
     }
 
     /**
-     * adds a UserNotification to all the users who a notification is supposed to be sent to and
-     * updates it on firebase
+     * delivers a notification to the inbox of every user it is supposed to be sent to who has
+     * notifications enabled; the inbox entries are written in batches
+     * <p>
+     * audience notifications are resolved here from the event's entrants with the notification's level
      * @param notification the notification to send
      */
     public void sendNotification(Notification notification){
+        if(!notification.hasAudience()){
+            deliver(notification, notification.getSendTo());
+            return;
+        }
+
+        EventRepository.getInstance().getEntrantIdsByStatus(notification.getEventID(), notification.getLevel(), task -> {
+            if(!task.isSuccessful() || task.getResult() == null){
+                Log.e("NOTIF", "Failed to resolve notif audience", task.getException());
+                return;
+            }
 
-        UserNotification userNotification = new UserNotification(notification.getNotificationId());
+            deliver(notification, task.getResult());
+        });
+    }
+
+    /**
+     * delivers a notification to the inbox of each recipient who has notifications enabled
+     * @param notification the notification to deliver
+     * @param recipientIds the device IDs of the recipients
+     */
+    private void deliver(Notification notification, List<String> recipientIds){
+
+        UserNotification userNotification = new UserNotification(notification.getNotificationId(), notification.getTimestamp());
         UserRepository userRepository = UserRepository.getInstance();
 
-        for(String userID : notification.getSendTo()){
+        userRepository.getUsersByDeviceIds(recipientIds, usersTask -> {
+            if(!usersTask.isSuccessful() || usersTask.getResult() == null){
+                Log.e("NOTIF", "Failed to load users to send notif to", usersTask.getException());
+                return;
+            }
 
-            userRepository.getUserDocumentByDeviceId(userID, documentSnapshotTask -> {
-                if(!documentSnapshotTask.isSuccessful() || documentSnapshotTask.getResult() == null){
-                    Log.i("NOTIF", "Failed to find user to send notif; userID: " + userID);
-                    return;
-                }
+            List<String> recipients = new ArrayList<>();
+            for(User user : usersTask.getResult()){
+                if(user.isNotificationEnabled())
+                    recipients.add(user.getDeviceId());
+            }
 
-                User user = documentSnapshotTask.getResult().toObject(User.class);
+            userRepository.deliverToInboxes(recipients, userNotification, task -> {
+                if(task.isSuccessful())
+                    Log.i("NOTIF", "Sent notif to " + recipients.size() + " users");
+                else
+                    Log.e("NOTIF", "Failed to send notif", task.getException());
+            });
+        });
+    }
+
+    /**
+     * loads the next page of the current user's inbox into the NotificationList, newest first
+     *
+     * @param onLoaded the task to run once the page has been added; not run if there is nothing left to load
+     */
+    public void loadInboxPage(Runnable onLoaded){
+        User user = User.getInstance();
+        NotificationList notificationList = NotificationList.getInstance();
+
+        if(notificationList.isInboxFullyLoaded() || notificationList.isLoadingInbox())
+            return;
 
-                if(user == null || !user.isNotificationEnabled())
+        notificationList.setLoadingInbox(true);
+        UserRepository.getInstance().getInboxPage(user.getDeviceId(), UserRepository.INBOX_PAGE_SIZE, notificationList.getLastInboxEntry(), task -> {
+            if(!task.isSuccessful() || task.getResult() == null){
+                Log.e("NOTIF", "Failed to load inbox", task.getException());
+                notificationList.setLoadingInbox(false);
+                return;
+            }
+
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            if(!documents.isEmpty())
+                notificationList.setLastInboxEntry(documents.get(documents.size() - 1));
+            if(documents.size() < UserRepository.INBOX_PAGE_SIZE)
+                notificationList.setInboxFullyLoaded(true);
+
+            Map<String, UserNotification> entries = new HashMap<>();
+            for(DocumentSnapshot document : documents){
+                UserNotification userNotification = document.toObject(UserNotification.class);
+                if(userNotification == null)
+                    continue;
+
+                userNotification.setNotificationID(document.getId());
+                entries.put(document.getId(), userNotification);
+                if(!user.hasUserNotification(document.getId()))
+                    user.addUserNotification(userNotification);
+            }
+
+            NotificationRepository.getInstance().getNotificationsByIds(new ArrayList<>(entries.keySet()), notificationsTask -> {
+                notificationList.setLoadingInbox(false);
+                if(!notificationsTask.isSuccessful() || notificationsTask.getResult() == null){
+                    Log.e("NOTIF", "Failed to load inbox notifications", notificationsTask.getException());
                     return;
+                }
 
-                user.addUserNotification(userNotification);
+                for(Notification notification : notificationsTask.getResult()){
+                    // the listener may have already delivered it
+                    if(NotificationList.getByID(notification.getNotificationId()) != null)
+                        continue;
 
-                userRepository.updateUser(user, task -> {
-                    Log.i("NOTIF", "Sent notif to user: " + userID);
-                });
+                    notification.markRead(entries.get(notification.getNotificationId()).isRead());
+                    notificationList.add(notification);
+                }
 
+                onLoaded.run();
             });
-        }
+        });
     }
 
     /**
-     * this method will run through all of the notifications associated with a user and deletes them if:
+     * this method will run through all of the loaded inbox entries of a user and deletes them if:
      * - the notification ID is null
      * - the notification doesn't exist in the db
      * - the notification isn't associated with an event
      * - the event associated with the notification doesn't exist in the db
+     * <p>
+     * the notifications and events are fetched in batches, and the orphaned entries are removed
+     * in a single batch; if anything fails to load, nothing is removed
      *
      * @param toRun the task to run after this is done
      */
     public void cleanNotifications(Runnable toRun) {
         User user = User.getInstance();
-        List<UserNotification> notificationsToRemove = new ArrayList<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (UserNotification userNotification : user.getUserNotifications()) {
-            if (userNotification.getNotificationID() == null) {
-                Log.i("NOTIF", "notif id was null");
-                notificationsToRemove.add(userNotification);
-                continue;
-            }
+        List<UserNotification> entries = new ArrayList<>(user.getUserNotifications());
 
-            Log.i("NOTIF", "parsing ID: " + userNotification.getNotificationID());
+        List<String> notificationIds = new ArrayList<>();
+        for (UserNotification userNotification : entries) {
+            if (userNotification.getNotificationID() != null)
+                notificationIds.add(userNotification.getNotificationID());
+        }
+
+        NotificationRepository.getInstance().getNotificationsByIds(notificationIds, notificationsTask -> {
+            if (!notificationsTask.isSuccessful() || notificationsTask.getResult() == null) {
+                Log.e("NOTIF", "Failed to load notifs to clean", notificationsTask.getException());
+                toRun.run();
+                return;
+            }
 
-            CompletableFuture<Void> future = new CompletableFuture<>();
-            futures.add(future);
+            Map<String, Notification> notifications = new HashMap<>();
+            Set<String> eventIds = new HashSet<>();
+            for (Notification notification : notificationsTask.getResult()) {
+                notifications.put(notification.getNotificationId(), notification);
+                if (notification.getEventID() != null && !missingEventIds.contains(notification.getEventID()))
+                    eventIds.add(notification.getEventID());
+            }
 
-            NotificationRepository.getInstance().getNotificationById(userNotification.getNotificationID(), documentSnapshot -> {
-                if (documentSnapshot == null) {
-                    notificationsToRemove.add(userNotification);
-                    UserRepository.getInstance().updateUser(user, task -> {
-                        Log.i("NOTIF", "Cleaned Notifs; doc was null");
-                        future.complete(null);
-                    });
+            EventRepository.getInstance().getExistingEventIds(eventIds, eventsTask -> {
+                if (!eventsTask.isSuccessful() || eventsTask.getResult() == null) {
+                    Log.e("NOTIF", "Failed to load events to clean notifs", eventsTask.getException());
+                    toRun.run();
                     return;
                 }
 
-                Notification notification = documentSnapshot.toObject(Notification.class);
-                if (notification == null || notification.getEventID() == null) {
-                    notificationsToRemove.add(userNotification);
-                    UserRepository.getInstance().updateUser(user, task -> {
-                        Log.i("NOTIF", "Cleaned Notifs; notif was null");
-                        future.complete(null);
-                    });
-                    return;
+                for (String eventId : eventIds) {
+                    if (!eventsTask.getResult().contains(eventId))
+                        missingEventIds.add(eventId);
                 }
 
-                EventRepository.getInstance().getEventById(notification.getEventID(), documentSnapshot1 -> {
-                    if (!documentSnapshot1.isSuccessful() || documentSnapshot1.getResult() == null) {
+                List<UserNotification> notificationsToRemove = new ArrayList<>();
+                for (UserNotification userNotification : entries) {
+                    Notification notification = notifications.get(userNotification.getNotificationID());
+                    if (notification == null || notification.getEventID() == null || missingEventIds.contains(notification.getEventID()))
                         notificationsToRemove.add(userNotification);
-                        UserRepository.getInstance().updateUser(user, task -> {
-                            Log.i("NOTIF", "Cleaned Notifs; no event with that ID");
-                            future.complete(null);
-                        });
-                    } else {
-                        future.complete(null);
-                    }
-                });
+                }
+
+                removeNotifications(user, notificationsToRemove, toRun);
             });
+        });
+    }
+
+    /**
+     * removes inbox entries from the user, the NotificationList and the db
+     *
+     * @param user the user to remove the entries from
+     * @param notificationsToRemove the entries to remove
+     * @param toRun the task to run after this is done
+     */
+    private void removeNotifications(User user, List<UserNotification> notificationsToRemove, Runnable toRun) {
+        if (notificationsToRemove.isEmpty()) {
+            toRun.run();
+            return;
         }
 
-        // Wait for all futures to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
-            user.getUserNotifications().removeAll(notificationsToRemove);
-            UserRepository.getInstance().updateUser(user, task -> {
-                Log.i("NOTIF", "Cleaned Notifs");
-                toRun.run();
-            });
+        List<String> idsToRemove = new ArrayList<>();
+        for (UserNotification userNotification : notificationsToRemove) {
+            NotificationList.getInstance().remove(NotificationList.getByID(userNotification.getNotificationID()));
+            if (userNotification.getNotificationID() != null)
+                idsToRemove.add(userNotification.getNotificationID());
+        }
+        user.getUserNotifications().removeAll(notificationsToRemove);
 
+        Log.i("NOTIF", "Cleaning " + notificationsToRemove.size() + " notifs");
+        UserRepository.getInstance().removeInboxEntries(user.getDeviceId(), idsToRemove, task -> {
+            Log.i("NOTIF", "Cleaned Notifs");
+            toRun.run();
         });
     }
 }
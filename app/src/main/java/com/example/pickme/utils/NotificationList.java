@@ -1,6 +1,7 @@
 package com.example.pickme.utils;
 
 import com.example.pickme.models.Notification;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
 
@@ -8,11 +9,16 @@ import java.util.ArrayList;
  * This class acts as an ArrayList of Notification objects, with slight modifications:
  * - Singleton pattern since the user only ever has a single list of notifications
  * - automatically sorts the list after every add/remove from newest to oldest
+ * - remembers how far the user's inbox has been paged in
  *
  */
 public class NotificationList extends ArrayList<Notification> {
     private static NotificationList instance;
 
+    private DocumentSnapshot lastInboxEntry;
+    private boolean inboxFullyLoaded = false;
+    private boolean loadingInbox = false;
+
     /**
      * empty constructor
      */
@@ -72,4 +78,46 @@ public class NotificationList extends ArrayList<Notification> {
 
         return res;
     }
+
+    /**
+     * @return the last inbox document loaded so far, or null if no page has been loaded
+     */
+    public DocumentSnapshot getLastInboxEntry() {
+        return lastInboxEntry;
+    }
+
+    /**
+     * @param lastInboxEntry the last inbox document loaded so far
+     */
+    public void setLastInboxEntry(DocumentSnapshot lastInboxEntry) {
+        this.lastInboxEntry = lastInboxEntry;
+    }
+
+    /**
+     * @return true if every page of the inbox has been loaded
+     */
+    public boolean isInboxFullyLoaded() {
+        return inboxFullyLoaded;
+    }
+
+    /**
+     * @param inboxFullyLoaded whether every page of the inbox has been loaded
+     */
+    public void setInboxFullyLoaded(boolean inboxFullyLoaded) {
+        this.inboxFullyLoaded = inboxFullyLoaded;
+    }
+
+    /**
+     * @return true if a page of the inbox is currently being loaded
+     */
+    public boolean isLoadingInbox() {
+        return loadingInbox;
+    }
+
+    /**
+     * @param loadingInbox whether a page of the inbox is currently being loaded
+     */
+    public void setLoadingInbox(boolean loadingInbox) {
+        this.loadingInbox = loadingInbox;
+    }
 }
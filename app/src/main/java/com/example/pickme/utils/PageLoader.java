@@ -0,0 +1,136 @@
+package com.example.pickme.utils;
+
+import androidx.annotation.Nullable;
+
+import com.example.pickme.repositories.Page;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * Loads a collection one page at a time for an infinite-scroll list.
+ * <p>
+ * Responsibilities:
+ * - Keeps the cursor of the last loaded page and requests the next one on demand
+ * - Ignores requests while a page is loading or after the last page
+ * - Drops the result of a request that was in flight when the loader was reset
+ * <p>
+ * All methods are expected to be called from the main thread, which is also where Firestore delivers its results.
+ *
+ * @param <T> The type of the loaded items
+ * @version 1.0
+ */
+public class PageLoader<T> {
+
+    /**
+     * Reads one page of the collection, usually a repository's page method.
+     *
+     * @param <T> The type of the loaded items
+     */
+    public interface PageSource<T> {
+        void loadPage(int pageSize, @Nullable DocumentSnapshot startAfter, OnCompleteListener<Page<T>> onCompleteListener);
+    }
+
+    /**
+     * Receives the loaded pages.
+     *
+     * @param <T> The type of the loaded items
+     */
+    public interface Listener<T> {
+        /**
+         * Called with the items of each loaded page, in order.
+         *
+         * @param items The items of the page
+         * @param firstPage true for the first page after creating or resetting the loader
+         */
+        void onPageLoaded(List<T> items, boolean firstPage);
+
+        /**
+         * Called when a page fails to load; the same page is requested again by the next {@link #loadNextPage()}.
+         *
+         * @param e The failure
+         */
+        void onPageFailed(Exception e);
+    }
+
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final Listener<T> listener;
+
+    private DocumentSnapshot cursor;
+    private boolean loading = false;
+    private boolean hasMore = true;
+    // Incremented by reset so results of earlier requests are dropped
+    private int generation = 0;
+
+    /**
+     * Creates a loader; no page is requested until {@link #loadNextPage()} is called.
+     *
+     * @param source Reads the pages
+     * @param pageSize The number of items per page
+     * @param listener Receives the loaded pages
+     */
+    public PageLoader(PageSource<T> source, int pageSize, Listener<T> listener) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Requests the next page, unless one is already loading or the last page has been loaded.
+     */
+    public void loadNextPage() {
+        if (loading || !hasMore)
+            return;
+
+        loading = true;
+        int requestGeneration = generation;
+        boolean firstPage = cursor == null;
+        source.loadPage(pageSize, cursor, task -> {
+            if (requestGeneration != generation)
+                return;
+
+            loading = false;
+            if (!task.isSuccessful() || task.getResult() == null) {
+                listener.onPageFailed(task.getException());
+                return;
+            }
+
+            Page<T> page = task.getResult();
+            if (page.getCursor() != null) {
+                cursor = page.getCursor();
+            }
+            hasMore = page.hasMore();
+            listener.onPageLoaded(page.getItems(), firstPage);
+        });
+    }
+
+    /**
+     * Starts over from the first page; a page that is still loading is dropped.
+     */
+    public void reset() {
+        generation++;
+        cursor = null;
+        loading = false;
+        hasMore = true;
+    }
+
+    /**
+     * Checks whether a page is loading.
+     *
+     * @return true while a request is in flight
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Checks whether more pages may follow.
+     *
+     * @return false once the last page has been loaded
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pickme.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.pickme.models.Image;
+
+import java.io.InputStream;
+
+/**
+ * Configures Glide for the app.
+ * <p>
+ * Responsibilities:
+ * - Registers {@link ImageModelLoader}, so an {@link Image} can be passed to {@code Glide.load}
+ * - Sizes the memory cache and bitmap pool by screens of pixels, and bounds the disk cache
+ * - Decodes opaque images as RGB_565 by default
+ *
+ * @version 1.0
+ */
+@GlideModule
+public class PickMeGlideModule extends AppGlideModule {
+    private static final String DISK_CACHE_DIR = "images";
+    // Posters and pictures are stored downscaled, so this holds many screens of them
+    private static final long DISK_CACHE_BYTES = 100L * 1024 * 1024;
+    // Screens of full-size bitmaps kept decoded, enough for the gallery grid while scrolling back
+    private static final float MEMORY_CACHE_SCREENS = 2;
+    private static final float BITMAP_POOL_SCREENS = 3;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setMemorySizeCalculator(new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build());
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES));
+        // images with transparency are still decoded as ARGB_8888
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(Image.class, InputStream.class, new ImageModelLoader.Factory());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.pickme.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An image ready to upload: the recompressed original and its downscaled variants.
+ * Created by {@link ImageVariants#prepare}.
+ *
+ * @version 1.1
+ */
+public class PreparedImage {
+    private final byte[] data;
+    private final String contentType;
+    private final Map<Integer, byte[]> variants;
+    private final long sourceBytes;
+    private String contentHash;
+
+    /**
+     * Creates a prepared image.
+     *
+     * @param data The encoded image to upload as the original
+     * @param contentType The MIME type of the original and its variants
+     * @param variants Encoded variants by size
+     * @param sourceBytes The size of the image before preparing it, or -1 if unknown
+     */
+    PreparedImage(byte[] data, String contentType, Map<Integer, byte[]> variants, long sourceBytes) {
+        this.data = data;
+        this.contentType = contentType;
+        this.variants = variants;
+        this.sourceBytes = sourceBytes;
+    }
+
+    /**
+     * Wraps an image that could not be prepared, to upload it unchanged and without variants.
+     *
+     * @param data The encoded image
+     * @return The image to upload
+     */
+    public static PreparedImage unprocessed(byte[] data) {
+        return new PreparedImage(data, null, new TreeMap<>(), data.length);
+    }
+
+    /**
+     * Gets the encoded image to upload as the original.
+     *
+     * @return data
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Gets the MIME type of the original and its variants.
+     *
+     * @return contentType, or null if the image was not re-encoded
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the encoded variants by size; sizes the image does not exceed are left out.
+     *
+     * @return variants
+     */
+    public Map<Integer, byte[]> getVariants() {
+        return variants;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the encoded image, so identical uploads can share one stored file.
+     *
+     * @return The hash as lowercase hex
+     */
+    public String getContentHash() {
+        if (contentHash == null) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform is required to implement SHA-256
+                throw new IllegalStateException(e);
+            }
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            contentHash = hex.toString();
+        }
+        return contentHash;
+    }
+
+    /**
+     * Gets the size of the image before preparing it.
+     *
+     * @return The size in bytes, or -1 if unknown
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+}
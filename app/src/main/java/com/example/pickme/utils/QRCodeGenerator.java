@@ -2,7 +2,11 @@ package com.example.pickme.utils;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.NonNull;
 
@@ -20,6 +24,9 @@ import com.google.zxing.qrcode.QRCodeWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class for generating and caching QR codes.
@@ -28,14 +35,21 @@ import java.io.IOException;
  * - Retrieve QR codes from Firestore or generate them dynamically.
  * - Cache QR codes locally for reuse to minimize redundant computation.
  * - Handle QR code generation errors and provide callbacks for results.
+ * - Render entrants' tickets, see {@link TicketPayload}.
  * <p>
- * It uses the ZXing library for QR code generation and stores cached images in the app's cache directory.
+ * It uses the ZXing library for QR code generation. Each code holds a {@link QrPayload} with the
+ * event ID, so scanners can resolve it without a lookup. Rendering and file access happen on a background
+ * executor, and callbacks are delivered on the main thread. Recently used QR bitmaps are kept in memory,
+ * and the PNGs in the app's cache directory are bounded by total size and age.
  */
 public class QRCodeGenerator {
 
     private static final int QR_CODE_WIDTH = 500;
     private static final int QR_CODE_HEIGHT = 500;
     private static final String CACHE_DIR = "qr_cache";
+    private static final long MAX_DISK_CACHE_BYTES = 5 * 1024 * 1024;
+    private static final long MAX_DISK_CACHE_AGE_MS = 7 * 24 * 60 * 60 * 1000L;
+    private static final int MEMORY_CACHE_BYTES = 4 * 1024 * 1024;
 
     private final QrRepository qrRepository;
 
@@ -49,22 +63,131 @@ public class QRCodeGenerator {
     }
 
     /**
-     * Generate or retrieve cached QR Code for an event based on eventID.
+     * Generate or retrieve cached QR Code for an event based on eventID, as an image file.
      *
      * @param context   Context to access cache directory
      * @param eventID   ID of the event
      * @param callback  Callback to handle the generated or retrieved QR code image file path
      */
     public void getQRCodeImage(Context context, String eventID, QRCodeCallback callback) {
-        String cacheFileName = eventID + ".png";
-        File cacheFile = new File(context.getCacheDir(), CACHE_DIR + "/" + cacheFileName);
+        File cacheFile = getCacheFile(context, eventID);
 
-        // Check if QR code already exists in cache
-        if (cacheFile.exists()) {
-            callback.onQRCodeReady(cacheFile.getAbsolutePath());
+        Shared.executor.execute(() -> {
+            // Check if QR code already exists in cache
+            if (isFresh(cacheFile)) {
+                Shared.mainHandler.post(() -> callback.onQRCodeReady(cacheFile.getAbsolutePath()));
+                return;
+            }
+
+            Shared.mainHandler.post(() -> render(context, eventID, new RenderCallback() {
+                @Override
+                public void onRendered(Bitmap bitmap, File file) {
+                    callback.onQRCodeReady(file.getAbsolutePath());
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    callback.onError(errorMessage);
+                }
+            }));
+        });
+    }
+
+    /**
+     * Generate or retrieve cached QR Code for an event based on eventID, as a bitmap ready for display.
+     * Recently displayed QR codes are returned from memory without touching the disk.
+     *
+     * @param context   Context to access cache directory
+     * @param eventID   ID of the event
+     * @param callback  Callback to handle the generated or retrieved QR code bitmap
+     */
+    public void getQRCodeBitmap(Context context, String eventID, QRBitmapCallback callback) {
+        Bitmap cached = Shared.bitmapCache.get(eventID);
+        if (cached != null) {
+            callback.onQRCodeReady(cached);
             return;
         }
 
+        File cacheFile = getCacheFile(context, eventID);
+
+        Shared.executor.execute(() -> {
+            if (isFresh(cacheFile)) {
+                Bitmap bitmap = BitmapFactory.decodeFile(cacheFile.getAbsolutePath());
+                if (bitmap != null) {
+                    Shared.bitmapCache.put(eventID, bitmap);
+                    Shared.mainHandler.post(() -> callback.onQRCodeReady(bitmap));
+                    return;
+                }
+            }
+
+            Shared.mainHandler.post(() -> render(context, eventID, new RenderCallback() {
+                @Override
+                public void onRendered(Bitmap bitmap, File file) {
+                    callback.onQRCodeReady(bitmap);
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    callback.onError(errorMessage);
+                }
+            }));
+        });
+    }
+
+    /**
+     * Generate an entrant's ticket for an event, as a bitmap ready for display.
+     * Tickets need no lookup, so they are only kept in memory.
+     *
+     * @param eventID   ID of the event
+     * @param entrantID Device ID of the entrant
+     * @param callback  Callback to handle the ticket bitmap
+     */
+    public void getTicketBitmap(String eventID, String entrantID, QRBitmapCallback callback) {
+        String cacheKey = "ticket/" + eventID + "/" + entrantID;
+        Bitmap cached = Shared.bitmapCache.get(cacheKey);
+        if (cached != null) {
+            callback.onQRCodeReady(cached);
+            return;
+        }
+
+        Shared.executor.execute(() -> {
+            Bitmap bitmap = generateQRCode(TicketPayload.encode(eventID, entrantID));
+            if (bitmap != null) {
+                Shared.bitmapCache.put(cacheKey, bitmap);
+                Shared.mainHandler.post(() -> callback.onQRCodeReady(bitmap));
+            } else {
+                Shared.mainHandler.post(() -> callback.onError("Error generating ticket"));
+            }
+        });
+    }
+
+    /**
+     * Drops the cached QR code of an event from memory and disk, e.g. after it was regenerated.
+     *
+     * @param context   Context to access cache directory
+     * @param eventID   ID of the event
+     */
+    public void invalidate(Context context, String eventID) {
+        Shared.bitmapCache.remove(eventID);
+
+        File cacheFile = getCacheFile(context, eventID);
+        Shared.executor.execute(() -> {
+            if (cacheFile.exists() && !cacheFile.delete()) {
+                Log.e("QRCodeGenerator", "Failed to delete cached QR code: " + cacheFile);
+            }
+        });
+    }
+
+    /**
+     * Looks up the QR document of an event, then renders and caches its QR code in the background.
+     *
+     * @param context   Context to access cache directory
+     * @param eventID   ID of the event
+     * @param callback  Callback receiving the rendered bitmap and its cache file on the main thread
+     */
+    private void render(Context context, String eventID, RenderCallback callback) {
+        File cacheFile = getCacheFile(context, eventID);
+
         // Retrieve QR document from Firestore asynchronously
         qrRepository.readQRByAssociation("/events/" + eventID)
                 .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
@@ -79,15 +202,19 @@ public class QRCodeGenerator {
                             QR qr = document.toObject(QR.class);
 
                             if (qr != null && qr.getQrId() != null) {
-                                // Generate and cache QR code
-                                Bitmap qrCodeBitmap = generateQRCode(qr.getQrId());
-                                if (qrCodeBitmap != null) {
-                                    saveBitmapToCache(cacheFile, qrCodeBitmap);
-                                    callback.onQRCodeReady(cacheFile.getAbsolutePath());
-                                } else {
-                                    Log.e("QRCodeGenerator", "Failed to generate QR code bitmap for qrID: " + qr.getQrId());
-                                    callback.onError("Error generating QR code");
-                                }
+                                // Generate and cache QR code off the main thread, with the event ID so scanners can load it right away
+                                Shared.executor.execute(() -> {
+                                    Bitmap qrCodeBitmap = generateQRCode(QrPayload.encode(eventID, qr.getQrId()));
+                                    if (qrCodeBitmap != null) {
+                                        Shared.bitmapCache.put(eventID, qrCodeBitmap);
+                                        saveBitmapToCache(cacheFile, qrCodeBitmap);
+                                        trimDiskCache(cacheFile.getParentFile());
+                                        Shared.mainHandler.post(() -> callback.onRendered(qrCodeBitmap, cacheFile));
+                                    } else {
+                                        Log.e("QRCodeGenerator", "Failed to generate QR code bitmap for qrID: " + qr.getQrId());
+                                        Shared.mainHandler.post(() -> callback.onError("Error generating QR code"));
+                                    }
+                                });
                             } else {
                                 Log.e("QRCodeGenerator", "QR ID not found in document for eventID: " + eventID);
                                 callback.onError("QR ID not found");
@@ -102,23 +229,26 @@ public class QRCodeGenerator {
     }
 
     /**
-     * Generate QR Code Bitmap from a given QR ID.
+     * Generate QR Code Bitmap from the given content.
+     * The raster is built one row at a time in a reused buffer and written with bulk setPixels calls.
      *
-     * @param qrID ID to encode into the QR code
+     * @param content Text to encode into the QR code, see {@link QrPayload}
      * @return Bitmap representing the QR code
      */
-    private Bitmap generateQRCode(String qrID) {
+    private Bitmap generateQRCode(String content) {
         try {
             QRCodeWriter writer = new QRCodeWriter();
-            BitMatrix bitMatrix = writer.encode(qrID, BarcodeFormat.QR_CODE, QR_CODE_WIDTH, QR_CODE_HEIGHT);
+            BitMatrix bitMatrix = writer.encode(content, BarcodeFormat.QR_CODE, QR_CODE_WIDTH, QR_CODE_HEIGHT);
 
             int width = bitMatrix.getWidth();
             int height = bitMatrix.getHeight();
             Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    bmp.setPixel(x, y, bitMatrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF);  // Black or White
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = bitMatrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;  // Black or White
                 }
+                bmp.setPixels(row, 0, width, 0, y, width, 1);
             }
             return bmp;
         } catch (WriterException e) {
@@ -127,6 +257,28 @@ public class QRCodeGenerator {
         }
     }
 
+    /**
+     * Gets the cache file of an event's QR code.
+     *
+     * @param context Context to access cache directory
+     * @param eventID ID of the event
+     * @return The cache file, which may not exist
+     */
+    private static File getCacheFile(Context context, String eventID) {
+        // Versioned, so codes cached in an older payload format are rendered again
+        return new File(context.getCacheDir(), CACHE_DIR + "/" + eventID + "_v" + QrPayload.VERSION + ".png");
+    }
+
+    /**
+     * Checks whether a cached QR code exists and is recent enough to use.
+     *
+     * @param file The cache file
+     * @return True if the file can be used
+     */
+    private static boolean isFresh(File file) {
+        return file.exists() && System.currentTimeMillis() - file.lastModified() < MAX_DISK_CACHE_AGE_MS;
+    }
+
     /**
      * Save bitmap to cache directory.
      *
@@ -142,6 +294,76 @@ public class QRCodeGenerator {
         }
     }
 
+    /**
+     * Deletes cached QR codes that are too old, then the least recently written ones until the
+     * cache fits its size limit.
+     *
+     * @param cacheDir The QR cache directory
+     */
+    private static void trimDiskCache(File cacheDir) {
+        File[] files = cacheDir != null ? cacheDir.listFiles() : null;
+        if (files == null)
+            return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+
+        for (File file : files) {
+            if (totalBytes <= MAX_DISK_CACHE_BYTES && isFresh(file))
+                break;
+
+            long length = file.length();
+            if (file.delete())
+                totalBytes -= length;
+        }
+    }
+
+    /**
+     * State shared by every QRCodeGenerator, created on first use.
+     */
+    private static class Shared {
+        static final ExecutorService executor = Executors.newSingleThreadExecutor();
+        static final Handler mainHandler = new Handler(Looper.getMainLooper());
+        static final LruCache<String, Bitmap> bitmapCache = new LruCache<String, Bitmap>(MEMORY_CACHE_BYTES) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Receives a rendered QR code and the file it was cached to.
+     */
+    private interface RenderCallback {
+        void onRendered(Bitmap bitmap, File file);
+
+        void onError(String errorMessage);
+    }
+
+    /**
+     * Callback interface for retrieving a QR code bitmap for display.
+     */
+    public interface QRBitmapCallback {
+        /**
+         * Called when the QR code bitmap is ready.
+         *
+         * @param bitmap The QR code bitmap
+         */
+        void onQRCodeReady(Bitmap bitmap);
+
+        /**
+         * Called when there is an error generating or retrieving the QR code.
+         *
+         * @param errorMessage Error message describing the issue
+         */
+        void onError(String errorMessage);
+    }
+
     /**
      * Callback interface for QR code generation and retrieval.
      */
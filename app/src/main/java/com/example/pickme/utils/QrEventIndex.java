@@ -0,0 +1,164 @@
+package com.example.pickme.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.pickme.repositories.QrRepository;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted map from QR ID to event ID, so a scanned QR code can start reading its event without
+ * waiting for the QR document.
+ * <p>
+ * Responsibilities:
+ * - Remembers the event of every QR code resolved on this device
+ * - Warms the map with the QR codes of the organizer's own events
+ * - Forgets an event's QR codes when they are regenerated, and a single code once it is found to be revoked
+ * <p>
+ * An entry is only a hint: a code regenerated on another device stays in the map until a scan finds
+ * its QR document gone, so callers confirm the QR document alongside the event read.
+ */
+public class QrEventIndex {
+    private static final String TAG = "QrEventIndex";
+    private static final String PREFS_NAME = "qrEvents";
+    private static final String EVENT_PREFIX = "/events/";
+
+    private static QrEventIndex instance;
+
+    private final SharedPreferences prefs;
+    private final Map<String, String> eventIdsByQrId = new HashMap<>();
+
+    /**
+     * Returns the index, loading the persisted map the first time.
+     *
+     * @param context Context used to access the persisted map
+     * @return The shared index
+     */
+    public static synchronized QrEventIndex getInstance(Context context) {
+        if (instance == null)
+            instance = new QrEventIndex(context.getApplicationContext());
+
+        return instance;
+    }
+
+    /**
+     * Creates the index from the persisted map.
+     *
+     * @param context Application context
+     */
+    private QrEventIndex(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getValue() instanceof String)
+                eventIdsByQrId.put(entry.getKey(), (String) entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the event a QR code belongs to.
+     *
+     * @param qrId The ID of the QR code
+     * @return The event ID, or null if the QR code has not been seen on this device
+     */
+    @Nullable
+    public String getEventId(String qrId) {
+        return eventIdsByQrId.get(qrId);
+    }
+
+    /**
+     * Records the event a QR code belongs to.
+     *
+     * @param qrId    The ID of the QR code
+     * @param eventId The ID of the event
+     */
+    public void put(String qrId, String eventId) {
+        if (eventId.equals(eventIdsByQrId.put(qrId, eventId)))
+            return;
+
+        prefs.edit().putString(qrId, eventId).apply();
+    }
+
+    /**
+     * Records the event of a QR document.
+     *
+     * @param qrDocument The QR document
+     * @return The event ID, or null if the QR document is not associated with an event
+     */
+    @Nullable
+    public String put(DocumentSnapshot qrDocument) {
+        String qrAssociation = qrDocument.getString("qrAssociation");
+        if (qrAssociation == null || !qrAssociation.startsWith(EVENT_PREFIX))
+            return null;
+
+        String eventId = qrAssociation.substring(EVENT_PREFIX.length());
+        put(qrDocument.getId(), eventId);
+        return eventId;
+    }
+
+    /**
+     * Forgets a single QR code, e.g. after its QR document was found to be deleted.
+     *
+     * @param qrId The ID of the QR code
+     */
+    public void remove(String qrId) {
+        if (eventIdsByQrId.remove(qrId) != null)
+            prefs.edit().remove(qrId).apply();
+    }
+
+    /**
+     * Forgets every QR code of an event, e.g. after its QR code was regenerated.
+     *
+     * @param eventId The ID of the event
+     */
+    public void removeEvent(String eventId) {
+        SharedPreferences.Editor editor = prefs.edit();
+        eventIdsByQrId.entrySet().removeIf(entry -> {
+            if (!entry.getValue().equals(eventId))
+                return false;
+
+            editor.remove(entry.getKey());
+            return true;
+        });
+        editor.apply();
+    }
+
+    /**
+     * Loads the QR codes of the given events that are not in the map yet, in batched queries.
+     * Meant for the organizer's own events, so their codes scan without a lookup at the door.
+     *
+     * @param eventIds The IDs of the events
+     */
+    public void warm(List<String> eventIds) {
+        List<String> associations = new ArrayList<>();
+        for (String eventId : eventIds) {
+            if (eventId != null && !eventIdsByQrId.containsValue(eventId))
+                associations.add(EVENT_PREFIX + eventId);
+        }
+
+        if (associations.isEmpty())
+            return;
+
+        QrRepository.getInstance().readQRsByAssociations(associations).addOnCompleteListener(task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                Log.e(TAG, "Failed to warm QR index", task.getException());
+                return;
+            }
+
+            for (QuerySnapshot chunk : task.getResult()) {
+                for (DocumentSnapshot qrDocument : chunk.getDocuments()) {
+                    put(qrDocument);
+                }
+            }
+            Log.d(TAG, "Warmed QR index for " + associations.size() + " events");
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.pickme.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The text encoded in an event QR code.
+ * <p>
+ * Format: {@code pickme:<version>:<eventId>:<qrId>:<checksum>}, where the checksum is a truncated
+ * HMAC-SHA256 of the version, event ID and QR ID. A scanner can read the event ID straight from the
+ * code and start loading the event without looking up the QR document first.
+ * <p>
+ * The HMAC key ships with the app, so anyone can compute a valid checksum. The checksum only detects
+ * corrupted or mistyped codes; it proves nothing about who made the code. Whether a code is still valid
+ * is decided by its QR document, which scanners read alongside the event.
+ * <p>
+ * Codes printed before this format existed hold only the QR ID; {@link #isPayload(String)} tells them apart.
+ *
+ * @version 1.1
+ */
+public class QrPayload {
+    public static final int VERSION = 1;
+
+    private static final String PREFIX = "pickme";
+    private static final String SEPARATOR = ":";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int CHECKSUM_BYTES = 12;
+    // Public, as it ships with the app; kept so codes printed so far still pass the checksum
+    private static final byte[] CHECKSUM_KEY = "pickme-event-qr-v1".getBytes(StandardCharsets.UTF_8);
+
+    private final String eventId;
+    private final String qrId;
+
+    /**
+     * Creates a payload for an event's QR code.
+     *
+     * @param eventId The ID of the event.
+     * @param qrId The ID of the event's QR document.
+     */
+    private QrPayload(String eventId, String qrId) {
+        this.eventId = eventId;
+        this.qrId = qrId;
+    }
+
+    /**
+     * Builds the text to encode in an event's QR code.
+     *
+     * @param eventId The ID of the event.
+     * @param qrId The ID of the event's QR document.
+     * @return The payload text.
+     */
+    public static String encode(String eventId, String qrId) {
+        String body = PREFIX + SEPARATOR + VERSION + SEPARATOR + eventId + SEPARATOR + qrId;
+        return body + SEPARATOR + checksum(body);
+    }
+
+    /**
+     * Checks whether scanned text uses the payload format, as opposed to a legacy QR ID.
+     *
+     * @param text The scanned text.
+     * @return True if the text should be parsed with {@link #parse(String)}.
+     */
+    public static boolean isPayload(String text) {
+        return text != null && text.startsWith(PREFIX + SEPARATOR);
+    }
+
+    /**
+     * Parses scanned payload text and checks it was read intact.
+     * The QR ID still has to be checked against its QR document before the code is trusted.
+     *
+     * @param text The scanned text.
+     * @return The payload.
+     * @throws IllegalArgumentException If the text is malformed, of an unknown version, or its checksum does not match.
+     */
+    public static QrPayload parse(String text) {
+        if (!isPayload(text)) {
+            throw new IllegalArgumentException("Not a QR payload");
+        }
+
+        String[] fields = text.split(SEPARATOR, -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Malformed QR payload");
+        }
+        if (!String.valueOf(VERSION).equals(fields[1])) {
+            throw new IllegalArgumentException("Unsupported QR payload version: " + fields[1]);
+        }
+        if (fields[2].isEmpty() || fields[3].isEmpty()) {
+            throw new IllegalArgumentException("Malformed QR payload");
+        }
+
+        String body = text.substring(0, text.lastIndexOf(SEPARATOR));
+        byte[] expected = checksum(body).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, fields[4].getBytes(StandardCharsets.US_ASCII))) {
+            throw new IllegalArgumentException("QR payload checksum mismatch");
+        }
+
+        return new QrPayload(fields[2], fields[3]);
+    }
+
+    /**
+     * Computes the checksum of a payload body; also used for {@link TicketPayload}.
+     *
+     * @param body The payload text without its checksum.
+     * @return The truncated HMAC, base64url encoded without padding.
+     */
+    static String checksum(String body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(CHECKSUM_KEY, HMAC_ALGORITHM));
+            byte[] digest = mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, CHECKSUM_BYTES));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Gets the ID of the event the code belongs to.
+     *
+     * @return The event ID.
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Gets the ID of the QR document the code was generated from.
+     *
+     * @return The QR ID.
+     */
+    public String getQrId() {
+        return qrId;
+    }
+}
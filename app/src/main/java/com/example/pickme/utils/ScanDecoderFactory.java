@@ -0,0 +1,94 @@
+package com.example.pickme.utils;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+import com.journeyapps.barcodescanner.Decoder;
+import com.journeyapps.barcodescanner.DecoderFactory;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Creates scanner decoders tuned for PickMe's QR codes.
+ * <p>
+ * The decoders only look for QR codes, skip frames while {@link ScanMetrics} reports that decoding
+ * runs over budget, and report the decode time of every frame they do decode. The camera frames carry
+ * no timestamp through the barcode view, so results are stamped with the time their frame reached the
+ * decoder instead of the time decoding finished; {@code BarcodeResult#getTimestamp()} returns it.
+ *
+ * @version 1.1
+ */
+public class ScanDecoderFactory implements DecoderFactory {
+    private final ScanMetrics metrics;
+
+    /**
+     * Creates a decoder factory.
+     *
+     * @param metrics Measurements shared with the decoders.
+     */
+    public ScanDecoderFactory(ScanMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Creates a QR-only decoder.
+     *
+     * @param baseHints Hints from the barcode view, such as the result point callback.
+     * @return The decoder.
+     */
+    @Override
+    public Decoder createDecoder(Map<DecodeHintType, ?> baseHints) {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.putAll(baseHints);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        hints.put(DecodeHintType.CHARACTER_SET, "UTF-8");
+
+        MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(hints);
+        return new MeasuredDecoder(reader, metrics);
+    }
+
+    /**
+     * Decoder that skips frames under pressure and measures the frames it decodes.
+     */
+    private static class MeasuredDecoder extends Decoder {
+        private final ScanMetrics metrics;
+
+        MeasuredDecoder(MultiFormatReader reader, ScanMetrics metrics) {
+            super(reader);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Result decode(LuminanceSource source) {
+            if (metrics.shouldSkipFrame()) {
+                return null;
+            }
+
+            long frameTimeMs = System.currentTimeMillis();
+            long start = System.nanoTime();
+            Result result = super.decode(source);
+            long end = System.nanoTime();
+            metrics.onFrameDecoded(end, end - start);
+            return result != null ? stamp(result, frameTimeMs) : null;
+        }
+
+        /**
+         * Copies a result with the time its frame reached the decoder as its timestamp.
+         *
+         * @param result The decoded result.
+         * @param frameTimeMs The wall-clock time of the frame in milliseconds.
+         * @return The stamped result.
+         */
+        private static Result stamp(Result result, long frameTimeMs) {
+            Result stamped = new Result(result.getText(), result.getRawBytes(), result.getNumBits(),
+                    result.getResultPoints(), result.getBarcodeFormat(), frameTimeMs);
+            stamped.putAllMetadata(result.getResultMetadata());
+            return stamped;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.pickme.utils;
+
+/**
+ * Suppresses repeat results for a code that stays in front of the camera.
+ * A result counts as a repeat if the same text was seen less than a window ago. Every sighting
+ * restarts the window, so a code held in view is reported once until it has been out of view for a window.
+ * A code whose handling failed can be released, after which it is reported again one window later
+ * even if it never left the view.
+ *
+ * @version 1.1
+ */
+public class ScanDeduplicator {
+    private final long windowMs;
+    private String lastText;
+    private long lastSeenMs;
+    // Whether the window of lastText runs from its release rather than its last sighting
+    private boolean released;
+
+    /**
+     * Creates a deduplicator.
+     *
+     * @param windowMs How long after its last sighting a code is still treated as a repeat.
+     */
+    public ScanDeduplicator(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Records a scanned code and checks whether it repeats the previous one.
+     *
+     * @param text The scanned text.
+     * @param nowMs The current time in milliseconds.
+     * @return True if the result should be ignored.
+     */
+    public boolean isRepeat(String text, long nowMs) {
+        boolean repeat = text.equals(lastText) && nowMs - lastSeenMs < windowMs;
+        if (!repeat || !released) {
+            lastSeenMs = nowMs;
+        }
+        if (!repeat) {
+            released = false;
+        }
+        lastText = text;
+        return repeat;
+    }
+
+    /**
+     * Releases a code whose result could not be handled, e.g. after a network failure, so it is
+     * reported again once a window has passed, whether or not it stayed in view.
+     *
+     * @param text The scanned text.
+     * @param nowMs The current time in milliseconds.
+     */
+    public void release(String text, long nowMs) {
+        if (text.equals(lastText)) {
+            lastSeenMs = nowMs;
+            released = true;
+        }
+    }
+
+    /**
+     * Forgets the last code, so the next scan of it is reported again.
+     */
+    public void reset() {
+        lastText = null;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.pickme.utils;
+
+import java.util.Locale;
+
+/**
+ * Measures the scanner's decode throughput and decides when to skip frames.
+ * <p>
+ * Responsibilities:
+ * - Tracks decoded frames per second and the average decode time per frame
+ * - Asks the decoder to skip frames while decoding runs over its time budget, so a busy device
+ *   spends less CPU on the camera and more on handling results
+ * - Tracks the latency from the camera frame a code was decoded from to its handled result
+ * <p>
+ * Frame methods are called from the decoder thread and result methods from the main thread.
+ *
+ * @version 1.1
+ */
+public class ScanMetrics {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    // Decoding slower than this on average means the device is under pressure
+    private static final long FRAME_BUDGET_NANOS = 40 * NANOS_PER_MILLI;
+    private static final int MAX_SKIPPED_FRAMES = 3;
+    private static final double SMOOTHING = 0.2;
+
+    private long decodedFrames;
+    private long skippedFrames;
+    private double averageDecodeNanos;
+    private int framesToSkip;
+
+    private boolean windowStarted;
+    private long windowStartNanos;
+    private int windowFrames;
+    private double framesPerSecond;
+
+    private long results;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    /**
+     * Checks whether the next frame should be skipped instead of decoded.
+     *
+     * @return True if the frame should be skipped.
+     */
+    public synchronized boolean shouldSkipFrame() {
+        if (framesToSkip > 0) {
+            framesToSkip--;
+            skippedFrames++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a decoded frame, whether or not it contained a code.
+     *
+     * @param nowNanos The current time in nanoseconds.
+     * @param decodeNanos How long decoding the frame took.
+     */
+    public synchronized void onFrameDecoded(long nowNanos, long decodeNanos) {
+        decodedFrames++;
+        averageDecodeNanos = decodedFrames == 1 ? decodeNanos : averageDecodeNanos + SMOOTHING * (decodeNanos - averageDecodeNanos);
+
+        // Skip one frame per budget the average decode overruns
+        framesToSkip = (int) Math.min(MAX_SKIPPED_FRAMES, (long) averageDecodeNanos / FRAME_BUDGET_NANOS);
+
+        if (!windowStarted) {
+            windowStarted = true;
+            windowStartNanos = nowNanos;
+        }
+        windowFrames++;
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed >= NANOS_PER_SECOND) {
+            framesPerSecond = (double) windowFrames * NANOS_PER_SECOND / elapsed;
+            windowStartNanos = nowNanos;
+            windowFrames = 0;
+        }
+    }
+
+    /**
+     * Records that a scanned code has been handled, e.g. its event was fetched or the entrant checked in.
+     *
+     * @param frameTimeMs The wall-clock time the frame holding the code reached the decoder, in milliseconds.
+     * @param nowMs The current wall-clock time in milliseconds.
+     */
+    public synchronized void onResultHandled(long frameTimeMs, long nowMs) {
+        long latency = Math.max(0, nowMs - frameTimeMs) * NANOS_PER_MILLI;
+        results++;
+        totalLatencyNanos += latency;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+    }
+
+    /**
+     * Gets the decoded frames per second over the last full second.
+     *
+     * @return The frame rate, or 0 before a second of frames was decoded.
+     */
+    public synchronized double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * Gets the number of frames skipped so far.
+     *
+     * @return The number of skipped frames.
+     */
+    public synchronized long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * Gets the average latency from a code's frame to its handled result.
+     *
+     * @return The average latency in milliseconds, or 0 if no result was handled.
+     */
+    public synchronized double getAverageLatencyMs() {
+        return results == 0 ? 0 : (double) totalLatencyNanos / results / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Summarizes the measurements for logging.
+     *
+     * @return A one-line summary.
+     */
+    public synchronized String summary() {
+        return String.format(Locale.US, "%.1f fps, %d decoded, %d skipped, %.1f ms avg decode, %d results, %.0f ms avg / %d ms max latency",
+                framesPerSecond, decodedFrames, skippedFrames, averageDecodeNanos / NANOS_PER_MILLI,
+                results, getAverageLatencyMs(), maxLatencyNanos / NANOS_PER_MILLI);
+    }
+}
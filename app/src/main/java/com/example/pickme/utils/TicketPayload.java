@@ -0,0 +1,99 @@
+package com.example.pickme.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * The text encoded in an entrant's ticket, which is scanned to check them in at the event's entrance.
+ * <p>
+ * Format: {@code pickme-ticket:<version>:<eventId>:<entrantId>:<checksum>}, using the same checksum as
+ * {@link QrPayload}. Like there, the checksum only detects corrupted codes; whether the entrant may enter
+ * is decided by the event's check-in manifest.
+ * <p>
+ * A ticket is not a credential: its key ships in the app, so anyone who knows an accepted entrant's device ID,
+ * as organizers and admins do, can build a valid ticket for them. This is accepted for now, because the
+ * manifest admits each entrant only once and the organizer at the entrance sees who is checked in. Tickets
+ * that cannot be forged would need a per-entrant secret, stored on the entrant document and included in
+ * the manifest so scans are still validated offline.
+ *
+ * @version 1.1
+ */
+public class TicketPayload {
+    public static final int VERSION = 1;
+
+    private static final String PREFIX = "pickme-ticket";
+    private static final String SEPARATOR = ":";
+
+    private final String eventId;
+    private final String entrantId;
+
+    /**
+     * Creates a payload for an entrant's ticket.
+     *
+     * @param eventId The ID of the event.
+     * @param entrantId The device ID of the entrant.
+     */
+    private TicketPayload(String eventId, String entrantId) {
+        this.eventId = eventId;
+        this.entrantId = entrantId;
+    }
+
+    /**
+     * Builds the text to encode in an entrant's ticket.
+     *
+     * @param eventId The ID of the event.
+     * @param entrantId The device ID of the entrant.
+     * @return The payload text.
+     */
+    public static String encode(String eventId, String entrantId) {
+        String body = PREFIX + SEPARATOR + VERSION + SEPARATOR + eventId + SEPARATOR + entrantId;
+        return body + SEPARATOR + QrPayload.checksum(body);
+    }
+
+    /**
+     * Parses scanned ticket text and checks it was read intact.
+     *
+     * @param text The scanned text.
+     * @return The payload.
+     * @throws IllegalArgumentException If the text is not a ticket, is malformed, or its checksum does not match.
+     */
+    public static TicketPayload parse(String text) {
+        if (text == null || !text.startsWith(PREFIX + SEPARATOR)) {
+            throw new IllegalArgumentException("Not a ticket");
+        }
+
+        String[] fields = text.split(SEPARATOR, -1);
+        if (fields.length != 5 || fields[2].isEmpty() || fields[3].isEmpty()) {
+            throw new IllegalArgumentException("Malformed ticket");
+        }
+        if (!String.valueOf(VERSION).equals(fields[1])) {
+            throw new IllegalArgumentException("Unsupported ticket version: " + fields[1]);
+        }
+
+        String body = text.substring(0, text.lastIndexOf(SEPARATOR));
+        byte[] expected = QrPayload.checksum(body).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, fields[4].getBytes(StandardCharsets.US_ASCII))) {
+            throw new IllegalArgumentException("Ticket checksum mismatch");
+        }
+
+        return new TicketPayload(fields[2], fields[3]);
+    }
+
+    /**
+     * Gets the ID of the event the ticket is for.
+     *
+     * @return The event ID.
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Gets the device ID of the entrant holding the ticket.
+     *
+     * @return The entrant ID.
+     */
+    public String getEntrantId() {
+        return entrantId;
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.pickme.utils;
 
+import com.google.firebase.Timestamp;
+
 /**
  * The UserNotification class represents a user notification with an ID and read status.
+ * Each one is stored as a document in the user's inbox, users/{deviceId}/inbox/{notificationID}.
  */
 public class UserNotification {
     private String notificationID;
     private boolean read;
+    private Timestamp timestamp;
 
     /**
      * Default constructor that initializes the notification with null ID and unread status.
@@ -36,6 +40,18 @@ public class UserNotification {
         this.read = read;
     }
 
+    /**
+     * Constructor that initializes the notification with a specified ID and delivery time, and unread status.
+     *
+     * @param notificationID the ID of the notification
+     * @param timestamp when the notification was delivered
+     */
+    public UserNotification(String notificationID, Timestamp timestamp){
+        this.notificationID = notificationID;
+        this.timestamp = timestamp;
+        read = false;
+    }
+
     /**
      * Gets the ID of the notification.
      *
@@ -71,4 +87,22 @@ public class UserNotification {
     public void setRead(boolean read) {
         this.read = read;
     }
+
+    /**
+     * Gets when the notification was delivered, used to order the inbox.
+     *
+     * @return the delivery time
+     */
+    public Timestamp getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets when the notification was delivered.
+     *
+     * @param timestamp the delivery time
+     */
+    public void setTimestamp(Timestamp timestamp) {
+        this.timestamp = timestamp;
+    }
 }
\ No newline at end of file
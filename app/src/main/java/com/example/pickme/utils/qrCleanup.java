@@ -1,95 +1,177 @@
 package com.example.pickme.utils;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
-import com.example.pickme.models.Event;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.repositories.QrRepository;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Utility class for cleaning up orphaned QR codes in the Firestore database.
  * Identifies QR codes associated with deleted or non-existent events and removes them
  * to maintain database integrity.
+ * <p>
+ * The cleanup runs as a throttled maintenance job: at most once per interval, some time after
+ * startup, and a bounded number of pages per run. Where it left off is persisted, so consecutive
+ * runs work through the whole collection without re-reading it every launch.
  */
 public class qrCleanup {
+    private static final String TAG = "qrCleanup";
+    private static final String PREFS_NAME = "qrCleanup";
+    private static final String LAST_RUN = "lastRun";
+    private static final String CURSOR = "cursor";
+
+    private static final long RUN_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+    private static final long START_DELAY_MS = 30_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES_PER_RUN = 5;
+
+    private static boolean running = false;
+
+    /**
+     * Schedules a cleanup run if the last one was at least an interval ago.
+     * The run starts after a delay so it does not compete with app startup.
+     *
+     * @param context Context used to read and store the job's progress.
+     */
+    public static void scheduleIfDue(Context context) {
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (running || System.currentTimeMillis() - prefs.getLong(LAST_RUN, 0) < RUN_INTERVAL_MS) {
+            return;
+        }
+
+        running = true;
+        new Handler(Looper.getMainLooper()).postDelayed(() -> cleanUpQRCodes(prefs), START_DELAY_MS);
+    }
 
     /**
      * Cleans up QR codes by removing those associated with non-existent or deleted events.
      * <p>
      * Steps involved:
      * <ul>
-     *   <li>Retrieve all QR codes from Firestore.</li>
+     *   <li>Retrieve a page of QR codes, starting after the persisted cursor.</li>
      *   <li>Extract the associated event ID from each QR code's "qrAssociation" field.</li>
-     *   <li>Check if the event exists in the database.</li>
-     *   <li>Delete QR codes linked to missing or invalid events.</li>
+     *   <li>Check which of those events exist, in batches.</li>
+     *   <li>Delete QR codes linked to missing events in a batch.</li>
      * </ul>
+     *
+     * @param prefs Preferences holding the job's cursor and last run time.
      */
-    public static void cleanUpQRCodes() {
+    private static void cleanUpQRCodes(SharedPreferences prefs) {
+        Log.d(TAG, "Starting QR cleanup from cursor: " + prefs.getString(CURSOR, null));
+        cleanUpPage(prefs, prefs.getString(CURSOR, null), 0, new int[3]);
+    }
+
+    /**
+     * Cleans up one page of QR codes and continues with the next page until the run's page budget
+     * is spent or the end of the collection is reached.
+     *
+     * @param prefs   Preferences holding the job's cursor and last run time.
+     * @param cursor  The ID of the last QR code checked, or null to start from the beginning.
+     * @param page    The number of pages processed so far in this run.
+     * @param counts  Running totals of scanned, orphaned, and deleted QR codes.
+     */
+    private static void cleanUpPage(SharedPreferences prefs, String cursor, int page, int[] counts) {
         QrRepository qrRepository = QrRepository.getInstance();
-        EventRepository eventRepository = EventRepository.getInstance();
 
-        qrRepository.getAllQRs().addOnCompleteListener(task -> {
+        qrRepository.getQRPage(PAGE_SIZE, cursor).addOnCompleteListener(task -> {
             if (!task.isSuccessful() || task.getResult() == null) {
-                Log.e("qrCleanup", "Failed to retrieve QR codes: ", task.getException());
+                Log.e(TAG, "Failed to retrieve QR codes: ", task.getException());
+                finish(prefs, cursor, counts, false);
                 return;
             }
 
-            QuerySnapshot qrDocuments = task.getResult();
-            if (qrDocuments.isEmpty()) {
-                Log.d("qrCleanup", "No QR codes found in Firestore.");
-                return;
+            List<DocumentSnapshot> qrDocuments = task.getResult().getDocuments();
+            counts[0] += qrDocuments.size();
+
+            // QR ID -> event ID, for QR codes with a valid association
+            Map<String, String> qrEvents = new HashMap<>();
+            for (DocumentSnapshot qrDoc : qrDocuments) {
+                String eventId = extractEventId(qrDoc.getId(), qrDoc.getString("qrAssociation"));
+                if (eventId != null)
+                    qrEvents.put(qrDoc.getId(), eventId);
             }
 
-            Log.d("qrCleanup", "Found " + qrDocuments.size() + " QR codes.");
-            qrDocuments.getDocuments().forEach(qrDoc -> processQRCode(qrDoc.getId(), qrDoc.getString("qrAssociation"), eventRepository, qrRepository));
+            String nextCursor = qrDocuments.isEmpty() ? cursor : qrDocuments.get(qrDocuments.size() - 1).getId();
+            boolean lastPage = qrDocuments.size() < PAGE_SIZE;
+
+            EventRepository.getInstance().getExistingEventIds(new ArrayList<>(qrEvents.values()), eventsTask -> {
+                if (!eventsTask.isSuccessful() || eventsTask.getResult() == null) {
+                    // Never treat a failed lookup as a missing event
+                    Log.e(TAG, "Failed to check event existence, stopping run: ", eventsTask.getException());
+                    finish(prefs, cursor, counts, false);
+                    return;
+                }
+
+                List<String> orphans = new ArrayList<>();
+                for (Map.Entry<String, String> qrEvent : qrEvents.entrySet()) {
+                    if (!eventsTask.getResult().contains(qrEvent.getValue()))
+                        orphans.add(qrEvent.getKey());
+                }
+                counts[1] += orphans.size();
+
+                qrRepository.deleteQRs(orphans).addOnCompleteListener(deleteTask -> {
+                    if (!deleteTask.isSuccessful()) {
+                        Log.e(TAG, "Failed to delete orphaned QR codes: ", deleteTask.getException());
+                        finish(prefs, cursor, counts, false);
+                        return;
+                    }
+                    counts[2] += orphans.size();
+
+                    if (lastPage) {
+                        // Reached the end of the collection, the next run starts over
+                        finish(prefs, null, counts, true);
+                    } else if (page + 1 >= MAX_PAGES_PER_RUN) {
+                        finish(prefs, nextCursor, counts, true);
+                    } else {
+                        cleanUpPage(prefs, nextCursor, page + 1, counts);
+                    }
+                });
+            });
         });
     }
 
     /**
-     * Processes a single QR code by checking the associated event and deleting the QR code
-     * if the event is invalid or does not exist.
+     * Extracts the event ID from a QR code's association.
      *
      * @param qrId          The ID of the QR code document.
      * @param qrAssociation The "qrAssociation" field of the QR code document.
-     * @param eventRepo     Instance of EventRepository for event lookups.
-     * @param qrRepo        Instance of QrRepository for QR code management.
+     * @return The event ID, or null if the association is invalid or missing.
      */
-    private static void processQRCode(String qrId, String qrAssociation, EventRepository eventRepo, QrRepository qrRepo) {
+    private static String extractEventId(String qrId, String qrAssociation) {
         if (qrAssociation == null || !qrAssociation.startsWith("/events/")) {
-            Log.d("qrCleanup", "Invalid or missing association for QR code: " + qrId);
-            return;
+            Log.d(TAG, "Invalid or missing association for QR code: " + qrId);
+            return null;
         }
 
-        String eventId = qrAssociation.substring("/events/".length());
-        Log.d("qrCleanup", "Extracted event ID: " + eventId);
-
-        eventRepo.getEventById(eventId, task -> {
-            if (!task.isSuccessful()) {
-                Log.e("qrCleanup", "Failed to check event existence for event ID: " + eventId + ". Deleting associated QR code.");
-                deleteQRCode(qrId, qrRepo);
-                return;
-            }
-
-            Event event = task.getResult();
-            if (event == null) {
-                Log.d("qrCleanup", "Event not found for QR code: " + qrId);
-                deleteQRCode(qrId, qrRepo);
-            } else {
-                Log.d("qrCleanup", "Event found for QR code: " + qrId);
-            }
-        });
+        return qrAssociation.substring("/events/".length());
     }
 
     /**
-     * Deletes a QR code document from Firestore and logs the result.
+     * Ends a run, storing where the next run should continue and reporting the counts.
      *
-     * @param qrId   The ID of the QR code document to delete.
-     * @param qrRepo Instance of QrRepository for QR code deletion.
+     * @param prefs      Preferences holding the job's cursor and last run time.
+     * @param cursor     The ID of the last QR code checked, or null to start over next time.
+     * @param counts     Totals of scanned, orphaned, and deleted QR codes.
+     * @param successful Whether the run completed; a failed run is retried on the next launch.
      */
-    private static void deleteQRCode(String qrId, QrRepository qrRepo) {
-        qrRepo.deleteQR(qrId)
-                .addOnSuccessListener(aVoid -> Log.d("qrCleanup", "Deleted QR code: " + qrId))
-                .addOnFailureListener(e -> Log.e("qrCleanup", "Failed to delete QR code: " + qrId, e));
+    private static void finish(SharedPreferences prefs, String cursor, int[] counts, boolean successful) {
+        SharedPreferences.Editor editor = prefs.edit().putString(CURSOR, cursor);
+        if (successful)
+            editor.putLong(LAST_RUN, System.currentTimeMillis());
+        editor.apply();
+        running = false;
+
+        Log.i(TAG, "QR cleanup " + (successful ? "finished" : "stopped") + ": scanned " + counts[0]
+                + ", orphaned " + counts[1] + ", deleted " + counts[2]);
     }
 }
@@ -3,6 +3,7 @@ package com.example.pickme.views;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -18,7 +19,9 @@ import com.example.pickme.R;
 import com.example.pickme.databinding.FragmentAdminEventsBinding;
 import com.example.pickme.models.Event;
 import com.example.pickme.repositories.EventRepository;
+import com.example.pickme.utils.PageLoader;
 import com.example.pickme.views.adapters.AdminEventAdapter;
+import com.example.pickme.views.adapters.InfiniteScrollListener;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,10 +32,15 @@ import java.util.List;
  */
 public class AdminEventsArchiveFragment extends Fragment {
 
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+
     private FragmentAdminEventsBinding binding;
     private EventRepository eventRepository;
     private final List<Event> eventList = new ArrayList<>();
     private AdminEventAdapter eventAdapter;
+    private PageLoader<Event> pageLoader;
+    private InfiniteScrollListener scrollListener;
 
     /**
      * Called to inflate the fragment's view.
@@ -83,6 +91,23 @@ public class AdminEventsArchiveFragment extends Fragment {
         binding.recyclerView.setLayoutManager(new LinearLayoutManager(requireActivity()));
         binding.recyclerView.setAdapter(eventAdapter);
 
+        // Events are loaded a page at a time as the list is scrolled
+        pageLoader = new PageLoader<>(eventRepository::getEventsPage, PAGE_SIZE, new PageLoader.Listener<Event>() {
+            @Override
+            public void onPageLoaded(List<Event> items, boolean firstPage) {
+                onEventsPageLoaded(items);
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                Log.e("AdminEventsArchive", "Failed to load events", e);
+                if (isAdded() && getView() != null && eventAdapter.getItemCount() == 0)
+                    binding.noEventsText.setVisibility(View.VISIBLE);
+            }
+        });
+        scrollListener = new InfiniteScrollListener(pageLoader, PREFETCH_DISTANCE);
+        binding.recyclerView.addOnScrollListener(scrollListener);
+
         // Search bar functionality
         binding.searchBar.addTextChangedListener(new TextWatcher() {
             @Override
@@ -91,6 +116,8 @@ public class AdminEventsArchiveFragment extends Fragment {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 eventAdapter.filter(s.toString());
+                // Keep loading while the filtered list is too short to scroll
+                binding.recyclerView.post(() -> scrollListener.checkPrefetch(binding.recyclerView));
             }
 
             @Override
@@ -101,27 +128,31 @@ public class AdminEventsArchiveFragment extends Fragment {
     }
 
     /**
-     * Loads events from the event repository and updates the event list.
-     * This method fetches data from eventRepository.
+     * Reloads the events from their first page.
+     * Further pages are loaded as the list is scrolled.
      */
     private void loadEvents() {
         eventList.clear();
+        eventAdapter.updateList(eventList);
         binding.noEventsText.setVisibility(View.GONE);
 
-        eventRepository.getAllEvents(task -> {
-            if (task.isSuccessful()) {
-                List<Event> events = task.getResult();
-                if (events != null) {
-                    eventList.clear();
-                    eventList.addAll(events);
-                    eventAdapter.updateList(eventList);
-                    binding.noEventsText.setVisibility(eventList.isEmpty() ? View.VISIBLE : View.GONE);
-                } else{
-                    binding.noEventsText.setVisibility(View.VISIBLE);
-                }
-            } else {
-                binding.noEventsText.setVisibility(View.VISIBLE);
-            }
-        });
+        pageLoader.reset();
+        pageLoader.loadNextPage();
+    }
+
+    /**
+     * Adds a loaded page of events to the list.
+     *
+     * @param events The events on the page.
+     */
+    private void onEventsPageLoaded(List<Event> events) {
+        if (!isAdded() || getView() == null)
+            return;
+
+        eventAdapter.appendList(events);
+        binding.noEventsText.setVisibility(eventAdapter.getItemCount() == 0 && !pageLoader.hasMore() ? View.VISIBLE : View.GONE);
+
+        // Fill the screen if the page was too short to scroll
+        binding.recyclerView.post(() -> scrollListener.checkPrefetch(binding.recyclerView));
     }
 }
@@ -2,9 +2,11 @@ package com.example.pickme.views;
 
 import android.app.AlertDialog;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.Button;
 import android.widget.GridView;
@@ -18,9 +20,15 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
 import com.example.pickme.R;
 import com.example.pickme.models.Image;
 import com.example.pickme.repositories.ImageRepository;
+import com.example.pickme.utils.GalleryAdapter;
+import com.example.pickme.utils.PageLoader;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Admin image catalog class that allows admins to browse, view, and delete images
@@ -28,8 +36,16 @@ import com.example.pickme.repositories.ImageRepository;
  */
 public class AdminGalleryFragment extends Fragment {
 
+    private static final int PAGE_SIZE = 60;
+    private static final int PREFETCH_DISTANCE = 15;
+    // Tiles past the visible ones whose images are loaded ahead of scrolling
+    private static final int PRELOAD_DISTANCE = 12;
+
     private final ImageRepository ir = ImageRepository.getInstance();
     private GridView gallery;
+    private final ArrayList<Image> images = new ArrayList<>();
+    private GalleryAdapter adapter;
+    private PageLoader<Image> pageLoader;
 
     /**
      * Called when the fragment is navigated to and creates the view.
@@ -61,7 +77,40 @@ public class AdminGalleryFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         gallery = view.findViewById(R.id.imageCatalogGridView);
-        ir.getAllImages(view.getContext(), gallery);
+        adapter = new GalleryAdapter(view.getContext(), images);
+        gallery.setAdapter(adapter);
+
+        // images are loaded a page at a time, requesting the next page before the grid runs out
+        pageLoader = new PageLoader<>(ir::getImagesPage, PAGE_SIZE, new PageLoader.Listener<Image>() {
+            @Override
+            public void onPageLoaded(List<Image> items, boolean firstPage) {
+                if (isAdded() && getView() != null)
+                    adapter.addAll(items);
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                Log.e("AdminGalleryFragment", "Failed to load images", e);
+            }
+        });
+        // a grid takes a single scroll listener, so it forwards to the preloader
+        ListPreloader<Image> preloader = new ListPreloader<>(
+                Glide.with(this), adapter, adapter.getPreloadSizeProvider(), PRELOAD_DISTANCE);
+        gallery.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView absListView, int scrollState) {
+                preloader.onScrollStateChanged(absListView, scrollState);
+            }
+
+            @Override
+            public void onScroll(AbsListView absListView, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                preloader.onScroll(absListView, firstVisibleItem, visibleItemCount, totalItemCount);
+                // also called after each layout, so a page too short to fill the grid loads the next one
+                if (firstVisibleItem + visibleItemCount >= totalItemCount - PREFETCH_DISTANCE)
+                    pageLoader.loadNextPage();
+            }
+        });
+        loadImages();
 
         // gallery item click handler
         gallery.setOnItemClickListener((adapterView, view1, i, l) -> {
@@ -76,13 +125,19 @@ public class AdminGalleryFragment extends Fragment {
 
         // refresh button
         ImageView refreshButton = view.findViewById(R.id.imageCatalogRefresh);
-        refreshButton.setOnClickListener(v ->  {
-            gallery.setAdapter(null);
-            ir.getAllImages(view.getContext(), gallery);
-        });
+        refreshButton.setOnClickListener(v -> loadImages());
 
     }
 
+    /**
+     * Clears the gallery and loads it again from the first page.
+     */
+    private void loadImages() {
+        adapter.clear();
+        pageLoader.reset();
+        pageLoader.loadNextPage();
+    }
+
     /**
      * Creates a custom dialog showing a larger version of the image clicked, information about
      * the image, and a deletion prompt.
@@ -107,7 +162,7 @@ public class AdminGalleryFragment extends Fragment {
         ImageView iv = dialogView.findViewById(R.id.dialogGalleryImageView);
         Glide
                 .with(view.getContext())
-                .load(img.getImageUrl())
+                .load(img)
                 .error(R.drawable.ic_disabled)
                 .into(iv);
 
@@ -121,7 +176,8 @@ public class AdminGalleryFragment extends Fragment {
                         this.getContext(),
                         "Image deleted",
                         Toast.LENGTH_SHORT).show();
-                ir.getAllImages(view.getContext(), gallery);
+                // remove the tile in place rather than reloading every page loaded so far
+                adapter.remove(img);
             } else {
                 Toast.makeText(
                         this.getContext(),
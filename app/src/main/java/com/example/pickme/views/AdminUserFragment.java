@@ -1,11 +1,11 @@
 package com.example.pickme.views;
 
-import android.annotation.SuppressLint;
 import android.app.AlertDialog;
 import android.app.Dialog;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -26,6 +26,8 @@ import com.example.pickme.models.Facility;
 import com.example.pickme.models.User;
 import com.example.pickme.repositories.FacilityRepository;
 import com.example.pickme.repositories.UserRepository;
+import com.example.pickme.utils.PageLoader;
+import com.example.pickme.views.adapters.InfiniteScrollListener;
 import com.example.pickme.views.adapters.UserProfilesAdapter;
 import com.google.firebase.firestore.DocumentSnapshot;
 
@@ -38,11 +40,16 @@ import java.util.List;
  */
 public class AdminUserFragment extends Fragment implements UserProfilesAdapter.OnItemClickListener{
 
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+
     private FragmentAdminUsersBinding binding;
     private UserRepository userRepository;
     private FacilityRepository facilityRepository;
     private List<User> usersList = new ArrayList<>();
     private UserProfilesAdapter userProfilesAdapter;
+    private PageLoader<User> pageLoader;
+    private InfiniteScrollListener scrollListener;
 
     /**
      * Called to inflate the fragment's view.
@@ -85,10 +92,25 @@ public class AdminUserFragment extends Fragment implements UserProfilesAdapter.O
         // Back button logic
         binding.imageCatalogBack.setOnClickListener(listener -> Navigation.findNavController(requireView()).navigateUp());
 
-        // Setting up the RecyclerView
+        // Setting up the RecyclerView, loading users a page at a time as the list is scrolled
         binding.allUsersList.setLayoutManager(new LinearLayoutManager(requireActivity()));
         userProfilesAdapter = new UserProfilesAdapter(requireActivity(), usersList, this);
         binding.allUsersList.setAdapter(userProfilesAdapter);
+        pageLoader = new PageLoader<>(userRepository::getUsersPage, PAGE_SIZE, new PageLoader.Listener<User>() {
+            @Override
+            public void onPageLoaded(List<User> items, boolean firstPage) {
+                onUsersPageLoaded(items);
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                Log.e("AdminUserFragment", "Failed to load users", e);
+                if (isAdded() && getView() != null && userProfilesAdapter.getItemCount() == 0)
+                    binding.noUsersText.setVisibility(View.VISIBLE);
+            }
+        });
+        scrollListener = new InfiniteScrollListener(pageLoader, PREFETCH_DISTANCE);
+        binding.allUsersList.addOnScrollListener(scrollListener);
 
         // Search bar logic to filter users
         binding.searchBar.addTextChangedListener(new TextWatcher() {
@@ -98,6 +120,8 @@ public class AdminUserFragment extends Fragment implements UserProfilesAdapter.O
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 userProfilesAdapter.filter(s.toString());
+                // Keep loading while the filtered list is too short to scroll
+                binding.allUsersList.post(() -> scrollListener.checkPrefetch(binding.allUsersList));
             }
 
             @Override
@@ -108,39 +132,38 @@ public class AdminUserFragment extends Fragment implements UserProfilesAdapter.O
 
 
     /**
-     * Loads the user data into the list, typically from a remote source or database.
-     * This method fetches data from userRepository.
+     * Reloads the user list from its first page.
+     * Further pages are loaded as the list is scrolled.
      */
     private void loadUserData() {
         usersList.clear();
+        userProfilesAdapter.updateList(usersList);
         binding.noUsersText.setVisibility(View.GONE);
 
-        // Fetch data from userRepository.
-        userRepository.getAllUsers(query -> {
-            if (query.isSuccessful()) {
-                List<DocumentSnapshot> docs = query.getResult().getDocuments();
+        pageLoader.reset();
+        pageLoader.loadNextPage();
+    }
 
-                for (DocumentSnapshot doc : docs) {
-                    User user = doc.toObject(User.class);
-                    if (user != null) {
-                        usersList.add(user);
-                    }
-                }
+    /**
+     * Adds a loaded page of users to the list.
+     *
+     * @param users The users on the page.
+     */
+    private void onUsersPageLoaded(List<User> users) {
+        if (!isAdded() || getView() == null)
+            return;
 
-                // Notify the adapter that the data has changed.
-                userProfilesAdapter.updateList(usersList);
+        userProfilesAdapter.appendList(users);
 
-                // Backup message for is user information is not loading.
-                if (usersList.isEmpty()) {
-                    binding.noUsersText.setVisibility(View.VISIBLE);
-                } else {
-                    binding.noUsersText.setVisibility(View.GONE);
-                }
+        // Backup message for is user information is not loading.
+        if (userProfilesAdapter.getItemCount() == 0 && !pageLoader.hasMore()) {
+            binding.noUsersText.setVisibility(View.VISIBLE);
+        } else {
+            binding.noUsersText.setVisibility(View.GONE);
+        }
 
-            } else {
-                binding.noUsersText.setVisibility(View.VISIBLE);
-            }
-        });
+        // Fill the screen if the page was too short to scroll
+        binding.allUsersList.post(() -> scrollListener.checkPrefetch(binding.allUsersList));
     }
 
     /**
@@ -149,7 +172,6 @@ public class AdminUserFragment extends Fragment implements UserProfilesAdapter.O
      * @param user The user item that was clicked.
      * @param pos The position of the clicked item in the list.
      */
-    @SuppressLint("NotifyDataSetChanged")
     private void deleteUser(User user, int pos) {
 
         // Inflate the custom layout via View Binding
@@ -166,11 +188,9 @@ public class AdminUserFragment extends Fragment implements UserProfilesAdapter.O
         binding.deleteButton.setOnClickListener(view -> {
             userRepository.deleteUser(user.getDeviceId());
             dialogue.dismiss();
-            usersList.clear();
-            userProfilesAdapter.notifyDataSetChanged();
             Toast.makeText(requireContext(), "User deleted successfully!", Toast.LENGTH_SHORT).show();
-            userProfilesAdapter.updateList(usersList);
-            loadUserData();
+            // Remove the user in place rather than reloading every page loaded so far
+            userProfilesAdapter.removeUser(user);
         });
 
         binding.cancelButton.setOnClickListener(view -> dialogue.dismiss());
@@ -24,7 +24,6 @@ import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Event;
 import com.example.pickme.models.Notification;
 import com.example.pickme.models.User;
-import com.example.pickme.models.WaitingListEntrant;
 import com.example.pickme.repositories.NotificationRepository;
 import com.example.pickme.utils.NotificationHelper;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -124,21 +123,19 @@ public class CreateNotificationFragment extends Fragment {
                 notification.setDateTimeNow();
                 notification.setEventID(event.getEventId());
 
-                createSendList(notification, () -> {
+                // the recipients are the event's entrants at the selected level, resolved when it is sent
+                NotificationRepository repo = NotificationRepository.getInstance();
 
-                    NotificationRepository repo = NotificationRepository.getInstance();
+                repo.addNotification(notification, task ->{
+                        Toast.makeText(
+                        view.getContext(),
+                        "Notification Sent",
+                        Toast.LENGTH_SHORT).show();
 
-                    repo.addNotification(notification, task ->{
-                            Toast.makeText(
-                            view.getContext(),
-                            "Notification Sent",
-                            Toast.LENGTH_SHORT).show();
+                        new NotificationHelper().sendNotification(notification);
+                    });
 
-                            new NotificationHelper().sendNotification(notification);
-                        });
-
-                    getActivity().getOnBackPressedDispatcher().onBackPressed(); //return to prev screen
-                });
+                getActivity().getOnBackPressedDispatcher().onBackPressed(); //return to prev screen
 
             }
         });
@@ -165,22 +162,6 @@ public class CreateNotificationFragment extends Fragment {
             public void afterTextChanged(Editable s) {}
         });
     }
-
-    /**
-     * Creates the list of people to send the notification to based on the sendLevel of the notification
-     *
-     * @param notification the notification to update the list of
-     * @param task the task to run after this process is done
-     */
-    private void createSendList(Notification notification, Runnable task){
-
-        for(WaitingListEntrant entrant : event.getWaitingList()){
-            if(notification.getLevel() == EntrantStatus.ALL || notification.getLevel() == entrant.getStatus())
-                notification.getSendTo().add(entrant.getEntrantId());
-        }
-
-        task.run();
-    }
 }
 
 /*
@@ -381,21 +381,27 @@ public class EventCreationFragment extends Fragment {
 
                 if (event == null) {
                     // Create a new event
-                    Event newEvent = new Event(
-                            null,
-                            organizerId,
-                            facilityId,
-                            eventTitle,
-                            eventDescription,
-                            dateTime,
-                            null,  // set to null here, will be initialized in EventRepository
-                            eventLocation,
-                            maxWinners,
-                            isGeolocationRequired,
-                            maxEntrants,
-                            null,  // set to null here, will be initialized in EventRepository
-                            false    // set to null here, will be initialized in EventRepository
-                    );
+                    Event newEvent;
+                    try {
+                        newEvent = new Event(
+                                null,
+                                organizerId,
+                                facilityId,
+                                eventTitle,
+                                eventDescription,
+                                dateTime,
+                                null,  // set to null here, will be initialized in EventRepository
+                                eventLocation,
+                                maxWinners,
+                                isGeolocationRequired,
+                                maxEntrants,
+                                null,  // set to null here, will be initialized in EventRepository
+                                false    // set to null here, will be initialized in EventRepository
+                        );
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(requireActivity(), "Please enter a valid date and time", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
 
                     eventRepository.addEvent(newEvent, selectedImageUri, addEventTask -> {
                         if (addEventTask.isSuccessful()) {
@@ -406,9 +412,14 @@ public class EventCreationFragment extends Fragment {
                         }
                     });
                 } else {
+                    try {
+                        event.setEventDate(dateTime);
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(requireActivity(), "Please enter a valid date and time", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
                     event.setEventTitle(eventTitle);
                     event.setEventDescription(eventDescription);
-                    event.setEventDate(dateTime);
                     event.setEventLocation(eventLocation);
                     event.setMaxWinners(maxWinners);
                     event.setMaxEntrants(maxEntrants);
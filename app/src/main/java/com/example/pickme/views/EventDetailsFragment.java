@@ -1,6 +1,8 @@
 package com.example.pickme.views;
 
 import android.app.Dialog;
+import android.content.res.ColorStateList;
+import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -19,16 +21,22 @@ import androidx.navigation.Navigation;
 
 import com.bumptech.glide.Glide;
 import com.example.pickme.R;
+import com.example.pickme.databinding.DialogEntrantTicketBinding;
 import com.example.pickme.databinding.DialogGeoLocationBinding;
 import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Event;
 import com.example.pickme.models.User;
+import com.example.pickme.models.WaitingList;
 import com.example.pickme.models.WaitingListEntrant;
 import com.example.pickme.repositories.EventRepository;
+import com.example.pickme.repositories.QrRepository;
 import com.example.pickme.repositories.UserRepository;
 import com.example.pickme.utils.GeoLocationUtils;
 import com.example.pickme.utils.LotteryUtils;
+import com.example.pickme.utils.QRCodeGenerator;
+import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.Objects;
 
@@ -46,6 +54,12 @@ public class EventDetailsFragment extends Fragment {
     String logText = "";
     String toastText = "";
     private WaitingListEntrant entrant;
+    private ListenerRegistration eventRegistration;
+    // Counts come from the event document until the waiting list has loaded
+    private boolean waitingListLoaded = false;
+    // Colors of the waitlist button as laid out, restored when it is enabled again
+    private ColorStateList waitlistBtnTint;
+    private ColorStateList waitlistBtnTextColors;
 
     /**
      * Inflates the layout for this fragment.
@@ -60,6 +74,18 @@ public class EventDetailsFragment extends Fragment {
         return inflater.inflate(R.layout.event_details, container, false);
     }
 
+    /**
+     * Stops listening for changes to the event once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (eventRegistration != null) {
+            eventRegistration.remove();
+            eventRegistration = null;
+        }
+    }
+
     /**
      * Called after the view has been created.
      *
@@ -78,9 +104,21 @@ public class EventDetailsFragment extends Fragment {
             userRepository = UserRepository.getInstance();
             lotteryUtils = new LotteryUtils();
 
-            configureView(view, currentUser);
             displayEventDetails(view);
-            eventRepository.attachEvent(event, () -> {
+            eventRepository.loadWaitingList(event, task -> {
+                if (!isAdded() || getView() == null)
+                    return;
+
+                if (!task.isSuccessful()) {
+                    Log.e("EVENT", "Failed to load waiting list", task.getException());
+                    Toast.makeText(getContext(), "Failed to load waitlist", Toast.LENGTH_SHORT).show();
+                } else {
+                    waitingListLoaded = true;
+                }
+                configureView(view, currentUser);
+                displayEventDetails(view);
+            });
+            eventRegistration = eventRepository.attachEvent(event, () -> {
                 if (event.getEventId() == null){
                     Toast.makeText(getContext(), "Event deleted", Toast.LENGTH_SHORT).show();
                     Navigation.findNavController(requireView()).navigate(R.id.action_eventDetailsFragment_to_myEventsFragment);
@@ -110,8 +148,16 @@ public class EventDetailsFragment extends Fragment {
      */
     private void displayEventDetails(View view) {
         if (event != null) {
-            int waitingEntrantsCount = (int) event.getWaitingList().stream().filter(entrant -> entrant.getStatus() == EntrantStatus.WAITING || entrant.getStatus() == EntrantStatus.REJECTED).count();
-            int winnerEntrantsCount  = (int) event.getWaitingList().stream().filter(entrant -> entrant.getStatus() == EntrantStatus.SELECTED || entrant.getStatus() == EntrantStatus.ACCEPTED).count();
+            int waitingEntrantsCount;
+            int winnerEntrantsCount;
+            if (waitingListLoaded) {
+                WaitingList waitingList = event.getWaitingListIndex();
+                waitingEntrantsCount = waitingList.count(EntrantStatus.WAITING, EntrantStatus.REJECTED);
+                winnerEntrantsCount  = waitingList.count(EntrantStatus.SELECTED, EntrantStatus.ACCEPTED);
+            } else {
+                waitingEntrantsCount = event.getEntrantCount(EntrantStatus.WAITING, EntrantStatus.REJECTED);
+                winnerEntrantsCount  = event.getEntrantCount(EntrantStatus.SELECTED, EntrantStatus.ACCEPTED);
+            }
 
             setText(view, R.id.eventDetails_eventTitle, event.getEventTitle() != null ? event.getEventTitle() : " ");
             setText(view, R.id.eventDetails_eventDesc, event.getEventDescription() != null ? event.getEventDescription() : "No description set for the event");
@@ -120,7 +166,7 @@ public class EventDetailsFragment extends Fragment {
             setText(view, R.id.eventDetails_maxWinners, event.getMaxWinners() != 0 ? winnerEntrantsCount + " / " + event.getMaxWinners() + (event.getMaxWinners() == 1 ? " Winner" : " Winners") : " ");
             setText(view, R.id.eventDetails_maxEntrants, waitingEntrantsCount + " / " + (event.getMaxEntrants() != null ? event.getMaxEntrants() + (event.getMaxEntrants() == 1 ? " Entrant" : " Entrants") : "No waitlist limit"));
 
-            loadImage(view, R.id.eventDetails_poster, event.getPosterImageId());
+            loadImage(view, R.id.eventDetails_poster, event.getPosterPreviewUrl() != null ? event.getPosterPreviewUrl() : event.getPosterImageId());
         }
     }
 
@@ -154,12 +200,9 @@ public class EventDetailsFragment extends Fragment {
         if (event!=null && !event.getHasLotteryExecuted() && !isOrganizer) {
             view.findViewById(R.id.eventDetails_joinWaitlistBtn).setVisibility(View.VISIBLE);
             configWaitlistBtn(view);
-        } else if (!isOrganizer) {
+        } else if (!isOrganizer && waitingListLoaded) {
             // need to check if the current user is an entrant of the waiting list
-            WaitingListEntrant userEntrant = event.getWaitingList().stream()
-                .filter(entrant -> entrant.getEntrantId().equals(currentUser.getDeviceId()))
-                .findFirst()
-                .orElse(null);
+            WaitingListEntrant userEntrant = event.getWaitingListIndex().get(currentUser.getDeviceId());
 
             if (userEntrant != null) {
                 // User is an entrant on waiting list
@@ -194,6 +237,8 @@ public class EventDetailsFragment extends Fragment {
         Log.i("EVENT", "in config response buttons");
 
         lotteryResultText.setVisibility(View.VISIBLE);
+        lotteryResultText.setOnClickListener(null);
+        lotteryResultText.setClickable(false);
 
         switch (userEntrant.getStatus()) {
             case SELECTED:
@@ -206,10 +251,11 @@ public class EventDetailsFragment extends Fragment {
                 declineBtn.setVisibility(View.VISIBLE);
 
                 acceptBtn.setOnClickListener(v -> {
-                    userEntrant.setStatus(EntrantStatus.ACCEPTED);
-                    eventRepository.updateEvent(event, null, task -> {
+                    event.getWaitingListIndex().setStatus(userEntrant, EntrantStatus.ACCEPTED);
+                    eventRepository.upsertEntrant(event.getEventId(), userEntrant, task -> {
                         if (task.isSuccessful()) {
                             Toast.makeText(requireContext(), "You have accepted the invitation", Toast.LENGTH_SHORT).show();
+                            refreshView();
                         } else {
                             Toast.makeText(requireContext(), "Failed to accept invitation", Toast.LENGTH_SHORT).show();
                         }
@@ -217,10 +263,11 @@ public class EventDetailsFragment extends Fragment {
                 });
 
                 declineBtn.setOnClickListener(v -> {
-                    entrant.setStatus(EntrantStatus.CANCELLED);
-                    eventRepository.updateEvent(event, null, task -> {
+                    event.getWaitingListIndex().setStatus(userEntrant, EntrantStatus.CANCELLED);
+                    eventRepository.upsertEntrant(event.getEventId(), userEntrant, task -> {
                         if (task.isSuccessful()) {
                             Toast.makeText(requireContext(), "You have declined the invitation", Toast.LENGTH_SHORT).show();
+                            refreshView();
                         } else {
                             Toast.makeText(requireContext(), "Failed to decline invitation", Toast.LENGTH_SHORT).show();
                         }
@@ -246,8 +293,9 @@ public class EventDetailsFragment extends Fragment {
                 break;
 
             case ACCEPTED:
-                lotteryResultText.setText("You have already accepted the invitation");
+                lotteryResultText.setText("You have already accepted the invitation\nTap to show your ticket");
                 lotteryResultText.setBackgroundResource(R.drawable.selected_entrant_bg);
+                lotteryResultText.setOnClickListener(v -> dialogTicket());
                 break;
         }
     }
@@ -262,24 +310,25 @@ public class EventDetailsFragment extends Fragment {
         Log.i("EVENT", "in config");
 
         View waitlistBtn = view.findViewById(R.id.eventDetails_joinWaitlistBtn);
-        int waitingEntrantsCount = (int) event.getWaitingList().stream().filter(entrant -> entrant.getStatus() == EntrantStatus.WAITING).count();
+        WaitingList waitingList = event.getWaitingListIndex();
+        int waitingEntrantsCount = waitingList.count(EntrantStatus.WAITING);
 
         String buttonText = "";
         boolean enableButton = false;
 
-        EntrantStatus status;
-        alreadyIn = false;
-        for(WaitingListEntrant entrant : event.getWaitingList()){
-            if(entrant.getEntrantId().equals(User.getInstance().getDeviceId())){
-                this.alreadyIn = true;
-                this.entrant = entrant;
-                status = entrant.getStatus();
-                Log.i("EVENT", "Status: " + status.toString());
-                break;
-            }
+        WaitingListEntrant userEntrant = waitingList.get(User.getInstance().getDeviceId());
+        alreadyIn = userEntrant != null;
+        if (alreadyIn) {
+            this.entrant = userEntrant;
+            Log.i("EVENT", "Status: " + userEntrant.getStatus().toString());
         }
 
-        if(event.getMaxEntrants() != null && waitingEntrantsCount >= event.getMaxEntrants()){
+        if(!waitingListLoaded){
+            // until the waiting list has loaded, an existing entrant would look like a new one
+            buttonText = "Loading waitlist...";
+            enableButton = false;
+        }
+        else if(event.getMaxEntrants() != null && waitingEntrantsCount >= event.getMaxEntrants()){
             buttonText = "Waitlist is full - try again later";
             enableButton = false;
         }
@@ -307,9 +356,17 @@ public class EventDetailsFragment extends Fragment {
         ((TextView) waitlistBtn).setText(buttonText);
         waitlistBtn.setEnabled(enableButton);
 
+        if (waitlistBtnTint == null) {
+            waitlistBtnTint = waitlistBtn.getBackgroundTintList();
+            waitlistBtnTextColors = ((TextView) waitlistBtn).getTextColors();
+        }
         if (!enableButton) {
             waitlistBtn.setBackgroundTintList(ContextCompat.getColorStateList(requireContext(), R.color.disabledButtonBG));
             ((TextView) waitlistBtn).setTextColor(ContextCompat.getColor(requireContext(), R.color.disabledButtonTxt));
+        } else {
+            // the button starts disabled while the waiting list loads
+            waitlistBtn.setBackgroundTintList(waitlistBtnTint);
+            ((TextView) waitlistBtn).setTextColor(waitlistBtnTextColors);
         }
 
         // Geolocation part //
@@ -333,6 +390,34 @@ public class EventDetailsFragment extends Fragment {
         });
     }
 
+    /**
+     * Shows the current user's ticket, which organizers scan to check them in at the entrance.
+     */
+    private void dialogTicket() {
+        Dialog dialogue = new Dialog(requireContext());
+        DialogEntrantTicketBinding binding = DialogEntrantTicketBinding.inflate(LayoutInflater.from(requireContext()));
+        dialogue.setContentView(binding.getRoot());
+
+        new QRCodeGenerator(QrRepository.getInstance()).getTicketBitmap(event.getEventId(), currentUser.getDeviceId(), new QRCodeGenerator.QRBitmapCallback() {
+            @Override
+            public void onQRCodeReady(Bitmap bitmap) {
+                binding.ticketImage.setImageBitmap(bitmap);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e("EVENT", "Failed to show ticket: " + errorMessage);
+                dialogue.dismiss();
+                if (isAdded()) {
+                    Toast.makeText(requireContext(), "Failed to show ticket", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+
+        binding.close.setOnClickListener(v -> dialogue.dismiss());
+        dialogue.show();
+    }
+
     private void dialogGeoLocation(){
         // Create a dialogue instance
         Dialog dialogue = new Dialog(requireContext());
@@ -398,7 +483,7 @@ public class EventDetailsFragment extends Fragment {
                     location,
                     EntrantStatus.WAITING
             );
-            event.getWaitingList().add(waitingListEntrant);
+            event.getWaitingListIndex().add(waitingListEntrant);
             currentUser.getEventIDs().add(event.getEventId());
 
             UserRepository.updateUser(currentUser, task -> {
@@ -407,11 +492,22 @@ public class EventDetailsFragment extends Fragment {
                 }
             });
 
-            EventRepository.getInstance().updateEvent(event, null, task -> {
-                if (task.isSuccessful()) {
+            EventRepository.getInstance().addEntrantIfAbsent(event.getEventId(), waitingListEntrant, task -> {
+                if (!isAdded())
+                    return;
+
+                if (task.isSuccessful() && Boolean.TRUE.equals(task.getResult())) {
                     Log.i("EVENT", "Added user to waitlist");
                     Toast.makeText(requireContext(), "You successfully joined the waitlist", Toast.LENGTH_SHORT).show();
+                    refreshView();
+                } else if (task.isSuccessful()) {
+                    // already an entrant; show the stored entrant instead of the local one
+                    Log.i("EVENT", "User was already on the waitlist");
+                    event.getWaitingListIndex().remove(waitingListEntrant.getEntrantId());
+                    reloadEntrant();
                 } else {
+                    event.getWaitingListIndex().remove(waitingListEntrant.getEntrantId());
+                    refreshView();
                     Log.i("EVENT", "Failed to add user to waitlist");
                     Toast.makeText(requireContext(), "Failed to join waitlist. Please try again.", Toast.LENGTH_SHORT).show();
                 }
@@ -419,22 +515,24 @@ public class EventDetailsFragment extends Fragment {
             return;
         }
 
+        boolean leaving = false;
         switch (entrant.getStatus()) {
             case WAITING:
-                event.getWaitingList().remove(entrant);
+                leaving = true;
+                event.getWaitingListIndex().remove(entrant.getEntrantId());
                 currentUser.getEventIDs().remove(event.getEventId());
                 logText = "Removed user from waitlist";
                 toastText = "You successfully left the waitlist";
                 break;
 
             case SELECTED:
-                entrant.setStatus(EntrantStatus.ACCEPTED);
+                event.getWaitingListIndex().setStatus(entrant, EntrantStatus.ACCEPTED);
                 logText = "User accepted event";
                 toastText = "You successfully accepted the invitation";
                 break;
 
             case CANCELLED:
-                entrant.setStatus(EntrantStatus.WAITING);
+                event.getWaitingListIndex().setStatus(entrant, EntrantStatus.WAITING);
                 logText = "User rejoined waitlist after rejection";
                 toastText = "You successfully rejoined the waitlist";
                 break;
@@ -446,17 +544,47 @@ public class EventDetailsFragment extends Fragment {
             }
         });
 
-        EventRepository.getInstance().updateEvent(event, null, task -> {
+        OnCompleteListener<Void> onEntrantUpdated = task -> {
             if (task.isSuccessful()) {
                 Log.i("EVENT", logText);
                 Toast.makeText(requireContext(), toastText, Toast.LENGTH_SHORT).show();
+                refreshView();
             } else {
                 Log.i("EVENT", "Failed to update waitlist: " + logText);
                 Toast.makeText(requireContext(), "Something went wrong. Please try again.", Toast.LENGTH_SHORT).show();
             }
+        };
+
+        if (leaving) {
+            EventRepository.getInstance().removeEntrant(event.getEventId(), entrant, onEntrantUpdated);
+        } else {
+            EventRepository.getInstance().upsertEntrant(event.getEventId(), entrant, onEntrantUpdated);
+        }
+    }
+
+    /**
+     * Reads the current user's entrant document and puts it on the local waiting list, then re-renders the view.
+     */
+    private void reloadEntrant() {
+        eventRepository.getEntrant(event.getEventId(), currentUser.getDeviceId(), task -> {
+            if (task.isSuccessful() && task.getResult() != null) {
+                event.getWaitingListIndex().add(task.getResult());
+            }
+            refreshView();
         });
     }
 
+    /**
+     * Re-renders the view after a local change to the waiting list.
+     */
+    private void refreshView() {
+        if (!isAdded() || getView() == null)
+            return;
+
+        configureView(getView(), currentUser);
+        displayEventDetails(getView());
+    }
+
     /**
      * Configures the lottery button based on the event status.
      */
@@ -466,7 +594,7 @@ public class EventDetailsFragment extends Fragment {
         if (!event.getHasLotteryExecuted()) {
             // If lottery hasn't been run, set up click listener to open LotteryRunDialog
             lotteryBtn.setOnClickListener(v -> {
-                if (event.getWaitingList().isEmpty()) {
+                if (event.getWaitingListIndex().count(EntrantStatus.ALL) == 0) {
                     Toast.makeText(getContext(), "Waitinglist is empty - lottery cannot run", Toast.LENGTH_LONG).show();
                 } else {
                     LotteryRunDialog.showDialog(getParentFragmentManager(), event);
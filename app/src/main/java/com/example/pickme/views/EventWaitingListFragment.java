@@ -23,19 +23,26 @@ import com.google.android.gms.maps.MapView;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Fragment representing the waiting list for an event.
  */
 public class EventWaitingListFragment extends Fragment implements OnMapReadyCallback {
+    private static final int PREFETCH_DISTANCE = 10;
+
     private Event event;
     private RecyclerView waitingListRecyclerView;
     private WaitingListAdapter waitingListAdapter;
     private ArrayList<WaitingListEntrant> entrants = new ArrayList<>();
     private MapView mapView;
     private GoogleMap googleMap;
+    private DocumentSnapshot lastEntrantDoc;
+    private boolean loadingPage = false;
+    private boolean lastPageLoaded = false;
 
     /**
      * Inflates the layout for this fragment.
@@ -85,28 +92,74 @@ public class EventWaitingListFragment extends Fragment implements OnMapReadyCall
     }
 
     /**
-     * Loads the waiting list entrants for the event and sets up the RecyclerView adapter.
+     * Sets up the RecyclerView adapter and loads the waiting list entrants one page at a time,
+     * fetching the next page as the user scrolls towards the end of the list.
      */
     private void loadWaitingListEntrants() {
-        entrants = event.getWaitingList();
-
-        for(WaitingListEntrant e : entrants){
-            Log.i("WAITLIST", "ID: " + e.getEntrantId());
-        }
-
+        entrants = new ArrayList<>();
         waitingListAdapter = new WaitingListAdapter(entrants, getContext());
         waitingListRecyclerView.setAdapter(waitingListAdapter);
 
-        EventRepository.getInstance().attachEvent(event, () -> {
-            waitingListAdapter.notifyDataSetChanged();
+        waitingListRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null && layoutManager.findLastVisibleItemPosition() >= entrants.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        loadNextPage();
+    }
+
+    /**
+     * Loads the next page of entrants after the last loaded one, if there is one.
+     */
+    private void loadNextPage() {
+        if (loadingPage || lastPageLoaded)
+            return;
+
+        loadingPage = true;
+        EventRepository.getInstance().getEntrantsPage(event.getEventId(), EventRepository.ENTRANTS_PAGE_SIZE, lastEntrantDoc, task -> {
+            loadingPage = false;
+
+            if (!task.isSuccessful() || task.getResult() == null) {
+                Log.e("WAITLIST", "Failed to load entrants", task.getException());
+                return;
+            }
+
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            lastPageLoaded = documents.size() < EventRepository.ENTRANTS_PAGE_SIZE;
+            if (documents.isEmpty())
+                return;
+
+            lastEntrantDoc = documents.get(documents.size() - 1);
+
+            List<WaitingListEntrant> page = task.getResult().toObjects(WaitingListEntrant.class);
+            int start = entrants.size();
+            entrants.addAll(page);
+            waitingListAdapter.notifyItemRangeInserted(start, page.size());
+            addMarkers(page);
         });
     }
 
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         this.googleMap = googleMap;
+        addMarkers(entrants);
+    }
+
+    /**
+     * Adds a map marker for each of the given entrants that has a location.
+     *
+     * @param newEntrants the entrants to add markers for
+     */
+    private void addMarkers(List<WaitingListEntrant> newEntrants) {
+        if (googleMap == null)
+            return;
 
-        for (WaitingListEntrant entrant : entrants) {
+        for (WaitingListEntrant entrant : newEntrants) {
             if (entrant.getGeoLocation() != null) {
                 LatLng position = new LatLng(
                         entrant.getGeoLocation().getLatitude(),
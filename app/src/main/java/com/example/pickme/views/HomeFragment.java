@@ -26,18 +26,17 @@ import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.pickme.R;
 import com.example.pickme.models.Event;
-import com.example.pickme.models.Notification;
 import com.example.pickme.models.User;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.repositories.NotificationRepository;
+import com.example.pickme.utils.InitialsAvatar;
 import com.example.pickme.utils.NotificationHelper;
 import com.example.pickme.utils.NotificationList;
-import com.example.pickme.utils.UserNotification;
 import com.example.pickme.views.adapters.EventAdapter;
 import com.example.pickme.views.adapters.NotificationAdapter;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -59,6 +58,7 @@ public class HomeFragment extends Fragment {
     private ArrayList<Event> eventsList = new ArrayList<>();
     private View emptyInboxText;
     private View emptyEventsText;
+    private final List<ListenerRegistration> eventRegistrations = new ArrayList<>();
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -116,10 +116,7 @@ public class HomeFragment extends Fragment {
 
         User user = User.getInstance();
         if (user != null) {
-            String profilePictureUrl = user.getProfilePictureUrl();
-            Glide.with(this)
-                    .load(user.getProfilePictureUrl())
-                    .into(homeProfileButton);
+            InitialsAvatar.getInstance(requireContext()).into(homeProfileButton, user);
 
             homeProfileButton.setVisibility(View.VISIBLE);
 
@@ -176,44 +173,37 @@ public class HomeFragment extends Fragment {
     }
 
     /**
-     * This method is responsible for loading the user's notifications, and putting it into the
-     * ListView on the screen
+     * This method is responsible for loading the first page of the user's inbox, and putting it
+     * into the ListView on the screen
      */
     private void loadInbox() {
-        User user = User.getInstance();
-
-        int visibility = user.getUserNotifications().isEmpty() ? View.VISIBLE : View.GONE;
-        emptyInboxText.setVisibility(visibility);
+        NotificationList notifications = NotificationList.getInstance();
+        NotificationHelper notificationHelper = new NotificationHelper();
 
-        // will clean the user's notifications and then populate the ListView
-        new NotificationHelper().cleanNotifications(() -> {
+        NotificationAdapter notificationAdapter = new NotificationAdapter(getContext(), notifications);
+        notifList.setAdapter(notificationAdapter);
+        notificationRepository.attachAdapter(notificationAdapter);
 
-            NotificationAdapter notificationAdapter = new NotificationAdapter(getContext(), NotificationList.getInstance());
+        emptyInboxText.setVisibility(notifications.isEmpty() ? View.VISIBLE : View.GONE);
+        notificationRepository.addSnapshotListener(requireContext());
 
-            notifList.setAdapter(notificationAdapter);
+        // already loaded during this session, the listener keeps it up to date
+        if(!notifications.isEmpty() || notifications.isInboxFullyLoaded())
+            return;
 
-            notificationRepository.addSnapshotListener(getContext());
-            notificationRepository.attachAdapter(notificationAdapter);
+        // will load and clean the first page of the user's inbox and then populate the ListView
+        notificationHelper.loadInboxPage(() -> notificationHelper.cleanNotifications(() -> {
+            if(!isAdded())
+                return;
 
-            // if the current instance of NotificationList is empty, then populate from firebase
-            if(NotificationList.getInstance().isEmpty()){
-                for(UserNotification userNotification : user.getUserNotifications()){
-                    NotificationRepository.getInstance().getNotificationById(userNotification.getNotificationID(), documentSnapshot -> {
-                        Notification notification = documentSnapshot.toObject(Notification.class);
-                        notification.markRead(userNotification.isRead());
-
-                        NotificationList.getInstance().add(notification);
-                        notificationAdapter.notifyDataSetChanged();
-                    });
-                }
-            }
-
-        });
+            emptyInboxText.setVisibility(notifications.isEmpty() ? View.VISIBLE : View.GONE);
+            notificationAdapter.notifyDataSetChanged();
+        }));
     }
 
     /**
-     * This method is responsible for loading the user's events that they're signed up for, and
-     * putting it into the RecyclerView on the screen
+     * This method is responsible for loading the user's upcoming events that they're signed up for, and
+     * putting it into the RecyclerView on the screen. Past events are filtered out by the query.
      */
     private void loadMyEvents() {
         User user = User.getInstance();
@@ -221,38 +211,56 @@ public class HomeFragment extends Fragment {
         int visibility = user.getEventIDs().isEmpty() ? View.VISIBLE : View.GONE;
         emptyEventsText.setVisibility(visibility);
 
+        detachEvents();
         eventsList.clear();
         eventsAdapter.notifyDataSetChanged();
 
-        for(String eventID : user.getEventIDs()){
-            EventRepository.getInstance().getEventById(eventID, task -> {
-                if(!task.isSuccessful()){
-                    return;
-                }
-
-                Event event = task.getResult();
+        if(user.getEventIDs().isEmpty())
+            return;
 
-                if(event == null || event.hasEventPassed()){
-                    user.getEventIDs().remove(eventID);
-                    return;
-                }
-
-                eventsList.add(event);
-                eventsAdapter.notifyDataSetChanged();
-
-                Log.i("EVENT", "event added to home view, id: " + eventID);
-                if(event.getHasLotteryExecuted() == null)
-                    Log.i("EVENT", "has lottery passed is null");
-            });
-        }
+        EventRepository.getInstance().getUpcomingEventsByIds(user.getEventIDs(), task -> {
+            if(!task.isSuccessful() || task.getResult() == null || !isAdded()){
+                return;
+            }
 
-        EventRepository.getInstance().attachList(eventsList, () -> {
-            eventsList.removeIf(event -> event.getEventId() == null);
+            // past and deleted events are not returned, so only the displayed list is filtered
+            eventsList.addAll(task.getResult());
             eventsAdapter.notifyDataSetChanged();
+            eventRegistrations.add(EventRepository.getInstance().attachList(eventsList, this::onEventsChanged));
+            emptyEventsText.setVisibility(eventsList.isEmpty() ? View.VISIBLE : View.GONE);
+
+            Log.i("EVENT", eventsList.size() + " upcoming events added to home view");
         });
 
         // TODO: load the events the user is on the waitlist for / upcoming
     }
+
+    /**
+     * Refreshes the events list after one of the displayed events changed, dropping deleted events.
+     */
+    private void onEventsChanged() {
+        eventsList.removeIf(event -> event.getEventId() == null);
+        eventsAdapter.notifyDataSetChanged();
+    }
+
+    /**
+     * Stops listening for changes to the displayed events.
+     */
+    private void detachEvents() {
+        for (ListenerRegistration registration : eventRegistrations) {
+            registration.remove();
+        }
+        eventRegistrations.clear();
+    }
+
+    /**
+     * Stops listening for event changes once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        detachEvents();
+    }
 }
 
 /*
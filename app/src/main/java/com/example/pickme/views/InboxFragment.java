@@ -22,14 +22,20 @@ import com.example.pickme.models.Notification;
 import com.example.pickme.models.User;
 import com.example.pickme.repositories.NotificationRepository;
 import com.example.pickme.repositories.UserRepository;
+import com.example.pickme.utils.NotificationHelper;
 import com.example.pickme.utils.NotificationList;
 import com.example.pickme.utils.UserNotification;
 import com.example.pickme.views.adapters.NotifRecAdapter;
 
+import java.util.Collections;
+
 /**
  * Fragment representing the inbox view where notifications are displayed.
  */
 public class InboxFragment extends Fragment {
+    // How close to the end of the list the next page of the inbox is loaded
+    private static final int PREFETCH_DISTANCE = 5;
+
     NotificationRepository notificationRepository = NotificationRepository.getInstance();
     private TextView noNotifsText;
 
@@ -70,6 +76,27 @@ public class InboxFragment extends Fragment {
         recyclerView.setAdapter(notificationAdapter);
         notificationRepository.attachRecAdapter(notificationAdapter);
 
+        // Load further pages of the inbox as the user nears the end of the list
+        NotificationHelper notificationHelper = new NotificationHelper();
+        Runnable onPageLoaded = () -> {
+            if (!isAdded())
+                return;
+
+            noNotifsText.setVisibility(notifications.isEmpty() ? View.VISIBLE : View.GONE);
+            notificationAdapter.notifyDataSetChanged();
+        };
+        if (notifications.isEmpty())
+            notificationHelper.loadInboxPage(onPageLoaded);
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null && layoutManager.findLastVisibleItemPosition() >= notifications.size() - PREFETCH_DISTANCE)
+                    notificationHelper.loadInboxPage(onPageLoaded);
+            }
+        });
+
         // Attach ItemTouchHelper to handle swipe actions
         ItemTouchHelper itemTouchHelper = getItemTouchHelper(recyclerView, notifications, notificationAdapter);
         itemTouchHelper.attachToRecyclerView(recyclerView);
@@ -110,6 +137,9 @@ public class InboxFragment extends Fragment {
                         }
                     }
 
+                    // Remove only this entry from the user's inbox
+                    UserRepository.getInstance().removeInboxEntries(user.getDeviceId(), Collections.singletonList(notification.getNotificationId()), task -> {});
+
                 } else if (direction == ItemTouchHelper.RIGHT) {
                     // Handle swipe to the right (mark notification as read/unread)
                     notification.markRead(!notification.isRead());
@@ -118,13 +148,13 @@ public class InboxFragment extends Fragment {
                     for(UserNotification userNotification : user.getUserNotifications()){
                         if(userNotification.getNotificationID().equals(notification.getNotificationId())){
                             userNotification.setRead(notification.isRead());
+
+                            // Update only this entry in the user's inbox
+                            UserRepository.getInstance().updateInboxEntry(user.getDeviceId(), userNotification, task -> {});
                             break;
                         }
                     }
                 }
-
-                // Update the user in the repository
-                UserRepository.getInstance().updateUser(user, task -> {});
             }
 
             @Override
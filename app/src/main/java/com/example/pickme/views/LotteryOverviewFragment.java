@@ -20,6 +20,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.pickme.R;
 import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Event;
+import com.example.pickme.models.WaitingList;
 import com.example.pickme.models.WaitingListEntrant;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.utils.LotteryUtils;
@@ -27,7 +28,6 @@ import com.example.pickme.views.adapters.EntrantAdapter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Fragment that displays an overview of the lottery.
@@ -101,14 +101,13 @@ public class LotteryOverviewFragment extends Fragment {
             lotteryUtils.replaceCancelledEntrants(event, task -> {
                 if (task.isSuccessful()) {
 
-                    // Re-fetch the updated event from Firestore
-                    EventRepository.getInstance().getEventById(event.getEventId(), eventTask -> {
+                    // Re-fetch the updated waiting list from Firestore
+                    EventRepository.getInstance().loadWaitingList(event, eventTask -> {
                         if (eventTask.isSuccessful()) {
-                            event = eventTask.getResult();
                             updateLotteryStatsText();
                             entrantAdapter.updateEntrants(filterEntrants(EntrantStatus.SELECTED));
                         } else {
-                            Toast.makeText(getContext(), "Failed to fetch updated event", Toast.LENGTH_SHORT).show();
+                            Toast.makeText(getContext(), "Failed to fetch updated waitlist", Toast.LENGTH_SHORT).show();
                         }
                     });
                 } else {
@@ -121,14 +120,13 @@ public class LotteryOverviewFragment extends Fragment {
             lotteryUtils.cancelPendingEntrants(event, task -> {
                 if (task.isSuccessful()) {
 
-                    // Re-fetch the updated event from Firestore
-                    EventRepository.getInstance().getEventById(event.getEventId(), eventTask -> {
+                    // Re-fetch the updated waiting list from Firestore
+                    EventRepository.getInstance().loadWaitingList(event, eventTask -> {
                         if (eventTask.isSuccessful()) {
-                            event = eventTask.getResult();
                             updateLotteryStatsText();
                             entrantAdapter.updateEntrants(filterEntrants(EntrantStatus.SELECTED));
                         } else {
-                            Toast.makeText(getContext(), "Failed to fetch updated event", Toast.LENGTH_SHORT).show();
+                            Toast.makeText(getContext(), "Failed to fetch updated waitlist", Toast.LENGTH_SHORT).show();
                         }
                     });
                 } else {
@@ -145,9 +143,7 @@ public class LotteryOverviewFragment extends Fragment {
      * @return A list of entrants with the specified status.
      */
     private List<WaitingListEntrant> filterEntrants(EntrantStatus status) {
-        entrants = (ArrayList<WaitingListEntrant>) event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == status)
-                .collect(Collectors.toList());
+        entrants = new ArrayList<>(event.getWaitingListIndex().getEntrants(status));
 
         return entrants;
     }
@@ -156,18 +152,11 @@ public class LotteryOverviewFragment extends Fragment {
      * Updates the lottery statistics text view with the current statistics.
      */
     private void updateLotteryStatsText() {
-        long p = event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == EntrantStatus.SELECTED || e.getStatus() == EntrantStatus.ACCEPTED || e.getStatus() == EntrantStatus.CANCELLED)
-                .count();
-        long q = event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == EntrantStatus.ACCEPTED)
-                .count();
-        long r = event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == EntrantStatus.SELECTED)
-                .count();
-        long s = event.getWaitingList().stream()
-                .filter(e -> e.getStatus() == EntrantStatus.CANCELLED)
-                .count();
+        WaitingList waitingList = event.getWaitingListIndex();
+        int q = waitingList.count(EntrantStatus.ACCEPTED);
+        int r = waitingList.count(EntrantStatus.SELECTED);
+        int s = waitingList.count(EntrantStatus.CANCELLED);
+        int p = q + r + s;
 
         String statsText = p + " selected\n" + q + " accepted | " + r + " pending" + s + " declined";
         lotteryStatsText.setText(statsText);
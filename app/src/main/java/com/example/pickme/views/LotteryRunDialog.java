@@ -2,7 +2,6 @@ package com.example.pickme.views;
 
 import android.app.Dialog;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
@@ -19,7 +18,6 @@ import com.example.pickme.models.Enums.EntrantStatus;
 import com.example.pickme.models.Event;
 import com.example.pickme.models.Notification;
 import com.example.pickme.models.User;
-import com.example.pickme.models.WaitingListEntrant;
 import com.example.pickme.repositories.NotificationRepository;
 import com.example.pickme.utils.LotteryUtils;
 import com.example.pickme.utils.NotificationHelper;
@@ -106,9 +104,7 @@ public class LotteryRunDialog extends DialogFragment {
      */
     private void setDialogDescription() {
         int numToDraw = lotteryUtils.determineNumToDraw(event);
-        long numWaitingEntrants = event.getWaitingList().stream()
-                .filter(entrant -> entrant.getStatus() == EntrantStatus.WAITING)
-                .count();
+        int numWaitingEntrants = event.getWaitingListIndex().count(EntrantStatus.WAITING);
         String descriptionText = "We will draw " + numToDraw + " winners from your waitlist of " + numWaitingEntrants + " entrants.\nProceed?";
         description.setText(descriptionText);
     }
@@ -124,14 +120,6 @@ public class LotteryRunDialog extends DialogFragment {
         selected.setMessage("Congratulations! You've been selected. Go to event to accept/decline.");
         selected.setLevel(EntrantStatus.SELECTED);
 
-        for(WaitingListEntrant entrant : event.getWaitingList()){
-            Log.i("NOTIF", "Status: " + entrant.getStatus().toString());
-            if(entrant.getStatus() == EntrantStatus.SELECTED){
-                selected.getSendTo().add(entrant.getEntrantId());
-                Log.i("NOTIF", "Sent to ID: " + entrant.getEntrantId());
-            }
-        }
-
         NotificationRepository repo = NotificationRepository.getInstance();
 
         repo.addNotification(selected, task ->{
@@ -148,12 +136,6 @@ public class LotteryRunDialog extends DialogFragment {
         rejected.setMessage("Sorry, you weren't selected, but you've still got a chance if someone declines!");
         rejected.setLevel(EntrantStatus.REJECTED);
 
-        rejected.getSendTo().clear();
-        for(WaitingListEntrant entrant : event.getWaitingList()){
-            if(entrant.getStatus() == EntrantStatus.REJECTED)
-                rejected.getSendTo().add(entrant.getEntrantId());
-        }
-
         repo.addNotification(rejected, task ->{
             new NotificationHelper().sendNotification(rejected);
         });
@@ -77,20 +77,19 @@ public class LotteryWinnersFragment extends Fragment {
     }
 
     /**
-     * Fetches the User objects for each selected user device ID and updates the winners list.
+     * Fetches the User objects for the selected user device IDs and updates the winners list.
      *
      * @param selectedUserDeviceIds The list of selected user device IDs
      */
     private void fetchWinners(List<String> selectedUserDeviceIds) {
-        // Get User objects for each selected user device ID
-        for (String userDeviceId : selectedUserDeviceIds) {
-            userRepository.getUserByDeviceId(userDeviceId, userTask -> {
-                if (userTask.isSuccessful() && userTask.getResult() != null) {
-                    winners.add(userTask.getResult());
-                    winnerAdapter.notifyDataSetChanged();
-                    Log.i("LOTTERY", "Added winner to list, id: " + userTask.getResult().getUserId());
-                }
-            });
-        }
+        // Get User objects for all selected user device IDs in one batched load
+        userRepository.getUsersByDeviceIds(selectedUserDeviceIds, usersTask -> {
+            if (usersTask.isSuccessful() && usersTask.getResult() != null) {
+                winners.clear();
+                winners.addAll(usersTask.getResult());
+                winnerAdapter.notifyDataSetChanged();
+                Log.i("LOTTERY", "Added " + winners.size() + " winners to list");
+            }
+        });
     }
 }
\ No newline at end of file
@@ -13,8 +13,11 @@ import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.NavigationUI;
 
 import com.example.pickme.R;
+import com.example.pickme.models.Image;
 import com.example.pickme.models.User;
+import com.example.pickme.repositories.ImageRepository;
 import com.example.pickme.repositories.UserRepository;
+import com.example.pickme.utils.ImageQuery;
 import com.example.pickme.utils.qrCleanup;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.firebase.FirebaseApp;
@@ -43,6 +46,8 @@ public class MainActivity extends AppCompatActivity {
         // Initialize Firebase
         FirebaseApp.initializeApp(this);
         FirebaseMessaging.getInstance().setAutoInitEnabled(true);
+        // resumes image uploads that were interrupted when the app was last closed
+        ImageRepository.getInstance();
 
         userRepository = UserRepository.getInstance();
         bottomNavigationView = findViewById(R.id.bottom_navigation);
@@ -132,6 +137,7 @@ public class MainActivity extends AppCompatActivity {
                 user.setAdmin(isAdmin);
 
             User.setInstance(user);  // Set the user instance
+            dropGeneratedProfilePicture(user);
             // Show the Admin Tools menu item if the user is an admin
             if (user.isAdmin()) {
                 bottomNavigationView.getMenu().findItem(R.id.navigation_admin_tools).setVisible(true);
@@ -140,6 +146,37 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Removes a profile picture that was generated from the user's initials and uploaded at signup,
+     * before avatars were drawn on the device. The user is shown their drawn initials instead.
+     * Images the user uploaded are kept.
+     * @param user The signed-in user.
+     */
+    private void dropGeneratedProfilePicture(User user) {
+        if (!user.hasCustomProfilePicture())
+            return;
+
+        Image picture = new Image(user.getUserId(), user.getUserId());
+        ImageRepository.getInstance().download(picture, new ImageQuery() {
+            @Override
+            public void onSuccess(Image stored) {
+                if (!stored.isGenerated())
+                    return;
+
+                Log.d("MainActivity", "Dropping generated profile picture of " + user.getUserId());
+                picture.delete(task -> Log.d("MainActivity", "Generated profile picture deleted"));
+                user.clearProfilePicture();
+                UserRepository.updateUser(user, task -> {
+                    if (!task.isSuccessful())
+                        Log.w("MainActivity", "Failed to clear generated profile picture", task.getException());
+                });
+            }
+
+            @Override
+            public void onEmpty() {}
+        });
+    }
+
     /**
      * Shows the loading screen.
      */
@@ -154,8 +191,8 @@ public class MainActivity extends AppCompatActivity {
      */
     private void hideLoadingScreen() {
         if (loadingScreen != null) {
-            // Clean up invalid QR codes
-            qrCleanup.cleanUpQRCodes();
+            // Clean up invalid QR codes; throttled and deferred so it stays off the startup path
+            qrCleanup.scheduleIfDue(this);
             // Delay for 2 seconds before hiding the loading screen
             new Handler().postDelayed(() -> loadingScreen.setVisibility(View.GONE), 2000);
         }
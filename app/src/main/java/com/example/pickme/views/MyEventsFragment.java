@@ -18,7 +18,9 @@ import com.example.pickme.models.Event;
 import com.example.pickme.models.User;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.repositories.FacilityRepository;
+import com.example.pickme.utils.QrEventIndex;
 import com.example.pickme.views.adapters.EventAdapter;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
@@ -34,6 +36,7 @@ public class MyEventsFragment extends Fragment implements EventAdapter.OnEventCl
     private EventRepository eventRepository;
     private EventAdapter eventAdapter;
     private ArrayList<Event> eventList = new ArrayList<>();
+    private ListenerRegistration eventsRegistration;
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -135,7 +138,15 @@ public class MyEventsFragment extends Fragment implements EventAdapter.OnEventCl
                     eventList.addAll(events);
                     eventAdapter.notifyDataSetChanged();
 
-                    eventRepository.attachList(eventList, () -> {
+                    // Preload the QR codes of the organizer's events so scanning them resolves locally
+                    List<String> eventIds = new ArrayList<>();
+                    for (Event event : events) {
+                        eventIds.add(event.getEventId());
+                    }
+                    QrEventIndex.getInstance(requireContext()).warm(eventIds);
+
+                    detachEvents();
+                    eventsRegistration = eventRepository.attachList(eventList, () -> {
                         eventList.removeIf(event -> event.getEventId() == null);
                         eventAdapter.notifyDataSetChanged();
                     });
@@ -147,6 +158,25 @@ public class MyEventsFragment extends Fragment implements EventAdapter.OnEventCl
         });
     }
 
+    /**
+     * Stops listening for changes to the displayed events.
+     */
+    private void detachEvents() {
+        if (eventsRegistration != null) {
+            eventsRegistration.remove();
+            eventsRegistration = null;
+        }
+    }
+
+    /**
+     * Stops listening for event changes once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        detachEvents();
+    }
+
     /**
      * Navigates to the facility creation screen.
      */
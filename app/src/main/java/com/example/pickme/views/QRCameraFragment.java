@@ -1,12 +1,17 @@
 package com.example.pickme.views;
 
 import android.Manifest;
+import android.content.Context;
 import android.content.pm.PackageManager;
+import android.net.ConnectivityManager;
+import android.net.Network;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -20,9 +25,15 @@ import androidx.navigation.Navigation;
 import com.example.pickme.R;
 import com.example.pickme.models.Event;
 import com.example.pickme.repositories.EventRepository;
+import com.example.pickme.utils.CheckInManifest;
+import com.example.pickme.utils.CheckInSession;
 import com.example.pickme.utils.EventFetcher;
-import com.journeyapps.barcodescanner.BarcodeCallback;
-import com.journeyapps.barcodescanner.BarcodeResult;
+import com.example.pickme.utils.QrEventIndex;
+import com.example.pickme.utils.QrPayload;
+import com.example.pickme.utils.ScanDecoderFactory;
+import com.example.pickme.utils.ScanDeduplicator;
+import com.example.pickme.utils.ScanMetrics;
+import com.example.pickme.utils.TicketPayload;
 import com.journeyapps.barcodescanner.DecoratedBarcodeView;
 
 /**
@@ -37,17 +48,42 @@ import com.journeyapps.barcodescanner.DecoratedBarcodeView;
  * - EventFetcher for retrieving event details.
  * - Navigation component for fragment transitions.
  *
+ * Decoding:
+ * - Only QR codes are decoded, and only within the centered framing rectangle.
+ * - Frames are skipped while decoding runs over budget, and a code held in view is reported once.
+ * - Decoded frames per second and frame-to-result latency are logged when the scanner pauses.
+ *
+ * Check-in mode:
+ * - Opened with a "checkInEventID" argument, the scanner checks entrants in at the event's entrance.
+ * - Scanned codes are entrants' tickets ({@link TicketPayload}), validated locally against the event's accepted entrants.
+ * - Check-ins are kept on the device and uploaded in batches whenever a network is available.
+ *
  * Assumptions:
  * - The device has a functional camera.
- * - The QR codes encode event IDs stored in the application's database.
+ * - The QR codes hold a {@link QrPayload} with the event and QR IDs, or a legacy QR ID that is looked up.
  */
 public class QRCameraFragment extends Fragment {
 
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 101;
     private static final String TAG = "QRCameraFragment";
+    private static final String ARG_CHECK_IN_EVENT_ID = "checkInEventID";
+    // Margin around the framing rectangle, as a fraction of the preview; only the rectangle is decoded
+    private static final double ROI_MARGIN_FRACTION = 0.2;
+    // A code seen again within this time of its last sighting is ignored
+    private static final long DEDUPE_WINDOW_MS = 3_000;
 
     private DecoratedBarcodeView barcodeScannerView;
+    private TextView scanResultTextView;
     private boolean isProcessingScan = false; // Flag to prevent multiple processing
+    private long scanFrameTimeMs;
+
+    private final ScanMetrics scanMetrics = new ScanMetrics();
+    private final ScanDeduplicator scanDeduplicator = new ScanDeduplicator(DEDUPE_WINDOW_MS);
+
+    // Check-in mode state; checkInEventID is null when scanning event QR codes
+    private String checkInEventID;
+    private CheckInSession checkInSession;
+    private ConnectivityManager.NetworkCallback networkCallback;
 
     /**
      * Inflates the fragment's layout and initializes the QR code scanner.
@@ -65,6 +101,14 @@ public class QRCameraFragment extends Fragment {
 
         // Initialize the scanner view
         barcodeScannerView = view.findViewById(R.id.barcodeScannerView);
+        scanResultTextView = view.findViewById(R.id.scanResult);
+
+        if (getArguments() != null) {
+            checkInEventID = getArguments().getString(ARG_CHECK_IN_EVENT_ID);
+        }
+        if (checkInEventID != null) {
+            openCheckInSession();
+        }
 
         // Check for camera feature
         if (!requireContext().getPackageManager().hasSystemFeature(PackageManager.FEATURE_CAMERA)) {
@@ -92,6 +136,7 @@ public class QRCameraFragment extends Fragment {
         if (barcodeScannerView != null) {
             barcodeScannerView.resume();
             isProcessingScan = false; // Reset the scan flag to allow new scans
+            scanDeduplicator.reset();
         }
     }
 
@@ -104,54 +149,189 @@ public class QRCameraFragment extends Fragment {
         super.onPause();
         if (barcodeScannerView != null) {
             barcodeScannerView.pause();
+            Log.i(TAG, "Scanner metrics: " + scanMetrics.summary());
+        }
+    }
+
+    /**
+     * Stops check-in uploads tied to this screen when its view is destroyed.
+     * Check-ins that were not uploaded stay on the device for the next session.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (networkCallback != null) {
+            ConnectivityManager connectivityManager = (ConnectivityManager) requireContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+        }
+        if (checkInSession != null) {
+            checkInSession.close();
+            checkInSession = null;
         }
     }
 
     /**
      * Configures the barcode scanner to decode QR codes continuously.
-     * Sets a callback to handle scanned results and prevents duplicate processing.
+     * Decoding is limited to QR codes within the framing rectangle, and repeat results are dropped
+     * before they reach the event lookup or check-in.
      */
     private void setupScanner() {
         Log.d(TAG, "Setting up scanner...");
-        barcodeScannerView.decodeContinuous(new BarcodeCallback() {
-            @Override
-            public void barcodeResult(BarcodeResult result) {
-                if (result.getText() != null && !isProcessingScan) { // Only process if not already scanning
-                    Log.d(TAG, "Scanned QR Code: " + result.getText());
-                    isProcessingScan = true; // Set flag to prevent further scans
-                    fetchEventDetails(result.getText());
-                }
+        barcodeScannerView.getBarcodeView().setMarginFraction(ROI_MARGIN_FRACTION);
+        barcodeScannerView.setDecoderFactory(new ScanDecoderFactory(scanMetrics));
+        barcodeScannerView.decodeContinuous(result -> {
+            String text = result.getText();
+            if (text == null || scanDeduplicator.isRepeat(text, SystemClock.elapsedRealtime())) {
+                return;
+            }
+
+            if (checkInEventID != null) {
+                checkInEntrant(text);
+                scanMetrics.onResultHandled(result.getTimestamp(), System.currentTimeMillis());
+            } else if (!isProcessingScan) { // Only process if not already scanning
+                Log.d(TAG, "Scanned QR Code: " + text);
+                isProcessingScan = true; // Set flag to prevent further scans
+                scanFrameTimeMs = result.getTimestamp();
+                fetchEventDetails(text);
+            }
+        });
+    }
+
+    /**
+     * Opens the check-in session for the event, downloading its accepted entrants, and uploads
+     * pending check-ins whenever a network becomes available.
+     */
+    private void openCheckInSession() {
+        scanResultTextView.setText("Loading check-in list...");
+
+        CheckInSession.open(requireContext(), checkInEventID, task -> {
+            if (!isAdded() || getView() == null) {
+                return;
+            }
+            if (!task.isSuccessful() || task.getResult() == null) {
+                scanResultTextView.setText("Check-in list unavailable, connect to load it");
+                return;
             }
+
+            checkInSession = task.getResult();
+            showCheckInStatus("Ready to check in");
+
+            ConnectivityManager connectivityManager = (ConnectivityManager) requireContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+            networkCallback = new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    // Network callbacks arrive on a background thread
+                    scanResultTextView.post(() -> {
+                        if (checkInSession != null) {
+                            checkInSession.sync();
+                        }
+                    });
+                }
+            };
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
         });
     }
 
     /**
-     * Fetches the details of an event associated with a scanned QR code ID.
+     * Checks in the entrant whose ticket was scanned, validating them against the local manifest.
+     *
+     * @param text The scanned text, expected to be a {@link TicketPayload}.
+     */
+    private void checkInEntrant(String text) {
+        if (checkInSession == null) {
+            return;
+        }
+
+        TicketPayload ticket;
+        try {
+            ticket = TicketPayload.parse(text);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Rejected scanned ticket: " + e.getMessage());
+            showCheckInStatus("Not a ticket");
+            return;
+        }
+        if (!checkInEventID.equals(ticket.getEventId())) {
+            showCheckInStatus("Ticket is for another event");
+            return;
+        }
+
+        CheckInManifest.Result result = checkInSession.checkIn(ticket.getEntrantId());
+        switch (result) {
+            case ADMITTED:
+                showCheckInStatus("Checked in");
+                break;
+            case ALREADY_CHECKED_IN:
+                showCheckInStatus("Already checked in");
+                break;
+            case NOT_ACCEPTED:
+                showCheckInStatus("Not on the guest list");
+                break;
+        }
+    }
+
+    /**
+     * Shows the outcome of the last scan along with the check-in counts.
+     *
+     * @param status The outcome of the last scan.
+     */
+    private void showCheckInStatus(String status) {
+        CheckInManifest manifest = checkInSession.getManifest();
+        scanResultTextView.setText(status + "\n" + manifest.getCheckedInCount() + " / " + manifest.getAcceptedCount()
+                + " checked in, " + checkInSession.getPendingCount() + " waiting to upload");
+    }
+
+    /**
+     * Fetches the details of an event associated with a scanned QR code.
+     * Payloads name their event, so it is read right away while the QR document is read alongside it
+     * to reject regenerated codes; legacy codes hold only a QR ID, which is resolved to the event first.
      * The result of the fetch determines the next navigation action.
      *
-     * @param qrID The unique identifier extracted from the scanned QR code.
-     *             Used to query the event repository.
+     * @param scannedText The text extracted from the scanned QR code.
      */
-    private void fetchEventDetails(String qrID) {
-        Log.d(TAG, "Starting fetcher for QR ID: " + qrID);
+    private void fetchEventDetails(String scannedText) {
+        Log.d(TAG, "Starting fetcher for QR code: " + scannedText);
+
+        QrEventIndex qrEventIndex = QrEventIndex.getInstance(requireContext());
 
-        // Create an instance of EventFetcher with the EventRepository
-        EventFetcher eventFetcher = new EventFetcher(EventRepository.getInstance());
+        // Create an instance of EventFetcher with the EventRepository, resolving known QR codes locally
+        EventFetcher eventFetcher = new EventFetcher(EventRepository.getInstance(), qrEventIndex);
 
-        eventFetcher.getEventByEventId(qrID, new EventFetcher.EventCallback() {
+        EventFetcher.EventCallback callback = new EventFetcher.EventCallback() {
             @Override
             public void onEventFetched(Event event) {
+                scanMetrics.onResultHandled(scanFrameTimeMs, System.currentTimeMillis());
                 Log.d(TAG, "Event fetched: " + event.getEventTitle());
                 navigateToEventDetails(event); // Pass the Event object
             }
 
             @Override
             public void onError(String errorMessage) {
+                scanMetrics.onResultHandled(scanFrameTimeMs, System.currentTimeMillis());
                 Log.e(TAG, "Error fetching event: " + errorMessage);
                 Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
                 isProcessingScan = false; // Allow scanning again for the next QR code
+                // Let the same code be retried, e.g. after a network failure, without moving it out of view
+                scanDeduplicator.release(scannedText, SystemClock.elapsedRealtime());
             }
-        });
+        };
+
+        if (!QrPayload.isPayload(scannedText)) {
+            eventFetcher.getEventByEventId(scannedText, callback);
+            return;
+        }
+
+        QrPayload payload;
+        try {
+            payload = QrPayload.parse(scannedText);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Rejected QR code: " + e.getMessage());
+            callback.onError("Invalid QR code");
+            return;
+        }
+
+        // the QR ID is only added to the index once its QR document confirms it
+        eventFetcher.fetchVerifiedEvent(payload.getQrId(), payload.getEventId(), callback);
     }
 
     /**
@@ -2,7 +2,6 @@ package com.example.pickme.views;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
@@ -19,6 +18,7 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatButton;
 import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
+import androidx.navigation.Navigation;
 
 import com.example.pickme.R;
 import com.example.pickme.models.Event;
@@ -27,6 +27,7 @@ import com.example.pickme.models.User;
 import com.example.pickme.repositories.EventRepository;
 import com.example.pickme.repositories.QrRepository;
 import com.example.pickme.utils.QRCodeGenerator;
+import com.example.pickme.utils.QrEventIndex;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 
@@ -48,6 +49,7 @@ public class QRCodeViewFragment extends Fragment {
 
     private TextView eventTitleTextView;
     private ImageView qrCodeImageView;
+    private AppCompatButton checkInButton;
 
     private EventRepository eventRepository;
     private QrRepository qrRepository;
@@ -146,6 +148,14 @@ public class QRCodeViewFragment extends Fragment {
         // Define the delete action
         deleteButton.setOnClickListener(v -> deleteAndRegenerateQRCode());
 
+        // Set up the check-in button, shown once the event is known to be the user's own
+        checkInButton = view.findViewById(R.id.checkInButton);
+        checkInButton.setOnClickListener(v -> {
+            Bundle args = new Bundle();
+            args.putString("checkInEventID", eventID);
+            Navigation.findNavController(requireView()).navigate(R.id.action_QRCodeViewFragment_to_qrCameraFragment, args);
+        });
+
         // Load event details and QR code
         loadEventDetails();
         return view;
@@ -175,7 +185,7 @@ public class QRCodeViewFragment extends Fragment {
 
     /**
      * Regenerates a QR code for the current event.
-     * Deletes the old QR code file from the file system (if it exists) and creates a new QR code
+     * Drops the old QR code from the caches and creates a new QR code
      * in the repository based on the current event ID.
      *
      * The QR code generation is handled by the `QRCodeGenerator` utility.
@@ -183,24 +193,9 @@ public class QRCodeViewFragment extends Fragment {
     private void regenerateQRCode() {
         String newEncodedPath = "/events/" + eventID;
 
-        qrCodeGenerator.getQRCodeImage(requireContext(), eventID, new QRCodeGenerator.QRCodeCallback() {
-            @Override
-            public void onQRCodeReady(String filePath) {
-                if (filePath != null) {
-                    File qrCodeFile = new File(filePath);
-                    if (qrCodeFile.exists() && qrCodeFile.delete()) {
-                        Log.d(TAG, "Old QR code file deleted successfully.");
-                    } else {
-                        Log.d(TAG, "No old QR code file to delete or failed to delete.");
-                    }
-                }
-            }
-
-            @Override
-            public void onError(String errorMessage) {
-                Log.e(TAG, "Error clearing old QR code file: " + errorMessage);
-            }
-        });
+        // Drop the old QR code from the memory and disk caches, and forget its QR ID
+        qrCodeGenerator.invalidate(requireContext(), eventID);
+        QrEventIndex.getInstance(requireContext()).removeEvent(eventID);
 
         QR qr = new QR(newEncodedPath);
 
@@ -235,6 +230,11 @@ public class QRCodeViewFragment extends Fragment {
                         Log.e(TAG, "Event title not found in document.");
                         Toast.makeText(getContext(), "Event title not found", Toast.LENGTH_SHORT).show();
                     }
+
+                    User user = User.getInstance();
+                    if (user != null && user.getDeviceId() != null && user.getDeviceId().equals(event.getOrganizerId())) {
+                        checkInButton.setVisibility(View.VISIBLE);
+                    }
                     displayQRCode();
                 } else {
                     Log.e(TAG, "Failed to load event details: ", task.getException());
@@ -245,35 +245,29 @@ public class QRCodeViewFragment extends Fragment {
     }
 
     /**
-     * Retrieves the QR code image file for the current event using the QRCodeGenerator utility
+     * Retrieves the QR code bitmap for the current event using the QRCodeGenerator utility
      * and displays it in the ImageView. Animates the QR code visibility when loaded successfully.
      *
-     * Displays appropriate error messages if the QR code file cannot be found or loaded.
+     * Displays appropriate error messages if the QR code cannot be generated or loaded.
      */
     private void displayQRCode() {
-        qrCodeGenerator.getQRCodeImage(requireContext(), eventID, new QRCodeGenerator.QRCodeCallback() {
+        qrCodeGenerator.getQRCodeBitmap(requireContext(), eventID, new QRCodeGenerator.QRBitmapCallback() {
             @Override
-            public void onQRCodeReady(String filePath) {
-                if (filePath != null) {
-                    File qrCodeFile = new File(filePath);
-                    if (qrCodeFile.exists()) {
-                        Bitmap qrBitmap = BitmapFactory.decodeFile(filePath);
-                        qrCodeImageView.setImageBitmap(qrBitmap);
-                        qrCodeImageView.setVisibility(View.VISIBLE);
-                        qrCodeImageView.setAlpha(0f);
-                        qrCodeImageView.animate().alpha(1f).setDuration(300).start();
-                    } else {
-                        Toast.makeText(getContext(), "QR code file not found", Toast.LENGTH_SHORT).show();
-                        Log.e(TAG, "QR code file not found: " + filePath);
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Failed to load QR code file path", Toast.LENGTH_SHORT).show();
-                    Log.e(TAG, "Failed to load QR code file path.");
-                }
+            public void onQRCodeReady(Bitmap qrBitmap) {
+                if (!isAdded())
+                    return;
+
+                qrCodeImageView.setImageBitmap(qrBitmap);
+                qrCodeImageView.setVisibility(View.VISIBLE);
+                qrCodeImageView.setAlpha(0f);
+                qrCodeImageView.animate().alpha(1f).setDuration(300).start();
             }
 
             @Override
             public void onError(String errorMessage) {
+                if (!isAdded())
+                    return;
+
                 Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
                 Log.e(TAG, "Error displaying QR code: " + errorMessage);
             }
@@ -294,6 +288,9 @@ public class QRCodeViewFragment extends Fragment {
         qrCodeGenerator.getQRCodeImage(requireContext(), eventID, new QRCodeGenerator.QRCodeCallback() {
             @Override
             public void onQRCodeReady(String filePath) {
+                if (!isAdded())
+                    return;
+
                 if (filePath != null) {
                     File qrCodeFile = new File(filePath);
                     if (qrCodeFile.exists()) {
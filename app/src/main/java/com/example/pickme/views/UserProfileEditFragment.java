@@ -27,8 +27,7 @@ import com.example.pickme.R;
 import com.example.pickme.models.Image;
 import com.example.pickme.models.User;
 import com.example.pickme.repositories.UserRepository;
-import com.example.pickme.utils.ImageQuery;
-import com.google.android.gms.tasks.OnCompleteListener;
+import com.example.pickme.utils.InitialsAvatar;
 
 /**
  * Fragment for editing the user's profile.
@@ -42,7 +41,9 @@ public class UserProfileEditFragment extends Fragment {
     Button saveButton;
     Button goBackButton;
     private boolean isChanged = false;
-    private Image img;
+    // picture picked from the gallery, uploaded on save [nullable]
+    private Uri pickedPicture;
+    private boolean pictureRemoved = false;
 
     /**
      * Creates the view for the user profile edit fragment.
@@ -101,7 +102,8 @@ public class UserProfileEditFragment extends Fragment {
                 registerForActivityResult(new ActivityResultContracts.PickVisualMedia(), uri -> {
                     if (uri != null) {
                         isChanged = true;
-                        img.setImageUrl(uri.toString());
+                        pickedPicture = uri;
+                        pictureRemoved = false;
                         Glide.with(editProfilePicture.getRootView())
                                 .load(uri)
                                 .into(editProfilePicture);
@@ -123,8 +125,11 @@ public class UserProfileEditFragment extends Fragment {
         removeProfilePicture.setOnClickListener(v -> {
             isChanged = true;
             Toast.makeText(getContext(), "Profile picture deleted.", Toast.LENGTH_SHORT).show();
-            editProfilePicture.setImageBitmap(null);
-            editProfilePicture.setTag("deleted");
+            pickedPicture = null;
+            pictureRemoved = true;
+            InitialsAvatar.getInstance(requireContext()).into(editProfilePicture,
+                    InitialsAvatar.initials(editProfileFirstName.getText().toString(), editProfileLastName.getText().toString()),
+                    User.getInstance() != null ? User.getInstance().getDeviceId() : null);
         });
 
         // Save the changes
@@ -160,42 +165,7 @@ public class UserProfileEditFragment extends Fragment {
             editEnableLocation.setChecked(user.isGeoLocationEnabled());
             editEnableNotifications.setChecked(user.isNotificationEnabled());
 
-            // Initialize img only if it's null
-            if (img == null) {
-                saveButton.setEnabled(false);
-                goBackButton.setEnabled(false);
-                img = new Image(user.getUserId(), user.getUserId()); // Ensure userId is not null here
-                img.download(new ImageQuery() {
-                    @Override
-                    public void onSuccess(Image image) {
-                        img = image;
-                        saveButton.setEnabled(true);
-                        goBackButton.setEnabled(true);
-                    }
-
-                    @Override
-                    public void onEmpty() {
-                        editProfilePicture.setImageBitmap(null);
-                        Toast.makeText(
-                                getContext(),
-                                "Error loading profile picture, please try again",
-                                Toast.LENGTH_SHORT).show();
-                        generateProfilePicture(task -> {
-                            Image i = task.getResult();
-                            user.setProfilePictureUrl(img.getImageUrl());
-                            pushUserToFirebase(user);
-                        });
-                    }
-                });
-            }
-
-            // Ensure the imageUrl is not null or empty
-            String profilePictureUrl = user.getProfilePictureUrl();
-            if (profilePictureUrl != null && !profilePictureUrl.isEmpty()) {
-                Glide.with(editProfilePicture.getRootView())
-                        .load(profilePictureUrl)
-                        .into(editProfilePicture);
-            }
+            InitialsAvatar.getInstance(requireContext()).into(editProfilePicture, user);
         } else {
             Log.e("UserProfileEditFragment", "User instance is null.");
         }
@@ -248,7 +218,6 @@ public class UserProfileEditFragment extends Fragment {
         // Save user data here
         User user = User.getInstance();
         if (user != null) {
-            boolean generate = isInitialsChanged(user);
             // Update the user with the input data
             user.setFirstName(editProfileFirstName.getText().toString());
             user.setLastName(editProfileLastName.getText().toString());
@@ -257,58 +226,28 @@ public class UserProfileEditFragment extends Fragment {
             user.setGeoLocationEnabled(editEnableLocation.isChecked());
             user.setNotificationEnabled(editEnableNotifications.isChecked());
 
-            if (img != null) {
-                // Update the user's profile picture URL if changed
-                if (!img.getImageUrl().equals(user.getProfilePictureUrl())) {
-                    // uploads the image selected
-                    Uri uri = Uri.parse(img.getImageUrl());
-                    img = new Image(user.getUserId(), user.getUserId());
-                    img.upload(uri, task -> {
-                                if (task.isSuccessful()) {
-                                    Image i = task.getResult();
-                                    user.setProfilePictureUrl(i.getImageUrl());
-                                    pushUserToFirebase(user);
-                                }
-                            });
-
-                // Update the user's profile picture with new initials if they changed/deleted
-                } else if (generate && img.isGenerated() || editProfilePicture.getTag() == "deleted") {
-                    img = new Image(user.getUserId(), user.getUserId());
-                    generateProfilePicture(task -> {
-                        user.setProfilePictureUrl(img.getImageUrl());
-                        pushUserToFirebase(user);
-                    });
-                } else {
-                    pushUserToFirebase(user);
-                }
+            if (pickedPicture != null) {
+                // uploads the image selected; the upload points the stored user at it once it is stored
+                Image img = new Image(user.getUserId(), user.getUserId());
+                img.upload(pickedPicture, task -> {
+                    if (task.isSuccessful()) {
+                        user.setProfilePicture(task.getResult());
+                    }
+                });
+                pushUserToFirebase(user);
+
+            // Without a profile picture the initials are shown, drawn from the saved name
+            } else if (pictureRemoved && user.hasCustomProfilePicture()) {
+                new Image(user.getUserId(), user.getUserId()).delete(task ->
+                        Log.d("UserProfileEditFragment", "Removed profile picture deleted"));
+                user.clearProfilePicture();
+                pushUserToFirebase(user);
+            } else {
+                pushUserToFirebase(user);
             }
         }
     }
 
-    /**
-     * Checks whether the initials of the user have changed for profile picture generation
-     * @param user The user to check the entered fields against
-     * @return True if the initials have changed, false otherwise
-     */
-    private boolean isInitialsChanged(User user) {
-        String old_in;
-        String new_in;
-        if (!user.getLastName().isEmpty()) {
-            old_in = String.valueOf(user.getFirstName().charAt(0)) + user.getLastName().charAt(0);
-        } else {
-            old_in = String.valueOf(user.getFirstName().charAt(0));
-        }
-
-        if (!editProfileLastName.getText().toString().isEmpty()) {
-            new_in = String.valueOf(editProfileFirstName.getText().toString().trim().charAt(0))
-                    + editProfileLastName.getText().toString().trim().charAt(0);
-        } else {
-            new_in = String.valueOf(editProfileFirstName.getText().toString().trim().charAt(0));
-        }
-
-        return !old_in.equalsIgnoreCase(new_in);
-    }
-
     /**
      * Updates the user in firebase
      * @param user The user to update
@@ -325,19 +264,6 @@ public class UserProfileEditFragment extends Fragment {
         });
     }
 
-    /**
-     * Helper function to generate profile pictures based on initials
-     * @param listener The onCompleteListener for when the generation task is complete
-     */
-    private void generateProfilePicture(OnCompleteListener<Image> listener) {
-        // Generate a new profile picture using the user's initials (default pfp)
-        String firstName = editProfileFirstName.getText().toString().trim();
-        String lastName = editProfileLastName.getText().toString().trim();
-        String last_initial = !lastName.isEmpty()? String.valueOf(lastName.charAt(0)) : "";
-        String initials = firstName.charAt(0) + last_initial;
-        img.generate(initials, listener);
-    }
-
     /**
      * Shows a dialog if the user tries to navigate away with unsaved changes.
      */
@@ -15,11 +15,11 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
-import com.bumptech.glide.Glide;
 import com.example.pickme.R;
 import com.example.pickme.models.Facility;
 import com.example.pickme.models.User;
 import com.example.pickme.repositories.FacilityRepository;
+import com.example.pickme.utils.InitialsAvatar;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
@@ -101,9 +101,7 @@ public class UserProfileFragment extends Fragment {
             profileLocationIcon.setImageResource(currentUser.isGeoLocationEnabled() ? R.drawable.ic_enabled : R.drawable.ic_disabled);
             profileNotificationIcon.setImageResource(currentUser.isNotificationEnabled() ? R.drawable.ic_enabled : R.drawable.ic_disabled);
 
-            Glide.with(this)
-                    .load(currentUser.getProfilePictureUrl())
-                    .into(profilePicture);
+            InitialsAvatar.getInstance(requireContext()).into(profilePicture, currentUser);
         } else {
             Toast.makeText(getContext(), "User data not available.", Toast.LENGTH_SHORT).show();
         }
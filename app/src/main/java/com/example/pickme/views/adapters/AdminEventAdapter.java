@@ -27,6 +27,7 @@ public class AdminEventAdapter extends RecyclerView.Adapter<AdminEventAdapter.Ev
     private List<Event> filteredEventList;
     private final Context context;
     private final OnItemClickListener onItemClickListener;
+    private String query = "";
 
     /**
      * Constructor to initialize the adapter with a list of events and click listener.
@@ -121,12 +122,23 @@ public class AdminEventAdapter extends RecyclerView.Adapter<AdminEventAdapter.Ev
         notifyDataSetChanged();
     }
 
+    /**
+     * Adds a page of events to the end of the list, keeping the current search filter.
+     *
+     * @param page The events to add.
+     */
+    public void appendList(List<Event> page) {
+        originalEventList.addAll(page);
+        filter(query);
+    }
+
     /**
      * Filters the list of users based on a search query and updates the displayed list.
      *
      * @param query The search query to filter the users by.
      */
     public void filter(String query) {
+        this.query = query;
         query = query.toLowerCase().trim();
 
         if (TextUtils.isEmpty(query)) {
@@ -55,9 +55,17 @@ public class EntrantAdapter extends RecyclerView.Adapter<EntrantAdapter.EntrantV
     @Override
     public void onBindViewHolder(@NonNull EntrantViewHolder holder, int position) {
         WaitingListEntrant entrant = entrants.get(position);
+        String entrantId = entrant.getEntrantId();
+        holder.itemView.setTag(entrantId);
+        holder.entrantName.setText((position + 1) + ". ");
+
         UserRepository userRepository = UserRepository.getInstance();
-        userRepository.getUserByDeviceId(entrant.getEntrantId(), task -> {
-            if (task.isSuccessful()) {
+        userRepository.getUserByDeviceId(entrantId, task -> {
+            // The holder may have been recycled for another entrant while the user was loading
+            if (!entrantId.equals(holder.itemView.getTag()))
+                return;
+
+            if (task.isSuccessful() && task.getResult() != null) {
                 User user = task.getResult();
                 String name = user.getFirstName();
                 if (user.getLastName() != null && !user.getLastName().isEmpty()) {
@@ -12,12 +12,8 @@ import com.example.pickme.R;
 import com.example.pickme.databinding.EventsItemViewBinding;
 import com.example.pickme.models.Event;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Adapter class for displaying events in a RecyclerView.
@@ -99,38 +95,24 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
          * @param listener The listener for event click events.
          */
         public void bind(Event event, OnEventClickListener listener) {
-            String eventDateTime = event.getEventDate();
+            String eventDateTime = event.getEventDate() != null ? event.getEventDate() : "";
             String[] parts = eventDateTime.split(", ");
 
             if (parts.length == 2) {
-                String datePart = parts[0].trim();
                 String timePart = parts[1].trim();
 
                 binding.time.setText(timePart);
                 binding.title.setText(event.getEventTitle());
                 binding.address.setText(event.getEventLocation());
 
-                SimpleDateFormat dateFormat = new SimpleDateFormat("MMMM d yyyy, h:mm a", Locale.getDefault());
-                SimpleDateFormat endTimeFormat = new SimpleDateFormat("MMMM d yyyy, h:mm a", Locale.getDefault());
-
-                try {
-                    Date startDate = dateFormat.parse(datePart + ", " + timePart.split(" - ")[0]);
-                    Date endDate = endTimeFormat.parse(datePart + ", " + timePart.split(" - ")[1]);
-
-                    Date currentDate = new Date();
-
-                    if (endDate != null && endDate.before(currentDate)) {
-                        binding.title.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.text3));
-                        binding.time.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.text3));
-                        binding.address.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.text3));
-                    } else {
-                        binding.title.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.white));
-                        binding.time.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.white));
-                        binding.address.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.white));
-                    }
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                    binding.title.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.black));
+                if (event.hasEventEnded()) {
+                    binding.title.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.text3));
+                    binding.time.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.text3));
+                    binding.address.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.text3));
+                } else {
+                    binding.title.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.white));
+                    binding.time.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.white));
+                    binding.address.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.white));
                 }
 
                 binding.parent.setOnClickListener(v -> listener.onEventClick(event));
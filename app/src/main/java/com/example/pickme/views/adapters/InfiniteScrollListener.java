@@ -0,0 +1,58 @@
+package com.example.pickme.views.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.pickme.utils.PageLoader;
+
+/**
+ * Scroll listener that asks a {@link PageLoader} for the next page before the list runs out,
+ * so the next page is usually loaded by the time the user reaches it.
+ * Requires a LinearLayoutManager (or subclass) on the RecyclerView.
+ */
+public class InfiniteScrollListener extends RecyclerView.OnScrollListener {
+
+    private final PageLoader<?> pageLoader;
+    private final int prefetchDistance;
+
+    /**
+     * Creates the listener.
+     *
+     * @param pageLoader The loader to request pages from.
+     * @param prefetchDistance How many items before the end of the list the next page is requested.
+     */
+    public InfiniteScrollListener(PageLoader<?> pageLoader, int prefetchDistance) {
+        this.pageLoader = pageLoader;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Requests the next page when the last visible item is within the prefetch distance of the end.
+     *
+     * @param recyclerView The scrolled RecyclerView.
+     * @param dx The horizontal scroll amount.
+     * @param dy The vertical scroll amount.
+     */
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        checkPrefetch(recyclerView);
+    }
+
+    /**
+     * Requests the next page if the list is scrolled near its end or does not fill the screen,
+     * for example after a page was added or the list was filtered.
+     *
+     * @param recyclerView The RecyclerView showing the list.
+     */
+    public void checkPrefetch(@NonNull RecyclerView recyclerView) {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (layoutManager == null)
+            return;
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - 1 - prefetchDistance) {
+            pageLoader.loadNextPage();
+        }
+    }
+}
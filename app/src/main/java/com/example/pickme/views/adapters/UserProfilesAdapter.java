@@ -27,6 +27,7 @@ public class UserProfilesAdapter extends RecyclerView.Adapter<UserProfilesAdapte
     private List<User> filteredList;
     private final Context context;
     private final OnItemClickListener onItemClickListener;
+    private String query = "";
 
     /**
      * Constructor to initialize the adapter with a list of users and click listener.
@@ -138,12 +139,33 @@ public class UserProfilesAdapter extends RecyclerView.Adapter<UserProfilesAdapte
         notifyDataSetChanged();
     }
 
+    /**
+     * Adds a page of users to the end of the list, keeping the current search filter.
+     *
+     * @param page The users to add.
+     */
+    public void appendList(List<User> page) {
+        usersList.addAll(page);
+        filter(query);
+    }
+
+    /**
+     * Removes a user from the list, keeping the current search filter.
+     *
+     * @param user The user to remove.
+     */
+    public void removeUser(User user) {
+        usersList.remove(user);
+        filter(query);
+    }
+
     /**
      * Filters the list of users based on a search query and updates the displayed list.
      *
      * @param query The search query to filter the users by.
      */
     public void filter(String query) {
+        this.query = query;
         if (TextUtils.isEmpty(query)) {
             filteredList = new ArrayList<>(usersList); // Reset to full list if query is empty
         } else {
@@ -59,8 +59,15 @@ public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         WaitingListEntrant entrant = waitingListEntrants.get(position);
+        String entrantId = entrant.getEntrantId();
+        holder.itemView.setTag(entrantId);
+        holder.entrantNameTextView.setText((position + 1) + ". ");
+
+        UserRepository.getInstance().getUserByDeviceId(entrantId, task -> {
+            // The holder may have been recycled for another entrant while the user was loading
+            if (!entrantId.equals(holder.itemView.getTag()))
+                return;
 
-        UserRepository.getInstance().getUserByDeviceId(entrant.getEntrantId(), task -> {
             String entrantName;
 
             if(!task.isSuccessful() || task.getResult() == null){
@@ -6,12 +6,16 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import com.example.pickme.models.Enums.EntrantStatus;
 import com.google.firebase.Timestamp;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -70,6 +74,13 @@ public class EventTest {
         assertTrue(Objects.requireNonNull(actualMessage).contains(expectedMessage)); // Verify the message matches
     }
 
+    @Test
+    public void testConstructorRejectsInvalidEventDate() {
+        assertThrows(IllegalArgumentException.class, () -> new Event("1", "organizer123", "facility456", "Sample Event",
+                "An event description", "invalid date format", "poster123",
+                "123 Main St", 5, true, 100, new ArrayList<>(), false));
+    }
+
     @Test
     public void testMaxWinners() {
         // Test for negative max winners
@@ -162,6 +173,67 @@ public class EventTest {
 //        assertFalse(event.hasEventPassed());
 //    }
 
+    @Test
+    public void testEventTimesFromDateString() {
+        event.setEventDate("October 5 2024, 7:00 PM - 9:00 PM");
+
+        // The display string is derived from the stored times
+        assertEquals("October 5 2024, 7:00 PM - 9:00 PM", event.getEventDate());
+        assertEquals(2 * 60 * 60, event.getEventEndTime().getSeconds() - event.getEventTime().getSeconds());
+        assertTrue(event.hasEventPassed());
+        assertTrue(event.toMap().containsKey("eventTime"));
+    }
+
+    @Test
+    public void testUpcomingEventHasNotPassed() {
+        long inOneDay = System.currentTimeMillis() + 24 * 60 * 60 * 1000L;
+        event.setEventTimes(new Timestamp(new Date(inOneDay)), null);
+
+        assertFalse(event.hasEventPassed());
+        assertFalse(event.hasEventEnded());
+    }
+
+    @Test
+    public void testToMapExcludesWaitingList() {
+        event.getWaitingList().add(new WaitingListEntrant("user123", null, EntrantStatus.WAITING));
+
+        // Entrants are stored in their own subcollection, not on the event document
+        assertFalse(event.toMap().containsKey("waitingList"));
+    }
+
+    @Test
+    public void testToMapExcludesPoster() {
+        // The poster is attached by the upload queue, so an event update must not overwrite it
+        assertFalse(event.toMap().containsKey("posterImageId"));
+        assertFalse(event.toMap().containsKey("posterPreviewUrl"));
+    }
+
+    @Test
+    public void testUpdateKeepsLocalWaitingList() {
+        event.getWaitingList().add(new WaitingListEntrant("user123", null, EntrantStatus.WAITING));
+
+        Event fromSnapshot = new Event("1", "organizer123", "facility456", "Renamed Event",
+                "An event description", "October 5 2024, 7:00 PM", "poster123",
+                "123 Main St", 5, true, 100, new ArrayList<>(), false);
+        event.update(fromSnapshot);
+
+        assertEquals("Renamed Event", event.getEventTitle());
+        assertEquals(1, event.getWaitingList().size());
+    }
+
+    @Test
+    public void testEntrantCountsFromDocument() {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put(EntrantStatus.WAITING.name(), 7L);
+        counts.put(EntrantStatus.REJECTED.name(), 2L);
+        event.setEntrantCounts(counts);
+
+        assertEquals(9, event.getEntrantCount(EntrantStatus.WAITING, EntrantStatus.REJECTED));
+        assertEquals(0, event.getEntrantCount(EntrantStatus.SELECTED));
+        // Counts are written by entrant changes only, so event updates must not overwrite them
+        assertFalse(event.toMap().containsKey("entrantCounts"));
+    }
+
     @Test
     public void testEqualityAndHashCode() {
         Event event2 = new Event("1", "organizer123", "facility456", "Sample Event",
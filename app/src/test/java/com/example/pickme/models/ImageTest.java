@@ -104,4 +104,24 @@ public class ImageTest {
         eventPoster = createEventPoster();
         assertNotNull(eventPoster.getUpdatedAt());
     }
+
+    @Test
+    public void testUrlForSize_PicksSmallestCoveringVariant() {
+        eventPoster = createEventPoster();
+        eventPoster.setImageUrl("original");
+        eventPoster.setThumbnailUrl("thumbnail");
+        eventPoster.setPreviewUrl("preview");
+
+        assertEquals("thumbnail", eventPoster.getUrlForSize(96));
+        assertEquals("preview", eventPoster.getUrlForSize(360));
+        assertEquals("original", eventPoster.getUrlForSize(1080));
+    }
+
+    @Test
+    public void testUrlForSize_FallsBackToOriginalWithoutVariants() {
+        eventPoster = createEventPoster();
+        eventPoster.setImageUrl("original");
+
+        assertEquals("original", eventPoster.getUrlForSize(96));
+    }
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.example.pickme.models.Enums.EntrantStatus;
 import com.google.firebase.Timestamp;
 
 import org.junit.Test;
@@ -59,4 +60,18 @@ public class NotificationTest {
 
         assertTrue(Math.abs(Timestamp.now().getSeconds() - notification.getTimestamp().getSeconds()) < 5);
     }
+
+    @Test
+    public void testAudience(){
+        Notification notification = mockNotification();
+
+        notification.setEventID("event1");
+        notification.setLevel(EntrantStatus.SELECTED);
+
+        assertTrue(notification.hasAudience());
+
+        notification.getSendTo().add("user1");
+
+        assertFalse(notification.hasAudience()); //an explicit sendTo list takes precedence
+    }
 }
@@ -0,0 +1,110 @@
+package com.example.pickme.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.pickme.models.Enums.EntrantStatus;
+import com.example.pickme.models.Enums.WaitingListStatus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * Unit tests for the WaitingList class.
+ * Verifies that the per-status counts and the entrant lookups stay in sync as the waiting list changes.
+ *
+ * @version 1.0
+ */
+public class WaitingListTest {
+
+    private Event event;
+    private WaitingList waitingList;
+
+    @Before
+    public void setUp() {
+        ArrayList<WaitingListEntrant> entrants = new ArrayList<>();
+        entrants.add(new WaitingListEntrant("user1", null, EntrantStatus.WAITING));
+        entrants.add(new WaitingListEntrant("user2", null, EntrantStatus.WAITING));
+        entrants.add(new WaitingListEntrant("user3", null, EntrantStatus.SELECTED));
+
+        event = new Event("1", "organizer123", "facility456", "Sample Event",
+                "An event description", "October 5 2024, 7:00 PM", "poster123",
+                "123 Main St", 5, true, 3, entrants, false);
+        waitingList = event.getWaitingListIndex();
+    }
+
+    @Test
+    public void testInitialCounts() {
+        assertEquals(2, waitingList.count(EntrantStatus.WAITING));
+        assertEquals(1, waitingList.count(EntrantStatus.SELECTED));
+        assertEquals(3, waitingList.count(EntrantStatus.WAITING, EntrantStatus.SELECTED));
+        assertEquals(3, waitingList.count(EntrantStatus.ALL));
+        assertEquals(Integer.valueOf(2), waitingList.getNumEntrants());
+    }
+
+    @Test
+    public void testLookup() {
+        assertTrue(waitingList.contains("user1"));
+        assertEquals("user3", waitingList.get("user3").getEntrantId());
+        assertNull(waitingList.get("missing"));
+    }
+
+    @Test
+    public void testSetStatusMovesBuckets() {
+        WaitingListEntrant entrant = waitingList.get("user1");
+        waitingList.setStatus(entrant, EntrantStatus.SELECTED);
+
+        assertEquals(EntrantStatus.SELECTED, entrant.getStatus());
+        assertEquals(1, waitingList.count(EntrantStatus.WAITING));
+        assertEquals(2, waitingList.count(EntrantStatus.SELECTED));
+        assertTrue(waitingList.getEntrants(EntrantStatus.SELECTED).contains(entrant));
+    }
+
+    @Test
+    public void testAddAndRemoveKeepEventListInSync() {
+        waitingList.add(new WaitingListEntrant("user4", null, EntrantStatus.WAITING));
+
+        assertEquals(4, event.getWaitingList().size());
+        assertEquals(3, waitingList.count(EntrantStatus.WAITING));
+        assertEquals(WaitingListStatus.FULL, waitingList.getStatus());
+
+        waitingList.remove("user1");
+
+        assertEquals(3, event.getWaitingList().size());
+        assertFalse(waitingList.contains("user1"));
+        assertEquals(2, waitingList.count(EntrantStatus.WAITING));
+        assertEquals(WaitingListStatus.OPEN, waitingList.getStatus());
+    }
+
+    @Test
+    public void testEntrantWithoutStatusCountsAsWaiting() {
+        waitingList.add(new WaitingListEntrant("user4", null, null));
+
+        assertEquals(3, waitingList.count(EntrantStatus.WAITING));
+        assertNotNull(waitingList.remove("user4"));
+        assertEquals(2, waitingList.count(EntrantStatus.WAITING));
+    }
+
+    @Test
+    public void testReaddingRemovedEntrantKeepsOneCopy() {
+        WaitingListEntrant entrant = waitingList.remove("user1");
+        waitingList.add(entrant);
+
+        assertEquals(3, event.getWaitingList().size());
+        assertSame(entrant, event.getWaitingList().get(2));
+    }
+
+    @Test
+    public void testSetWaitingListRebuildsIndex() {
+        event.setWaitingList(new ArrayList<>());
+
+        assertEquals(0, event.getWaitingListIndex().count(EntrantStatus.ALL));
+        assertSame(event.getWaitingList(), event.getWaitingListIndex().getEntrants());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.pickme.repositories;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Unit tests for the retry schedule and retry policy of {@link UploadQueue}.
+ */
+public class UploadQueueTest {
+
+    /**
+     * Verifies that the delay doubles with each failed attempt.
+     */
+    @Test
+    public void testRetryDelayDoubles() {
+        assertEquals(2_000, UploadQueue.retryDelay(1));
+        assertEquals(4_000, UploadQueue.retryDelay(2));
+        assertEquals(16_000, UploadQueue.retryDelay(4));
+    }
+
+    /**
+     * Verifies that the delay stops growing at five minutes.
+     */
+    @Test
+    public void testRetryDelayIsCapped() {
+        assertEquals(5 * 60_000, UploadQueue.retryDelay(10));
+        assertEquals(5 * 60_000, UploadQueue.retryDelay(100));
+    }
+
+    /**
+     * Verifies that network and other transient failures are retried.
+     */
+    @Test
+    public void testTransientFailuresAreRetryable() {
+        assertTrue(UploadQueue.isRetryable(new IOException("Connection reset")));
+        assertTrue(UploadQueue.isRetryable(new RuntimeException(new IOException("Timeout"))));
+    }
+
+    /**
+     * Verifies that an upload whose source file is gone is dropped, even when the failure is wrapped.
+     */
+    @Test
+    public void testMissingSourceIsNotRetryable() {
+        assertFalse(UploadQueue.isRetryable(new FileNotFoundException("upload.data")));
+        assertFalse(UploadQueue.isRetryable(new RuntimeException(new FileNotFoundException("upload.data"))));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit tests for the scan validation in {@link CheckInManifest}.
+ */
+public class CheckInManifestTest {
+
+    /**
+     * Verifies that accepted entrants are admitted once and everyone else is turned away.
+     */
+    @Test
+    public void testCheckIn() {
+        CheckInManifest manifest = new CheckInManifest("event1", Arrays.asList("user1", "user2"), Collections.emptyList());
+
+        assertEquals(CheckInManifest.Result.ADMITTED, manifest.checkIn("user1"));
+        assertEquals(CheckInManifest.Result.ALREADY_CHECKED_IN, manifest.checkIn("user1"));
+        assertEquals(CheckInManifest.Result.NOT_ACCEPTED, manifest.checkIn("user3"));
+        assertEquals(1, manifest.getCheckedInCount());
+        assertEquals(2, manifest.getAcceptedCount());
+    }
+
+    /**
+     * Verifies that check-ins from an earlier session are remembered.
+     */
+    @Test
+    public void testPreviousCheckInsAreKept() {
+        CheckInManifest manifest = new CheckInManifest("event1", Arrays.asList("user1", "user2"), Collections.singletonList("user2"));
+
+        assertEquals(CheckInManifest.Result.ALREADY_CHECKED_IN, manifest.checkIn("user2"));
+        assertEquals(CheckInManifest.Result.ADMITTED, manifest.checkIn("user1"));
+        assertEquals(2, manifest.getCheckedInCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.bumptech.glide.request.target.Target;
+import com.example.pickme.models.Image;
+
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Unit tests for how {@link ImageModelLoader} sizes and keys image loads.
+ */
+public class ImageModelLoaderTest {
+
+    /**
+     * Verifies that the longest side is used, and that original-size loads get the original image.
+     */
+    @Test
+    public void testTargetSize() {
+        assertEquals(300, ImageModelLoader.targetSize(300, 200));
+        assertEquals(Integer.MAX_VALUE, ImageModelLoader.targetSize(Target.SIZE_ORIGINAL, 200));
+        assertEquals(Integer.MAX_VALUE, ImageModelLoader.targetSize(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL));
+    }
+
+    /**
+     * Verifies that an image read from Firestore twice gets the same cache key,
+     * and that different content at the same URL does not.
+     */
+    @Test
+    public void testCacheKeyStableAcrossReads() throws Exception {
+        String url = "https://example.com/poster";
+        Image first = readImage(url, "hash1");
+        Thread.sleep(5);
+        Image second = readImage(url, "hash1");
+
+        assertEquals(ImageModelLoader.cacheKey(first, url), ImageModelLoader.cacheKey(second, url));
+        assertNotEquals(ImageModelLoader.cacheKey(first, url), ImageModelLoader.cacheKey(readImage(url, "hash2"), url));
+        assertEquals(url, ImageModelLoader.cacheKey(readImage(url, null), url));
+    }
+
+    /**
+     * Builds an image the way Firestore deserializes one: the no-argument constructor, then the setters.
+     */
+    private static Image readImage(String url, String contentHash) throws Exception {
+        Constructor<Image> constructor = Image.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Image image = constructor.newInstance();
+        image.setImageUrl(url);
+        image.setContentHash(contentHash);
+        image.setUploaderId("user");
+        image.setImageAssociation("event");
+        return image;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for choosing how far {@link ImageVariants} subsamples a source image.
+ */
+public class ImageVariantsTest {
+
+    /**
+     * Verifies that large photos are subsampled without dropping below the preview size.
+     */
+    @Test
+    public void testSampleSizeKeepsPreviewResolution() {
+        // 4000px photo: 4000 / 4 = 1000 and 4000 / 8 = 500, which would be below 512
+        assertEquals(4, ImageVariants.sampleSize(4000, 3000, ImageVariants.PREVIEW_SIZE));
+        assertEquals(2, ImageVariants.sampleSize(1024, 768, ImageVariants.PREVIEW_SIZE));
+    }
+
+    /**
+     * Verifies that images smaller than twice the target are decoded at full size.
+     */
+    @Test
+    public void testSampleSizeOfSmallImageIsOne() {
+        assertEquals(1, ImageVariants.sampleSize(256, 256, ImageVariants.PREVIEW_SIZE));
+        assertEquals(1, ImageVariants.sampleSize(1000, 600, ImageVariants.PREVIEW_SIZE));
+    }
+
+    /**
+     * Verifies that camera photos are subsampled for upload without dropping below the upload size.
+     */
+    @Test
+    public void testSampleSizeKeepsUploadResolution() {
+        // 12MP photo: 4032 / 2 = 2016 and 4032 / 4 = 1008, which would be below 1600
+        assertEquals(2, ImageVariants.sampleSize(4032, 3024, ImageVariants.MAX_UPLOAD_SIZE));
+        assertEquals(1, ImageVariants.sampleSize(3000, 2000, ImageVariants.MAX_UPLOAD_SIZE));
+    }
+}
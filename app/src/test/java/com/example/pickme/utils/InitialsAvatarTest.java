@@ -0,0 +1,41 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the initials and colors of avatars drawn by {@link InitialsAvatar}.
+ */
+public class InitialsAvatarTest {
+
+    /**
+     * Verifies that initials are the upper-case first letters of the first and last name.
+     */
+    @Test
+    public void testInitials() {
+        assertEquals("JD", InitialsAvatar.initials("jane", " doe"));
+        assertEquals("J", InitialsAvatar.initials("Jane", ""));
+        assertEquals("?", InitialsAvatar.initials(null, null));
+    }
+
+    /**
+     * Verifies that a device always gets the same opaque color, and different devices usually differ.
+     */
+    @Test
+    public void testColorIsSeededByDevice() {
+        assertEquals(InitialsAvatar.color("device-1"), InitialsAvatar.color("device-1"));
+        assertNotEquals(InitialsAvatar.color("device-1"), InitialsAvatar.color("device-2"));
+        assertEquals(0xFF, InitialsAvatar.color("device-1") >>> 24);
+    }
+
+    /**
+     * Verifies that cache keys are file-name safe and separate avatars with different initials or colors.
+     */
+    @Test
+    public void testCacheKey() {
+        assertEquals("4a44_ff102030_256", InitialsAvatar.cacheKey("JD", 0xFF102030));
+        assertNotEquals(InitialsAvatar.cacheKey("JD", 0xFF102030), InitialsAvatar.cacheKey("JD", 0xFF102031));
+    }
+}
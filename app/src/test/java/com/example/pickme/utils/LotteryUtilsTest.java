@@ -0,0 +1,69 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the winner selection in {@link LotteryUtils}.
+ */
+public class LotteryUtilsTest {
+
+    /**
+     * Creates a list of entrant IDs "0" to "n-1".
+     */
+    private List<String> entrants(int n) {
+        List<String> entrants = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            entrants.add(String.valueOf(i));
+        }
+        return entrants;
+    }
+
+    /**
+     * Verifies that k distinct entrants are drawn and the list keeps every entrant.
+     */
+    @Test
+    public void testDrawRandomDrawsDistinctEntrants() {
+        List<String> entrants = entrants(100);
+
+        int numDrawn = LotteryUtils.drawRandom(entrants, 10, new Random(42));
+
+        assertEquals(10, numDrawn);
+        assertEquals(100, entrants.size());
+        assertEquals(100, new HashSet<>(entrants).size());
+
+        Set<String> drawn = new HashSet<>(entrants.subList(0, numDrawn));
+        assertEquals(10, drawn.size());
+    }
+
+    /**
+     * Verifies that drawing more entrants than available draws everyone.
+     */
+    @Test
+    public void testDrawRandomCapsAtListSize() {
+        List<String> entrants = entrants(3);
+
+        assertEquals(3, LotteryUtils.drawRandom(entrants, 5, new Random(42)));
+        assertTrue(entrants.containsAll(entrants(3)));
+    }
+
+    /**
+     * Verifies that a non-positive draw leaves the list untouched.
+     */
+    @Test
+    public void testDrawRandomNothingToDraw() {
+        List<String> entrants = entrants(5);
+
+        assertEquals(0, LotteryUtils.drawRandom(entrants, 0, new Random(42)));
+        assertEquals(0, LotteryUtils.drawRandom(entrants, -2, new Random(42)));
+        assertEquals(entrants(5), entrants);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.pickme.repositories.Page;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for paging through a collection with {@link PageLoader}.
+ */
+public class PageLoaderTest {
+
+    private final List<DocumentSnapshot> requestedCursors = new ArrayList<>();
+    private final List<OnCompleteListener<Page<String>>> pendingRequests = new ArrayList<>();
+    private final List<String> loaded = new ArrayList<>();
+    private PageLoader<String> pageLoader;
+
+    @Before
+    public void setUp() {
+        pageLoader = new PageLoader<>((pageSize, startAfter, onCompleteListener) -> {
+            requestedCursors.add(startAfter);
+            pendingRequests.add(onCompleteListener);
+        }, 2, new PageLoader.Listener<String>() {
+            @Override
+            public void onPageLoaded(List<String> items, boolean firstPage) {
+                loaded.addAll(items);
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {}
+        });
+    }
+
+    private void completeRequest(int index, List<String> items, DocumentSnapshot cursor, boolean hasMore) {
+        pendingRequests.get(index).onComplete(Tasks.forResult(new Page<>(items, cursor, hasMore)));
+    }
+
+    /**
+     * Verifies that each page is requested after the cursor of the previous one.
+     */
+    @Test
+    public void testLoadsPagesInOrder() {
+        DocumentSnapshot cursor = Mockito.mock(DocumentSnapshot.class);
+
+        pageLoader.loadNextPage();
+        completeRequest(0, Arrays.asList("a", "b"), cursor, true);
+        pageLoader.loadNextPage();
+        completeRequest(1, Collections.singletonList("c"), Mockito.mock(DocumentSnapshot.class), false);
+
+        assertNull(requestedCursors.get(0));
+        assertSame(cursor, requestedCursors.get(1));
+        assertEquals(Arrays.asList("a", "b", "c"), loaded);
+        assertFalse(pageLoader.hasMore());
+    }
+
+    /**
+     * Verifies that no page is requested while one is loading or after the last page.
+     */
+    @Test
+    public void testIgnoresRequestsWhileLoadingAndAfterLastPage() {
+        pageLoader.loadNextPage();
+        pageLoader.loadNextPage();
+        assertTrue(pageLoader.isLoading());
+        assertEquals(1, pendingRequests.size());
+
+        completeRequest(0, Collections.singletonList("a"), Mockito.mock(DocumentSnapshot.class), false);
+        pageLoader.loadNextPage();
+        assertEquals(1, pendingRequests.size());
+    }
+
+    /**
+     * Verifies that a page requested before a reset is dropped.
+     */
+    @Test
+    public void testResetDropsPageInFlight() {
+        pageLoader.loadNextPage();
+        pageLoader.reset();
+        pageLoader.loadNextPage();
+
+        completeRequest(0, Collections.singletonList("stale"), Mockito.mock(DocumentSnapshot.class), true);
+        completeRequest(1, Collections.singletonList("fresh"), Mockito.mock(DocumentSnapshot.class), true);
+
+        assertNull(requestedCursors.get(1));
+        assertEquals(Collections.singletonList("fresh"), loaded);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for the content hash that lets identical uploads share one stored file.
+ */
+public class PreparedImageTest {
+
+    /**
+     * Verifies that the hash is the lowercase hex SHA-256 of the encoded image.
+     */
+    @Test
+    public void testContentHashIsSha256() {
+        PreparedImage image = PreparedImage.unprocessed("abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", image.getContentHash());
+    }
+
+    /**
+     * Verifies that identical bytes share a hash and different bytes do not.
+     */
+    @Test
+    public void testContentHashFollowsContent() {
+        byte[] poster = {1, 2, 3, 4};
+        assertEquals(PreparedImage.unprocessed(poster).getContentHash(),
+                PreparedImage.unprocessed(poster.clone()).getContentHash());
+        assertNotEquals(PreparedImage.unprocessed(poster).getContentHash(),
+                PreparedImage.unprocessed(new byte[]{1, 2, 3, 5}).getContentHash());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for encoding and verifying {@link QrPayload}.
+ */
+public class QrPayloadTest {
+
+    /**
+     * Verifies that an encoded payload parses back to its event and QR IDs.
+     */
+    @Test
+    public void testRoundTrip() {
+        String text = QrPayload.encode("event123", "qr456");
+
+        assertTrue(QrPayload.isPayload(text));
+        QrPayload payload = QrPayload.parse(text);
+        assertEquals("event123", payload.getEventId());
+        assertEquals("qr456", payload.getQrId());
+    }
+
+    /**
+     * Verifies that legacy QR IDs are not mistaken for payloads.
+     */
+    @Test
+    public void testLegacyQrIdIsNotPayload() {
+        assertFalse(QrPayload.isPayload("Xk3b9QfPz0aLm2Rt7YcW"));
+    }
+
+    /**
+     * Verifies that a payload edited to point at a different event is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTamperedEventIdIsRejected() {
+        String text = QrPayload.encode("event123", "qr456");
+
+        QrPayload.parse(text.replace("event123", "event999"));
+    }
+
+    /**
+     * Verifies that a payload without a checksum is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedPayloadIsRejected() {
+        QrPayload.parse("pickme:1:event123");
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ScanDeduplicator}.
+ */
+public class ScanDeduplicatorTest {
+
+    /**
+     * Verifies that a code held in view is reported once and again after it leaves the window.
+     */
+    @Test
+    public void testRepeatsWithinWindowAreSuppressed() {
+        ScanDeduplicator deduplicator = new ScanDeduplicator(1_000);
+
+        assertFalse(deduplicator.isRepeat("a", 0));
+        assertTrue(deduplicator.isRepeat("a", 800));
+        assertTrue(deduplicator.isRepeat("a", 1_600));
+        assertFalse(deduplicator.isRepeat("b", 1_700));
+        assertFalse(deduplicator.isRepeat("a", 1_800));
+        assertFalse(deduplicator.isRepeat("a", 3_000));
+    }
+
+    /**
+     * Verifies that a reset reports the last code again.
+     */
+    @Test
+    public void testReset() {
+        ScanDeduplicator deduplicator = new ScanDeduplicator(1_000);
+
+        deduplicator.isRepeat("a", 0);
+        deduplicator.reset();
+        assertFalse(deduplicator.isRepeat("a", 10));
+    }
+
+    /**
+     * Verifies that a released code held in view is reported again one window after its release.
+     */
+    @Test
+    public void testReleasedCodeIsRetriedAfterWindow() {
+        ScanDeduplicator deduplicator = new ScanDeduplicator(1_000);
+
+        assertFalse(deduplicator.isRepeat("a", 0));
+        deduplicator.release("a", 500);
+        assertTrue(deduplicator.isRepeat("a", 900));
+        assertTrue(deduplicator.isRepeat("a", 1_400));
+        assertFalse(deduplicator.isRepeat("a", 1_500));
+        assertTrue(deduplicator.isRepeat("a", 2_400));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the frame skipping and counters in {@link ScanMetrics}.
+ */
+public class ScanMetricsTest {
+    private static final long MS = 1_000_000L;
+
+    /**
+     * Verifies that fast decodes never skip frames and slow decodes skip in proportion.
+     */
+    @Test
+    public void testSkipsFramesOnlyWhenOverBudget() {
+        ScanMetrics metrics = new ScanMetrics();
+
+        metrics.onFrameDecoded(0, 10 * MS);
+        assertFalse(metrics.shouldSkipFrame());
+
+        metrics = new ScanMetrics();
+        metrics.onFrameDecoded(0, 90 * MS);
+        assertTrue(metrics.shouldSkipFrame());
+        assertTrue(metrics.shouldSkipFrame());
+        assertFalse(metrics.shouldSkipFrame());
+        assertEquals(2, metrics.getSkippedFrames());
+    }
+
+    /**
+     * Verifies the frame rate and the average scan-to-result latency.
+     */
+    @Test
+    public void testCounters() {
+        ScanMetrics metrics = new ScanMetrics();
+        for (int i = 0; i <= 20; i++) {
+            metrics.onFrameDecoded(i * 50 * MS, 5 * MS);
+        }
+        assertEquals(21.0, metrics.getFramesPerSecond(), 0.01);
+
+        metrics.onResultHandled(1_000, 1_100);
+        metrics.onResultHandled(1_000, 1_300);
+        assertEquals(200.0, metrics.getAverageLatencyMs(), 0.01);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.pickme.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for encoding and verifying {@link TicketPayload}.
+ */
+public class TicketPayloadTest {
+
+    /**
+     * Verifies that an encoded ticket parses back to its event and entrant IDs.
+     */
+    @Test
+    public void testRoundTrip() {
+        TicketPayload ticket = TicketPayload.parse(TicketPayload.encode("event123", "device456"));
+
+        assertEquals("event123", ticket.getEventId());
+        assertEquals("device456", ticket.getEntrantId());
+    }
+
+    /**
+     * Verifies that a ticket is not mistaken for an event QR code.
+     */
+    @Test
+    public void testTicketIsNotEventPayload() {
+        assertFalse(QrPayload.isPayload(TicketPayload.encode("event123", "device456")));
+    }
+
+    /**
+     * Verifies that a ticket edited to name another entrant is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTamperedEntrantIdIsRejected() {
+        String text = TicketPayload.encode("event123", "device456");
+
+        TicketPayload.parse(text.replace("device456", "device999"));
+    }
+
+    /**
+     * Verifies that an event QR code is not accepted as a ticket.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEventPayloadIsRejected() {
+        TicketPayload.parse(QrPayload.encode("event123", "qr456"));
+    }
+}